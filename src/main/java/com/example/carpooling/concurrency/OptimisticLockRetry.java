@@ -0,0 +1,118 @@
+package com.carpooling.concurrency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.OptimisticLockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.retry.RetryException;
+import org.springframework.core.retry.RetryListener;
+import org.springframework.core.retry.RetryPolicy;
+import org.springframework.core.retry.RetryTemplate;
+import org.springframework.core.retry.Retryable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a unit of work when it loses an optimistic lock race
+ *
+ * The work must open its own transaction (call it through a transactional proxy),
+ * so every attempt starts from fresh entity versions. Backoff is exponential with
+ * random jitter, and the number of retries is capped.
+ * The contention counters are published as carpooling.booking.conflicts, .retries and
+ * .retries.exhausted.
+ */
+@Component
+public class OptimisticLockRetry implements MeterBinder {
+
+    public static final String CONFLICTS_NAME = "carpooling.booking.conflicts";
+    public static final String RETRIES_NAME = "carpooling.booking.retries";
+    public static final String EXHAUSTED_NAME = "carpooling.booking.retries.exhausted";
+
+    private static final Logger log = LoggerFactory.getLogger(OptimisticLockRetry.class);
+
+    private final RetryTemplate retryTemplate;
+
+    // Contention counters: every version conflict seen, every retry started, every retry budget used up
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    public OptimisticLockRetry(
+            @Value("${carpooling.booking.retry.max-retries:3}") long maxRetries,
+            @Value("${carpooling.booking.retry.delay:20ms}") Duration delay,
+            @Value("${carpooling.booking.retry.jitter:15ms}") Duration jitter,
+            @Value("${carpooling.booking.retry.max-delay:250ms}") Duration maxDelay) {
+
+        RetryPolicy policy = RetryPolicy.builder()
+                .maxRetries(maxRetries)
+                .delay(delay)
+                .jitter(jitter)
+                .multiplier(2)
+                .maxDelay(maxDelay)
+                .predicate(OptimisticLockRetry::isConflict)
+                .build();
+
+        this.retryTemplate = new RetryTemplate(policy);
+        this.retryTemplate.setRetryListener(new RetryListener() {
+            @Override
+            public void beforeRetry(RetryPolicy retryPolicy, Retryable<?> retryable) {
+                retries.increment();
+            }
+
+            @Override
+            public void onRetryPolicyExhaustion(RetryPolicy retryPolicy, Retryable<?> retryable,
+                                                RetryException exception) {
+                // Also called for non-retryable failures (e.g. BookingException), which are not contention
+                if (isConflict(exception.getLastException())) {
+                    exhausted.increment();
+                    log.warn("Gave up after {} optimistic lock retries", exception.getRetryCount());
+                }
+            }
+        });
+    }
+
+    /**
+     * Run the work, retrying on optimistic lock conflicts
+     * Any other exception, and the last conflict once retries are used up, propagates unchanged
+     */
+    public <T> T execute(Supplier<T> work) {
+        return retryTemplate.invoke(() -> {
+            try {
+                return work.get();
+            } catch (RuntimeException e) {
+                if (isConflict(e)) {
+                    conflicts.increment();
+                }
+                throw e;
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(CONFLICTS_NAME, conflicts, LongAdder::sum)
+                .description("Optimistic lock conflicts on booking writes")
+                .register(registry);
+        FunctionCounter.builder(RETRIES_NAME, retries, LongAdder::sum)
+                .description("Booking writes retried after a conflict")
+                .register(registry);
+        FunctionCounter.builder(EXHAUSTED_NAME, exhausted, LongAdder::sum)
+                .description("Booking writes that still conflicted after the last retry")
+                .register(registry);
+    }
+
+    static boolean isConflict(Throwable ex) {
+        return ex instanceof OptimisticLockingFailureException || ex instanceof OptimisticLockException;
+    }
+
+    public long getConflictCount() { return conflicts.sum(); }
+    public long getRetryCount() { return retries.sum(); }
+    public long getExhaustedCount() { return exhausted.sum(); }
+}
@@ -0,0 +1,172 @@
+package com.carpooling.concurrency;
+
+import com.carpooling.security.CustomUserDetails;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user, per-endpoint-class rate limits (token buckets)
+ *
+ * One client looping on search must not take the connection pool from everyone else, so
+ * each user gets a bucket per endpoint class: searches, booking writes and authentication.
+ * Requests beyond the bucket get 429 with Retry-After before reaching any controller.
+ * Anonymous requests (login, public search) are keyed by client address instead.
+ * Runs after Spring Security, so the user is known, and before the other application filters.
+ * Single-node: buckets are kept in memory, and only for recently active keys.
+ * Its statistics are published as carpooling.ratelimit.admitted, .rejected and .tracked.keys.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 100)
+@ConditionalOnProperty(prefix = "carpooling.ratelimit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitFilter extends OncePerRequestFilter implements MeterBinder {
+
+    public static final String ADMITTED_NAME = "carpooling.ratelimit.admitted";
+    public static final String REJECTED_NAME = "carpooling.ratelimit.rejected";
+    public static final String TRACKED_KEYS_NAME = "carpooling.ratelimit.tracked.keys";
+
+    private static final String REJECTED_BODY =
+            "{\"success\":false,\"message\":\"Too many requests, please slow down\",\"data\":null}";
+
+    /**
+     * Endpoint classes with their own limits
+     */
+    public enum EndpointClass {
+        SEARCH,
+        BOOKING_WRITE,
+        AUTH;
+
+        /**
+         * Class of a request by method and path (below the context path), or null if unlimited
+         */
+        static EndpointClass of(String method, String path) {
+            if (path.startsWith("/auth/")) {
+                return "POST".equals(method) ? AUTH : null;
+            }
+            if (path.startsWith("/rides/search")) {
+                return SEARCH;
+            }
+            if (path.equals("/bookings") || path.startsWith("/bookings/")) {
+                return "GET".equals(method) ? null : BOOKING_WRITE;
+            }
+            return null;
+        }
+    }
+
+    private final Map<EndpointClass, TokenBucketLimiter> limiters;
+
+    // Rate limit statistics
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @Autowired
+    public RateLimitFilter(
+            @Value("${carpooling.ratelimit.search.capacity:30}") int searchCapacity,
+            @Value("${carpooling.ratelimit.search.refill-period:200ms}") Duration searchRefill,
+            @Value("${carpooling.ratelimit.booking.capacity:10}") int bookingCapacity,
+            @Value("${carpooling.ratelimit.booking.refill-period:1s}") Duration bookingRefill,
+            @Value("${carpooling.ratelimit.auth.capacity:10}") int authCapacity,
+            @Value("${carpooling.ratelimit.auth.refill-period:6s}") Duration authRefill) {
+        this(Map.of(
+                EndpointClass.SEARCH, new TokenBucketLimiter(searchCapacity, searchRefill),
+                EndpointClass.BOOKING_WRITE, new TokenBucketLimiter(bookingCapacity, bookingRefill),
+                EndpointClass.AUTH, new TokenBucketLimiter(authCapacity, authRefill)));
+    }
+
+    RateLimitFilter(Map<EndpointClass, TokenBucketLimiter> limiters) {
+        this.limiters = new EnumMap<>(limiters);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return EndpointClass.of(request.getMethod(), path(request)) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        EndpointClass endpointClass = EndpointClass.of(request.getMethod(), path(request));
+        long waitNanos = limiters.get(endpointClass).tryAcquire(clientKey(request));
+        if (waitNanos > 0) {
+            rejected.increment();
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER,
+                    Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(REJECTED_BODY);
+            return;
+        }
+        admitted.increment();
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Forget buckets of clients that have been idle long enough to be full again
+     */
+    @Scheduled(fixedDelayString = "${carpooling.ratelimit.prune-interval:1m}")
+    public void prune() {
+        limiters.values().forEach(TokenBucketLimiter::prune);
+    }
+
+    /**
+     * User id for authenticated requests; a hash of the client address (negative, so it
+     * never collides with a user id) for anonymous ones
+     */
+    private static long clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails user) {
+            return user.getUserId();
+        }
+        return (request.getRemoteAddr().hashCode() & 0xFFFFFFFFL) | Long.MIN_VALUE;
+    }
+
+    // Path below the context path, as in the security rules
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(ADMITTED_NAME, admitted, LongAdder::sum)
+                .description("Requests within their rate limit")
+                .register(registry);
+        FunctionCounter.builder(REJECTED_NAME, rejected, LongAdder::sum)
+                .description("Requests rejected with 429")
+                .register(registry);
+        Gauge.builder(TRACKED_KEYS_NAME, this, RateLimitFilter::getTrackedKeys)
+                .description("Token buckets currently held")
+                .register(registry);
+    }
+
+    public int getTrackedKeys() {
+        return limiters.values().stream().mapToInt(TokenBucketLimiter::getSize).sum();
+    }
+    public long getAdmittedCount() { return admitted.sum(); }
+    public long getRejectedCount() { return rejected.sum(); }
+}
@@ -0,0 +1,109 @@
+package com.carpooling.concurrency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the number of requests processed at once
+ *
+ * With virtual threads Tomcat no longer limits concurrency, so every request could reach
+ * the connection pool and queue there, holding memory and timing out late. The bulkhead
+ * admits a bounded number of requests (one per pooled connection), lets the rest wait
+ * briefly, and rejects the overflow with 503 so clients back off early.
+ * Its statistics are published as carpooling.bulkhead.admitted, .rejected and .in.flight.
+ */
+@Component
+@ConditionalOnProperty(prefix = "carpooling.bulkhead", name = "enabled", havingValue = "true")
+public class RequestBulkheadFilter extends OncePerRequestFilter implements MeterBinder {
+
+    public static final String ADMITTED_NAME = "carpooling.bulkhead.admitted";
+    public static final String REJECTED_NAME = "carpooling.bulkhead.rejected";
+    public static final String IN_FLIGHT_NAME = "carpooling.bulkhead.in.flight";
+
+    private static final String REJECTED_BODY =
+            "{\"success\":false,\"message\":\"Server is busy, please try again\",\"data\":null}";
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long maxWaitNanos;
+
+    // Bulkhead statistics
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public RequestBulkheadFilter(
+            @Value("${carpooling.bulkhead.max-concurrent:10}") int maxConcurrent,
+            @Value("${carpooling.bulkhead.max-wait:500ms}") Duration maxWait) {
+
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("Bulkhead must admit at least 1 request");
+        }
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(REJECTED_BODY);
+            return;
+        }
+        admitted.increment();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(ADMITTED_NAME, admitted, LongAdder::sum)
+                .description("Requests admitted by the bulkhead")
+                .register(registry);
+        FunctionCounter.builder(REJECTED_NAME, rejected, LongAdder::sum)
+                .description("Requests rejected with 503 after waiting for the bulkhead")
+                .register(registry);
+        Gauge.builder(IN_FLIGHT_NAME, this, RequestBulkheadFilter::getInFlight)
+                .description("Requests currently holding a bulkhead permit")
+                .register(registry);
+    }
+
+    public int getMaxConcurrent() { return maxConcurrent; }
+    public int getInFlight() { return maxConcurrent - permits.availablePermits(); }
+    public long getAdmittedCount() { return admitted.sum(); }
+    public long getRejectedCount() { return rejected.sum(); }
+}
@@ -0,0 +1,135 @@
+package com.carpooling.concurrency;
+
+import com.carpooling.exception.RideBusyException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped in-process locks that serialize booking writes per ride
+ *
+ * Taken before any transaction is opened, so requests for a hot ride queue here
+ * instead of holding pool connections while they wait on the same row lock.
+ * Rides are spread over a fixed number of stripes; two rides that share a stripe
+ * simply serialize with each other. Single-node only: this does not coordinate
+ * between application instances.
+ * Lock waits are published as carpooling.booking.lock.wait (timer), .wait.peak, .timeouts
+ * and .queued.
+ */
+@Component
+public class RideLockManager implements MeterBinder {
+
+    public static final String WAIT_NAME = "carpooling.booking.lock.wait";
+    public static final String WAIT_PEAK_NAME = "carpooling.booking.lock.wait.peak";
+    public static final String TIMEOUTS_NAME = "carpooling.booking.lock.timeouts";
+    public static final String QUEUED_NAME = "carpooling.booking.lock.queued";
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long timeoutNanos;
+
+    // Lock wait statistics
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+
+    public RideLockManager(
+            @Value("${carpooling.booking.lock.stripes:256}") int stripeCount,
+            @Value("${carpooling.booking.lock.timeout:2s}") Duration timeout) {
+
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count must be at least 1");
+        }
+        // Round up to a power of two so the stripe can be picked with a mask
+        int size = stripeCount == 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+        this.mask = size - 1;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * Run the work while holding the lock for the given ride
+     * Throws RideBusyException (503) if the lock cannot be acquired within the configured timeout
+     */
+    public <T> T withRideLock(Long rideId, Supplier<T> work) {
+        ReentrantLock lock = stripeFor(rideId);
+        long started = System.nanoTime();
+        boolean locked;
+        try {
+            locked = lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RideBusyException("Interrupted while waiting for ride " + rideId, e);
+        }
+        long waited = System.nanoTime() - started;
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulate(waited);
+
+        if (!locked) {
+            timeouts.increment();
+            throw new RideBusyException("Ride " + rideId + " is busy, please try again");
+        }
+        acquisitions.increment();
+        try {
+            return work.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Every wait is timed, including the ones that timed out
+        FunctionTimer.builder(WAIT_NAME, this, manager -> manager.getAcquisitionCount() + manager.getTimeoutCount(),
+                        RideLockManager::getTotalWaitNanos, TimeUnit.NANOSECONDS)
+                .description("Time spent waiting for ride write locks")
+                .register(registry);
+        TimeGauge.builder(WAIT_PEAK_NAME, this, TimeUnit.NANOSECONDS, RideLockManager::getMaxWaitNanos)
+                .description("Longest wait for a ride write lock since startup")
+                .register(registry);
+        FunctionCounter.builder(TIMEOUTS_NAME, this, RideLockManager::getTimeoutCount)
+                .description("Ride write locks not acquired within the timeout")
+                .register(registry);
+        Gauge.builder(QUEUED_NAME, this, RideLockManager::getQueuedThreads)
+                .description("Threads waiting for a ride write lock")
+                .register(registry);
+    }
+
+    private ReentrantLock stripeFor(Long rideId) {
+        long h = rideId * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h ^ (h >>> 32)) & mask];
+    }
+
+    public int getStripeCount() { return stripes.length; }
+    public long getAcquisitionCount() { return acquisitions.sum(); }
+    public long getTimeoutCount() { return timeouts.sum(); }
+    public long getTotalWaitNanos() { return totalWaitNanos.sum(); }
+    public long getMaxWaitNanos() { return maxWaitNanos.get(); }
+
+    /**
+     * Threads currently queued on any stripe (approximate)
+     */
+    public int getQueuedThreads() {
+        int queued = 0;
+        for (ReentrantLock stripe : stripes) {
+            queued += stripe.getQueueLength();
+        }
+        return queued;
+    }
+}
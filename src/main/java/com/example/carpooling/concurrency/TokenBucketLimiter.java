@@ -0,0 +1,84 @@
+package com.carpooling.concurrency;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token buckets, one per key, all with the same capacity and refill rate
+ *
+ * Each bucket is a single long: the time at which it would be full again (the
+ * "theoretical arrival time" of the generic cell rate algorithm, which admits exactly what
+ * a token bucket does). Taking a token pushes that time one refill period further; a
+ * request is refused when the bucket would become full again more than capacity - 1
+ * periods from now, i.e. when it holds no token. Admission is one read and one CAS, with
+ * no lock and no background refill. A full bucket carries no information, so prune drops
+ * them and idle keys cost nothing.
+ */
+public class TokenBucketLimiter {
+
+    private final ConcurrentMap<Long, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final long refillNanos;
+    private final long burstNanos;
+    private final LongSupplier clock;
+
+    public TokenBucketLimiter(int capacity, Duration refillPeriod) {
+        this(capacity, refillPeriod, System::nanoTime);
+    }
+
+    TokenBucketLimiter(int capacity, Duration refillPeriod, LongSupplier clock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Token bucket capacity must be at least 1");
+        }
+        if (refillPeriod.isNegative() || refillPeriod.isZero()) {
+            throw new IllegalArgumentException("Token bucket refill period must be positive");
+        }
+        this.capacity = capacity;
+        this.refillNanos = refillPeriod.toNanos();
+        this.burstNanos = refillNanos * (capacity - 1);
+        this.clock = clock;
+    }
+
+    /**
+     * Take a token from the key's bucket
+     * @return 0 if a token was taken, otherwise the nanoseconds until the next one is available
+     */
+    public long tryAcquire(long key) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            // A new bucket is full: take its first token while creating it
+            bucket = buckets.putIfAbsent(key, new AtomicLong(now + refillNanos));
+            if (bucket == null) {
+                return 0;
+            }
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long start = fullAt - now > 0 ? fullAt : now;
+            long wait = start - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, start + refillNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drop buckets that have refilled completely
+     * A request racing with the removal may take its token from the dropped bucket, so at
+     * worst one extra request per key is admitted.
+     */
+    public void prune() {
+        long now = clock.getAsLong();
+        buckets.entrySet().removeIf(entry -> entry.getValue().get() - now <= 0);
+    }
+
+    public int getCapacity() { return capacity; }
+    public int getSize() { return buckets.size(); }
+}
@@ -0,0 +1,18 @@
+package com.carpooling.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Async and scheduled execution configuration
+ * @Async methods run on Spring Boot's applicationTaskExecutor: a bounded platform
+ * thread pool by default, or virtual threads when spring.threads.virtual.enabled is set
+ * (see application-virtual.properties)
+ * @Scheduled jobs (e.g. the outbox relay) run on Spring Boot's taskScheduler
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class AsyncConfig {
+}
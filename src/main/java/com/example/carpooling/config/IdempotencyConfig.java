@@ -0,0 +1,37 @@
+package com.carpooling.config;
+
+import com.carpooling.idempotency.InMemoryIdempotencyStore;
+import com.carpooling.idempotency.JpaIdempotencyStore;
+import com.carpooling.repository.IdempotentRequestRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Store for Idempotency-Key responses, chosen by carpooling.idempotency.store
+ * - memory (default): kept in this instance only
+ * - database: kept in the idempotent_requests table, shared by all instances
+ */
+@Configuration
+public class IdempotencyConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "carpooling.idempotency", name = "store", havingValue = "memory", matchIfMissing = true)
+    public InMemoryIdempotencyStore inMemoryIdempotencyStore(
+            @Value("${carpooling.idempotency.ttl:24h}") Duration ttl,
+            @Value("${carpooling.idempotency.max-size:10000}") int maxSize) {
+        return new InMemoryIdempotencyStore(ttl, maxSize);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "carpooling.idempotency", name = "store", havingValue = "database")
+    public JpaIdempotencyStore jpaIdempotencyStore(
+            IdempotentRequestRepository repository,
+            @Value("${carpooling.idempotency.ttl:24h}") Duration ttl,
+            @Value("${carpooling.idempotency.max-size:10000}") int maxSize) {
+        return new JpaIdempotencyStore(repository, ttl, maxSize);
+    }
+}
@@ -0,0 +1,68 @@
+package com.carpooling.config;
+
+import com.carpooling.metrics.ServiceMetricsInterceptor;
+import com.carpooling.service.BookingService;
+import com.carpooling.service.RideService;
+import com.carpooling.service.UserService;
+import com.carpooling.service.impl.BookingServiceImpl;
+import com.carpooling.service.impl.RetryingBookingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Metrics for the service layer
+ * Controllers (http.server.requests), repositories (spring.data.repository.invocations) and
+ * the Hikari pools (hikaricp.connections.*) are instrumented by Spring Boot Actuator; this
+ * adds timers around every RideService, BookingService and UserService method.
+ * The advisor joins the proxies the services already have for @Transactional, so it needs
+ * no AspectJ. It runs outside the transaction, so the timings include the commit.
+ * Decorators that delegate to a timed implementation (RetryingBookingService) are left
+ * out, so every booking call is timed once: per attempt, at BookingServiceImpl. Lock wait
+ * and retries show up in carpooling.booking.lock.wait and .retries, and the whole call in
+ * http.server.requests.
+ */
+@Configuration
+public class MetricsConfig {
+
+    private static final List<Class<?>> TIMED_SERVICES = List.of(RideService.class, BookingService.class, UserService.class);
+
+    private static final List<Class<?>> UNTIMED_DECORATORS = List.of(RetryingBookingService.class);
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor serviceMetricsAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+        ComposablePointcut pointcut = new ComposablePointcut(
+                clazz -> TIMED_SERVICES.stream().anyMatch(service -> service.isAssignableFrom(clazz))
+                        && UNTIMED_DECORATORS.stream().noneMatch(decorator -> decorator.isAssignableFrom(clazz)),
+                new ServiceMethodMatcher());
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut,
+                new ServiceMetricsInterceptor(meterRegistry::getIfAvailable, BookingServiceImpl.class));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    /**
+     * Methods declared by one of the timed service interfaces
+     */
+    private static final class ServiceMethodMatcher extends StaticMethodMatcher {
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return TIMED_SERVICES.stream().anyMatch(service -> service.isAssignableFrom(targetClass)
+                    && ReflectionUtils.findMethod(service, method.getName(), method.getParameterTypes()) != null);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.carpooling.config;
+
+import com.carpooling.outbox.FileOutboxSink;
+import com.carpooling.outbox.InMemoryOutboxSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Sink for the booking outbox relay, chosen by carpooling.outbox.sink
+ * - file (default): changes appended to an NDJSON file
+ * - memory: recent changes kept in memory and lost on restart, for tests only
+ * For a message broker, set another value and declare an OutboxSink bean.
+ * The relay deletes what the sink accepted, so only a durable sink keeps the changes.
+ */
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "carpooling.outbox", name = "sink", havingValue = "memory")
+    public InMemoryOutboxSink inMemoryOutboxSink(
+            @Value("${carpooling.outbox.memory.capacity:10000}") int capacity) {
+        return new InMemoryOutboxSink(capacity);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "carpooling.outbox", name = "sink", havingValue = "file", matchIfMissing = true)
+    public FileOutboxSink fileOutboxSink(
+            @Value("${carpooling.outbox.file.path:outbox/booking-events.ndjson}") Path path,
+            JsonMapper jsonMapper) throws IOException {
+        return new FileOutboxSink(path, jsonMapper);
+    }
+}
@@ -0,0 +1,89 @@
+package com.carpooling.config;
+
+import com.carpooling.datasource.ReadYourWritesFilter;
+import com.carpooling.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Primary/replica DataSource setup
+ * Active only when carpooling.datasource.replica.url is set; otherwise Spring Boot's
+ * single auto-configured DataSource is used unchanged.
+ * Read-only transactions (@Transactional(readOnly = true)) go to the replica, all
+ * others to the primary. That includes the streaming exports, so a MySQL replica URL needs
+ * useCursorFetch=true like the primary's, or each export reads its whole result into memory.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "carpooling.datasource.replica", name = "url")
+public class ReplicaDataSourceConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaDataSourceConfig.class);
+
+    /**
+     * Primary pool, configured from the standard spring.datasource.* properties
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Replica pool, configured from carpooling.datasource.replica.*
+     */
+    @Bean
+    @ConfigurationProperties("carpooling.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties properties,
+            @Value("${carpooling.datasource.replica.url}") String url,
+            @Value("${carpooling.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${carpooling.datasource.replica.password:${spring.datasource.password:}}") String password) {
+
+        if (url.startsWith("jdbc:mysql:") && !url.contains("useCursorFetch=true")) {
+            log.warn("Replica URL lacks useCursorFetch=true; streaming exports will buffer whole results");
+        }
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    /**
+     * The DataSource used by JPA and everything else
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource));
+    }
+
+    /**
+     * Sends a user's reads to the primary for a short window after they wrote
+     */
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${carpooling.datasource.replica.read-your-writes-window:5s}") Duration window) {
+        return new ReadYourWritesFilter(window);
+    }
+}
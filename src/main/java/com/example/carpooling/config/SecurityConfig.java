@@ -1,5 +1,6 @@
 package com.carpooling.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -13,8 +14,15 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import com.carpooling.repository.UserRepository;
+import com.carpooling.security.TokenAuthenticationFilter;
+import com.carpooling.security.TokenService;
+import com.carpooling.security.UserDetailsCache;
 
 /**
  * Spring Security Configuration
@@ -26,9 +34,14 @@ import com.carpooling.repository.UserRepository;
 public class SecurityConfig {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final TokenService tokenService;
 
-    public SecurityConfig(UserRepository userRepository) {
+    public SecurityConfig(UserRepository userRepository, UserDetailsCache userDetailsCache,
+                          TokenService tokenService) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
+        this.tokenService = tokenService;
     }
 
     /**
@@ -56,13 +69,14 @@ public class SecurityConfig {
     }
 
     /**
-     * Authentication provider
+     * Authentication provider (used by login only; other requests carry a signed token)
+     * Loaded users are cached, so repeated logins do not query the users table every time
      */
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
-        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
-        provider.setUserDetailsService(userDetailsService());
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService());
         provider.setPasswordEncoder(passwordEncoder());
+        provider.setUserCache(userDetailsCache);
         return provider;
     }
 
@@ -79,8 +93,8 @@ public class SecurityConfig {
      * Configures:
      * - Which endpoints require authentication
      * - CORS policy
-     * - Session management
-     * - HTTP Basic (for testing via Postman)
+     * - Stateless session management
+     * - Bearer token authentication (token issued by /api/auth/login)
      */
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -100,20 +114,29 @@ public class SecurityConfig {
 
                 // Authorization rules
                 .authorizeHttpRequests(authz -> authz
+                        // Streaming responses finish on an async dispatch that carries no token;
+                        // the originating request was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
+                        // Paths are matched below the /api context path
                         // Public endpoints
-                        .requestMatchers("/api/auth/register", "/api/auth/login").permitAll()
-                        .requestMatchers("/api/auth/**").authenticated()
+                        .requestMatchers("/auth/register", "/auth/login").permitAll()
+                        .requestMatchers("/auth/**").authenticated()
 
                         // Ride endpoints
-                        .requestMatchers("GET", "/api/rides/**").permitAll()
-                        .requestMatchers("POST", "/api/rides").hasRole("DRIVER")
-                        .requestMatchers("GET", "/api/rides/my-rides").hasRole("DRIVER")
+                        .requestMatchers(HttpMethod.GET, "/rides/my-rides", "/rides/my-rides/**").hasRole("DRIVER")
+                        .requestMatchers(HttpMethod.GET, "/rides/**").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/rides").hasRole("DRIVER")
+                        .requestMatchers(HttpMethod.POST, "/rides/recurring").hasRole("DRIVER")
 
                         // Booking endpoints
-                        .requestMatchers("POST", "/api/bookings").hasRole("PASSENGER")
-                        .requestMatchers("GET", "/api/bookings/**").authenticated()
-                        .requestMatchers("PUT", "/api/bookings/**").hasRole("DRIVER")
-                        .requestMatchers("DELETE", "/api/bookings/**").authenticated()
+                        .requestMatchers(HttpMethod.POST, "/bookings").hasRole("PASSENGER")
+                        .requestMatchers(HttpMethod.GET, "/bookings/**").authenticated()
+                        .requestMatchers(HttpMethod.PUT, "/bookings/**").hasRole("DRIVER")
+                        .requestMatchers(HttpMethod.DELETE, "/bookings/**").authenticated()
+
+                        // Health and metrics scrape; only served on the internal management.server.port
+                        .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/prometheus").permitAll()
 
                         // H2 Console (for development only - remove in production)
                         .requestMatchers("/h2-console/**").permitAll()
@@ -122,14 +145,16 @@ public class SecurityConfig {
                         .anyRequest().authenticated()
                 )
 
-                // Session management (stateful - session-based auth)
+                // Session management (stateless - every request carries its token)
                 .sessionManagement(session -> session
-                        .sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED)
-                        .sessionFixationProtection(org.springframework.security.config.Customizer.withDefaults())
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
 
-                // HTTP Basic (for testing)
-                .httpBasic(basic -> basic.realmName("Car Pooling API"))
+                // Signed token authentication, verified with HMAC only (no DB, no BCrypt)
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService), UsernamePasswordAuthenticationFilter.class)
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
+                )
 
                 // Authentication provider
                 .authenticationProvider(authenticationProvider());
@@ -0,0 +1,20 @@
+package com.carpooling.config;
+
+import com.carpooling.sql.SqlStatementCounter;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the statement counter with Hibernate, so that tests and the sampled
+ * SqlStatementBudgetFilter can count the statements of a request
+ */
+@Configuration
+public class SqlStatementConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementCounter());
+    }
+}
@@ -0,0 +1,29 @@
+package com.carpooling.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stops startup when virtual threads are requested on a JVM that has none
+ *
+ * Before Java 21 Spring Boot ignores spring.threads.virtual.enabled and keeps the platform
+ * thread pools, so the virtual profile would run with its pool and bulkhead sizing but
+ * without the threads they were sized for.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsGuard {
+
+    static final int MIN_FEATURE_VERSION = 21;
+
+    public VirtualThreadsGuard() {
+        this(Runtime.version().feature());
+    }
+
+    VirtualThreadsGuard(int featureVersion) {
+        if (featureVersion < MIN_FEATURE_VERSION) {
+            throw new IllegalStateException("spring.threads.virtual.enabled requires Java "
+                    + MIN_FEATURE_VERSION + " or later, but this JVM is Java " + featureVersion);
+        }
+    }
+}
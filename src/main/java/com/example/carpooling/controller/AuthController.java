@@ -3,14 +3,17 @@ package com.carpooling.controller;
 import com.carpooling.dto.request.UserRegisterRequest;
 import com.carpooling.dto.request.UserLoginRequest;
 import com.carpooling.dto.response.ApiResponse;
+import com.carpooling.dto.response.LoginResponse;
 import com.carpooling.dto.response.UserResponse;
+import com.carpooling.entity.User;
+import com.carpooling.security.TokenService;
 import com.carpooling.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
@@ -25,10 +28,13 @@ public class AuthController {
 
     private final UserService userService;
     private final AuthenticationManager authenticationManager;
+    private final TokenService tokenService;
 
-    public AuthController(UserService userService, AuthenticationManager authenticationManager) {
+    public AuthController(UserService userService, AuthenticationManager authenticationManager,
+                          TokenService tokenService) {
         this.userService = userService;
         this.authenticationManager = authenticationManager;
+        this.tokenService = tokenService;
     }
 
     /**
@@ -48,35 +54,32 @@ public class AuthController {
 
     /**
      * POST /api/auth/login
-     * Authenticate user and create session
+     * Authenticate user once (BCrypt) and issue a short-lived signed access token
+     * Send it back as "Authorization: Bearer <token>" on subsequent requests
      */
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<UserResponse>> login(
+    public ResponseEntity<ApiResponse<LoginResponse>> login(
             @Valid @RequestBody UserLoginRequest request) {
 
         try {
             // Attempt authentication
-            Authentication authentication = authenticationManager.authenticate(
+            authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             request.getUsername(),
                             request.getPassword()
                     )
             );
 
-            // Store authentication in SecurityContext (creates session)
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-
-            // Fetch and return user details
-            UserResponse userResponse = userService.getUserByUsername(request.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"))
-                    .map(UserResponse::new)
-                    .orElseThrow();
+            // Issue token for the authenticated user
+            User user = userService.getUserByUsername(request.getUsername());
+            TokenService.IssuedToken token = tokenService.issue(user);
+            LoginResponse loginResponse = new LoginResponse(token.token(), token.expiresAt(), new UserResponse(user));
 
             return new ResponseEntity<>(
-                    ApiResponse.success("Login successful", userResponse),
+                    ApiResponse.success("Login successful", loginResponse),
                     HttpStatus.OK
             );
-        } catch (Exception e) {
+        } catch (AuthenticationException e) {
             return new ResponseEntity<>(
                     ApiResponse.error("Invalid username or password"),
                     HttpStatus.UNAUTHORIZED
@@ -87,6 +90,7 @@ public class AuthController {
     /**
      * POST /api/auth/logout
      * Logout current user
+     * Tokens are stateless, so the client discards its token; it stays valid until it expires
      */
     @PostMapping("/logout")
     public ResponseEntity<ApiResponse<String>> logout() {
@@ -107,9 +111,7 @@ public class AuthController {
                 .getAuthentication()
                 .getName();
 
-        UserResponse response = userService.getUserByUsername(username)
-                .map(UserResponse::new)
-                .orElseThrow();
+        UserResponse response = new UserResponse(userService.getUserByUsername(username));
 
         return ResponseEntity.ok(ApiResponse.success("Current user", response));
     }
@@ -1,33 +1,58 @@
 package com.carpooling.controller;
 
+import com.carpooling.dto.request.BookingBatchRequest;
 import com.carpooling.dto.request.BookingRequest;
 import com.carpooling.dto.response.ApiResponse;
+import com.carpooling.dto.response.BookingBatchResponse;
 import com.carpooling.dto.response.BookingResponse;
+import com.carpooling.dto.response.CursorPage;
+import com.carpooling.dto.response.WaitlistResponse;
+import com.carpooling.exception.UnauthorizedException;
+import com.carpooling.export.ExportFormat;
+import com.carpooling.export.ExportResponses;
+import com.carpooling.security.CustomUserDetails;
 import com.carpooling.service.BookingService;
+import com.carpooling.service.ExportService;
+import com.carpooling.service.WaitlistService;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
 
 /**
  * Booking Controller
  * Handles booking operations (create, confirm, cancel, retrieve)
+ * Out-of-range query params are rejected with 400 (ConstraintViolationException)
  */
 @RestController
+@Validated
 @RequestMapping("/bookings")
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class BookingController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final BookingService bookingService;
+    private final ExportService exportService;
+    private final WaitlistService waitlistService;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, ExportService exportService,
+                             WaitlistService waitlistService) {
         this.bookingService = bookingService;
+        this.exportService = exportService;
+        this.waitlistService = waitlistService;
     }
 
   
@@ -57,31 +82,83 @@ public class BookingController {
    
     @GetMapping("/my-bookings")
     @PreAuthorize("hasRole('PASSENGER')")
-    public ResponseEntity<ApiResponse<Page<BookingResponse>>> getMyBookings(
+    public ResponseEntity<ApiResponse<Slice<BookingResponse>>> getMyBookings(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "true") boolean count) {
 
         Long passengerId = getCurrentUserId();
         Pageable pageable = PageRequest.of(page, size);
 
-        Page<BookingResponse> response = bookingService.getMyBookings(passengerId, pageable);
+        Slice<BookingResponse> response = count
+                ? bookingService.getMyBookings(passengerId, pageable)
+                : bookingService.getMyBookingsSlice(passengerId, pageable);
+        return ResponseEntity.ok(ApiResponse.success("Your bookings", response));
+    }
+
+    /**
+     * GET /api/bookings/my-bookings?cursor=
+     * Keyset pagination mode, newest booking first
+     * Start with an empty cursor, then pass back nextCursor from the previous page
+     */
+    @GetMapping(value = "/my-bookings", params = "cursor")
+    @PreAuthorize("hasRole('PASSENGER')")
+    public ResponseEntity<ApiResponse<CursorPage<BookingResponse>>> getMyBookingsByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(MAX_CURSOR_PAGE_SIZE) int size) {
+
+        Long passengerId = getCurrentUserId();
+        CursorPage<BookingResponse> response = bookingService.getMyBookings(passengerId, cursor, size);
         return ResponseEntity.ok(ApiResponse.success("Your bookings", response));
     }
 
    
     @GetMapping("/ride-bookings")
     @PreAuthorize("hasRole('DRIVER')")
-    public ResponseEntity<ApiResponse<Page<BookingResponse>>> getBookingsForMyRides(
+    public ResponseEntity<ApiResponse<Slice<BookingResponse>>> getBookingsForMyRides(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "true") boolean count) {
 
         Long driverId = getCurrentUserId();
         Pageable pageable = PageRequest.of(page, size);
 
-        Page<BookingResponse> response = bookingService.getBookingsForMyRides(driverId, pageable);
+        Slice<BookingResponse> response = count
+                ? bookingService.getBookingsForMyRides(driverId, pageable)
+                : bookingService.getBookingsForMyRidesSlice(driverId, pageable);
         return ResponseEntity.ok(ApiResponse.success("Bookings for your rides", response));
     }
 
+    /**
+     * GET /api/bookings/ride-bookings/export?format=ndjson|csv
+     * Streams every booking for the current driver's rides in one response (DRIVER only)
+     */
+    @GetMapping("/ride-bookings/export")
+    @PreAuthorize("hasRole('DRIVER')")
+    public ResponseEntity<StreamingResponseBody> exportBookingsForMyRides(
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        Long driverId = getCurrentUserId();
+        ExportFormat exportFormat = ExportFormat.of(format);
+        return ExportResponses.attachment("ride-bookings", exportFormat,
+                out -> exportService.exportBookingsForMyRides(driverId, exportFormat, out));
+    }
+
+    /**
+     * GET /api/bookings/my-bookings/export?format=ndjson|csv
+     * Streams every booking of the current passenger in one response (PASSENGER only)
+     */
+    @GetMapping("/my-bookings/export")
+    @PreAuthorize("hasRole('PASSENGER')")
+    public ResponseEntity<StreamingResponseBody> exportMyBookings(
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        Long passengerId = getCurrentUserId();
+        ExportFormat exportFormat = ExportFormat.of(format);
+        return ExportResponses.attachment("my-bookings", exportFormat,
+                out -> exportService.exportMyBookings(passengerId, exportFormat, out));
+    }
+
   
     @PutMapping("/{bookingId}/confirm")
     @PreAuthorize("hasRole('DRIVER')")
@@ -97,6 +174,70 @@ public class BookingController {
         ));
     }
 
+    /**
+     * PUT /api/bookings/rides/{rideId}/batch
+     * Confirm or reject several bookings of one ride in a single transaction (DRIVER only)
+     * Body: {"action": "CONFIRM" | "REJECT", "bookingIds": [...]}
+     */
+    @PutMapping("/rides/{rideId}/batch")
+    @PreAuthorize("hasRole('DRIVER')")
+    public ResponseEntity<ApiResponse<BookingBatchResponse>> decideBookings(
+            @PathVariable Long rideId,
+            @Valid @RequestBody BookingBatchRequest request) {
+
+        Long driverId = getCurrentUserId();
+        BookingBatchResponse response = bookingService.decideBookings(
+                rideId, request.getAction(), request.getBookingIds(), driverId);
+
+        return ResponseEntity.ok(ApiResponse.success(
+                response.getSucceeded() + " of " + response.getResults().size() + " bookings processed",
+                response
+        ));
+    }
+
+    /**
+     * POST /api/bookings/waitlist
+     * Join the waitlist of a full ride (PASSENGER only)
+     * When a confirmed seat is given back, the first passenger in line gets a booking request
+     */
+    @PostMapping("/waitlist")
+    @PreAuthorize("hasRole('PASSENGER')")
+    public ResponseEntity<ApiResponse<WaitlistResponse>> joinWaitlist(
+            @Valid @RequestBody BookingRequest request) {
+
+        Long passengerId = getCurrentUserId();
+        WaitlistResponse response = waitlistService.joinWaitlist(request.getRideId(), passengerId);
+
+        return new ResponseEntity<>(
+                ApiResponse.success("Joined the waitlist", response),
+                HttpStatus.CREATED
+        );
+    }
+
+    /**
+     * GET /api/bookings/my-waitlist
+     * Waitlists of the current passenger with positions (PASSENGER only)
+     */
+    @GetMapping("/my-waitlist")
+    @PreAuthorize("hasRole('PASSENGER')")
+    public ResponseEntity<ApiResponse<List<WaitlistResponse>>> getMyWaitlist() {
+        List<WaitlistResponse> response = waitlistService.getMyWaitlist(getCurrentUserId());
+        return ResponseEntity.ok(ApiResponse.success("Your waitlist", response));
+    }
+
+    /**
+     * DELETE /api/bookings/waitlist/{rideId}
+     * Leave the waitlist of a ride (PASSENGER only)
+     */
+    @DeleteMapping("/waitlist/{rideId}")
+    @PreAuthorize("hasRole('PASSENGER')")
+    public ResponseEntity<ApiResponse<Void>> leaveWaitlist(
+            @PathVariable Long rideId) {
+
+        waitlistService.leaveWaitlist(rideId, getCurrentUserId());
+        return ResponseEntity.ok(ApiResponse.success("Left the waitlist", null));
+    }
+
     
     @DeleteMapping("/{bookingId}")
     public ResponseEntity<ApiResponse<BookingResponse>> cancelBooking(
@@ -113,8 +254,10 @@ public class BookingController {
 
     private Long getCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        // In production, retrieve userId from UserDetails
-        return Long.valueOf(1); // Placeholder - implement properly
+        // The token filter puts the user id from the token claims on the principal
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails user) {
+            return user.getUserId();
+        }
+        throw new UnauthorizedException("Authentication token required");
     }
 }
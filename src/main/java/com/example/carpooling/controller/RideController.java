@@ -1,34 +1,67 @@
 package com.carpooling.controller;
 
+import com.carpooling.dto.request.ConnectionSearchRequest;
+import com.carpooling.dto.request.NearbyRideSearchRequest;
+import com.carpooling.dto.request.RecurringRideRequest;
 import com.carpooling.dto.request.RideCreateRequest;
 import com.carpooling.dto.request.RideSearchRequest;
 import com.carpooling.dto.response.ApiResponse;
+import com.carpooling.dto.response.CursorPage;
+import com.carpooling.dto.response.ItineraryResponse;
+import com.carpooling.dto.response.NearbyRideResponse;
+import com.carpooling.dto.response.RecurringRideResponse;
 import com.carpooling.dto.response.RideResponse;
+import com.carpooling.exception.UnauthorizedException;
+import com.carpooling.export.ExportFormat;
+import com.carpooling.export.ExportResponses;
+import com.carpooling.live.SeatAvailabilityFeed;
+import com.carpooling.security.CustomUserDetails;
+import com.carpooling.service.ExportService;
 import com.carpooling.service.RideService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
 
 /**
  * Ride Controller
  * Handles ride creation, search, and retrieval
+ * Out-of-range query params are rejected with 400 (ConstraintViolationException)
  */
 @RestController
+@Validated
 @RequestMapping("/rides")
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class RideController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final int MAX_NEARBY_RESULTS = 100;
+    private static final int MAX_CONNECTION_RESULTS = 50;
+
     private final RideService rideService;
+    private final ExportService exportService;
+    private final SeatAvailabilityFeed seatAvailabilityFeed;
 
-    public RideController(RideService rideService) {
+    public RideController(RideService rideService, ExportService exportService,
+                          SeatAvailabilityFeed seatAvailabilityFeed) {
         this.rideService = rideService;
+        this.exportService = exportService;
+        this.seatAvailabilityFeed = seatAvailabilityFeed;
     }
 
     /**
@@ -50,6 +83,24 @@ public class RideController {
         );
     }
 
+    /**
+     * POST /api/rides/recurring
+     * Create the same ride on every matching day of a date range (DRIVER only)
+     */
+    @PostMapping("/recurring")
+    @PreAuthorize("hasRole('DRIVER')")
+    public ResponseEntity<ApiResponse<RecurringRideResponse>> createRecurringRides(
+            @Valid @RequestBody RecurringRideRequest request) {
+
+        Long driverId = getCurrentUserId();
+
+        RecurringRideResponse response = rideService.createRecurringRides(request, driverId);
+        return new ResponseEntity<>(
+                ApiResponse.success(response.getCreated() + " rides created successfully", response),
+                HttpStatus.CREATED
+        );
+    }
+
     /**
      * GET /api/rides/{rideId}
      * Get ride details
@@ -62,18 +113,40 @@ public class RideController {
         return ResponseEntity.ok(ApiResponse.success("Ride found", response));
     }
 
+    /**
+     * GET /api/rides/availability/stream?rideIds=1,2,3
+     * Server-Sent Events stream of seat counts ("seats" events): the current counts first,
+     * then every committed change. A slow client receives only the latest count per ride.
+     */
+    @GetMapping(value = "/availability/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeatAvailability(@RequestParam List<Long> rideIds) {
+        return seatAvailabilityFeed.subscribe(rideIds, rideService::getSeatAvailability);
+    }
+
     /**
      * POST /api/rides/search
      * Search for available rides with pagination
+     * earliestDeparture/latestDeparture narrow the search to a departure window
+     * (latest before earliest crosses midnight into the next day)
      * Query params: page=0, size=10 (default)
+     * count=false returns a Slice (hasNext only) and skips the total count
      */
     @PostMapping("/search")
-    public ResponseEntity<ApiResponse<Page<RideResponse>>> searchRides(
+    public ResponseEntity<ApiResponse<Slice<RideResponse>>> searchRides(
             @Valid @RequestBody RideSearchRequest request,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "true") boolean count) {
 
         Pageable pageable = PageRequest.of(page, size);
+        if (!count) {
+            Slice<RideResponse> response = rideService.searchRidesSlice(request, pageable);
+            return ResponseEntity.ok(ApiResponse.success(
+                    "Found " + response.getNumberOfElements() + (response.hasNext() ? "+" : "") + " rides",
+                    response
+            ));
+        }
+
         Page<RideResponse> response = rideService.searchRides(request, pageable);
 
         return ResponseEntity.ok(ApiResponse.success(
@@ -82,31 +155,112 @@ public class RideController {
         ));
     }
 
+    /**
+     * POST /api/rides/search?cursor=
+     * Keyset pagination mode for search, ordered by departure time
+     * Start with an empty cursor, then pass back nextCursor from the previous page
+     * Query params: size=10 (default, at most 100)
+     */
+    @PostMapping(value = "/search", params = "cursor")
+    public ResponseEntity<ApiResponse<CursorPage<RideResponse>>> searchRidesByCursor(
+            @Valid @RequestBody RideSearchRequest request,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(MAX_CURSOR_PAGE_SIZE) int size) {
+
+        CursorPage<RideResponse> response = rideService.searchRides(request, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success("Found " + response.getContent().size() + " rides", response));
+    }
+
+    /**
+     * POST /api/rides/search/nearby
+     * Rides departing near a pickup point (and arriving near a dropoff point, if given)
+     * on a date, nearest first
+     * Query params: size=20 (default, at most 100)
+     */
+    @PostMapping("/search/nearby")
+    public ResponseEntity<ApiResponse<List<NearbyRideResponse>>> searchNearbyRides(
+            @Valid @RequestBody NearbyRideSearchRequest request,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(MAX_NEARBY_RESULTS) int size) {
+
+        List<NearbyRideResponse> response = rideService.searchNearbyRides(request, size);
+        return ResponseEntity.ok(ApiResponse.success("Found " + response.size() + " rides nearby", response));
+    }
+
+    /**
+     * POST /api/rides/search/connections
+     * Itineraries with up to two transfers when no single ride covers the route
+     * Query params: size=10 (default, at most 50)
+     */
+    @PostMapping("/search/connections")
+    public ResponseEntity<ApiResponse<List<ItineraryResponse>>> planConnections(
+            @Valid @RequestBody ConnectionSearchRequest request,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(MAX_CONNECTION_RESULTS) int size) {
+
+        List<ItineraryResponse> response = rideService.planConnections(request, size);
+        return ResponseEntity.ok(ApiResponse.success("Found " + response.size() + " itineraries", response));
+    }
+
     /**
      * GET /api/rides/my-rides
      * Get all rides created by current driver (DRIVER only)
+     * count=false returns a Slice (hasNext only) and skips the total count
      */
     @GetMapping("/my-rides")
     @PreAuthorize("hasRole('DRIVER')")
-    public ResponseEntity<ApiResponse<Page<RideResponse>>> getMyRides(
+    public ResponseEntity<ApiResponse<Slice<RideResponse>>> getMyRides(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "true") boolean count) {
 
         Long driverId = getCurrentUserId();
         Pageable pageable = PageRequest.of(page, size);
 
-        Page<RideResponse> response = rideService.getMyRides(driverId, pageable);
+        Slice<RideResponse> response = count
+                ? rideService.getMyRides(driverId, pageable)
+                : rideService.getMyRidesSlice(driverId, pageable);
+        return ResponseEntity.ok(ApiResponse.success("Your rides", response));
+    }
+
+    /**
+     * GET /api/rides/my-rides?cursor=
+     * Keyset pagination mode for the driver's rides, newest first
+     * Query params: size=10 (default, at most 100)
+     */
+    @GetMapping(value = "/my-rides", params = "cursor")
+    @PreAuthorize("hasRole('DRIVER')")
+    public ResponseEntity<ApiResponse<CursorPage<RideResponse>>> getMyRidesByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(MAX_CURSOR_PAGE_SIZE) int size) {
+
+        Long driverId = getCurrentUserId();
+        CursorPage<RideResponse> response = rideService.getMyRides(driverId, cursor, size);
         return ResponseEntity.ok(ApiResponse.success("Your rides", response));
     }
 
+    /**
+     * GET /api/rides/my-rides/export?format=ndjson|csv
+     * Streams every ride of the current driver in one response (DRIVER only)
+     */
+    @GetMapping("/my-rides/export")
+    @PreAuthorize("hasRole('DRIVER')")
+    public ResponseEntity<StreamingResponseBody> exportMyRides(
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        Long driverId = getCurrentUserId();
+        ExportFormat exportFormat = ExportFormat.of(format);
+        return ExportResponses.attachment("my-rides", exportFormat,
+                out -> exportService.exportMyRides(driverId, exportFormat, out));
+    }
+
     /**
      * Utility method to extract current user ID from authentication
      */
     private Long getCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        // In production, you'd retrieve userId from UserDetails
-        // For now, we parse from the Principal
-        return Long.valueOf(1); // Placeholder - implement properly
+        // The token filter puts the user id from the token claims on the principal
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails user) {
+            return user.getUserId();
+        }
+        throw new UnauthorizedException("Authentication token required");
     }
 }
@@ -0,0 +1,50 @@
+package com.carpooling.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread switch that keeps read-only transactions on the primary
+ *
+ * Set for requests from a user who wrote moments ago, so they read their own writes
+ * even while the replica is still catching up.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(PINNED_TO_PRIMARY.get());
+    }
+
+    /**
+     * Run the work with every transaction it opens routed to the primary
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        boolean pinned = pin();
+        try {
+            return work.get();
+        } finally {
+            if (pinned) {
+                release();
+            }
+        }
+    }
+
+    /**
+     * Pin the current thread; returns false if it already was (the outer caller releases)
+     */
+    static boolean pin() {
+        if (isPinnedToPrimary()) {
+            return false;
+        }
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+        return true;
+    }
+
+    static void release() {
+        PINNED_TO_PRIMARY.remove();
+    }
+}
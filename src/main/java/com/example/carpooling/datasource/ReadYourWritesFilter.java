@@ -0,0 +1,92 @@
+package com.carpooling.datasource;
+
+import com.carpooling.security.CustomUserDetails;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Read-your-writes for replica routing
+ *
+ * Remembers when each user last completed a successful write request. For a short
+ * window afterwards (longer than the expected replica lag) that user's requests read from
+ * the primary, so e.g. "my bookings" shows a booking made a moment ago.
+ * Single-node: the window is tracked in memory.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final ConcurrentMap<Long, Long> lastWriteNanos = new ConcurrentHashMap<>();
+    private final long windowNanos;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        Long userId = currentUserId();
+        if (userId == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        boolean pinned = wroteRecently(userId) && ReadYourWrites.pin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (pinned) {
+                ReadYourWrites.release();
+            }
+        }
+
+        if (isWrite(request) && response.getStatus() < 400) {
+            recordWrite(userId);
+        }
+    }
+
+    private boolean wroteRecently(Long userId) {
+        Long lastWrite = lastWriteNanos.get(userId);
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.nanoTime() - lastWrite < windowNanos) {
+            return true;
+        }
+        lastWriteNanos.remove(userId, lastWrite);
+        return false;
+    }
+
+    private void recordWrite(Long userId) {
+        long now = System.nanoTime();
+        lastWriteNanos.put(userId, now);
+        if (lastWriteNanos.size() > PRUNE_THRESHOLD) {
+            lastWriteNanos.values().removeIf(lastWrite -> now - lastWrite >= windowNanos);
+        }
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method));
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails user) {
+            return user.getUserId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.carpooling.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Routes read-only transactions to the replica and everything else to the primary
+ *
+ * Must sit behind a LazyConnectionDataSourceProxy: the transaction manager asks for a
+ * connection before it marks the transaction read-only, and the lazy proxy defers the
+ * lookup until the first statement, when the flag is visible here.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentRoute();
+    }
+
+    /**
+     * Route a connection requested now would take
+     */
+    public static Route currentRoute() {
+        boolean readOnly = TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        return readOnly && !ReadYourWrites.isPinnedToPrimary() ? Route.REPLICA : Route.PRIMARY;
+    }
+}
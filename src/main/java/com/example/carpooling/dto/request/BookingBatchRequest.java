@@ -0,0 +1,24 @@
+package com.carpooling.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BookingBatchRequest {
+
+    @NotBlank(message = "Action is required (CONFIRM or REJECT)")
+    private String action;
+
+    @NotEmpty(message = "At least one booking ID is required")
+    @Size(max = 100, message = "At most 100 bookings can be processed at once")
+    private List<@NotNull(message = "Booking ID must not be null") Long> bookingIds;
+
+    // Getters and Setters
+    public String getAction() { return action; }
+    public void setAction(String action) { this.action = action; }
+
+    public List<Long> getBookingIds() { return bookingIds; }
+    public void setBookingIds(List<Long> bookingIds) { this.bookingIds = bookingIds; }
+}
@@ -0,0 +1,66 @@
+package com.carpooling.dto.request;
+
+import com.carpooling.entity.Ride;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public class ConnectionSearchRequest {
+
+    public enum SortBy { ARRIVAL, PRICE }
+
+    @NotBlank(message = "Source is required")
+    private String source;
+
+    @NotBlank(message = "Destination is required")
+    private String destination;
+
+    @NotNull(message = "Ride date is required")
+    private LocalDate rideDate;
+
+    // Optional; only itineraries whose first ride departs at or after this time
+    private LocalTime earliestDeparture;
+
+    @Min(value = 0, message = "Max transfers must be between 0 and 2")
+    @Max(value = 2, message = "Max transfers must be between 0 and 2")
+    private int maxTransfers = 2;
+
+    // Seats needed on every leg
+    @Positive(message = "Seats must be greater than 0")
+    private int seats = 1;
+
+    private SortBy sortBy = SortBy.ARRIVAL;
+
+    // Getters and Setters
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+
+    public String getDestination() { return destination; }
+    public void setDestination(String destination) { this.destination = destination; }
+
+    public LocalDate getRideDate() { return rideDate; }
+    public void setRideDate(LocalDate rideDate) { this.rideDate = rideDate; }
+
+    public LocalTime getEarliestDeparture() { return earliestDeparture; }
+    public void setEarliestDeparture(LocalTime earliestDeparture) { this.earliestDeparture = earliestDeparture; }
+
+    public int getMaxTransfers() { return maxTransfers; }
+    public void setMaxTransfers(int maxTransfers) { this.maxTransfers = maxTransfers; }
+
+    public int getSeats() { return seats; }
+    public void setSeats(int seats) { this.seats = seats; }
+
+    public SortBy getSortBy() { return sortBy; }
+    public void setSortBy(SortBy sortBy) { this.sortBy = sortBy; }
+
+    @AssertTrue(message = "Source and destination must be different")
+    public boolean isDistinctRoute() {
+        return source == null || destination == null
+                || !Ride.normalizeLocation(source).equals(Ride.normalizeLocation(destination));
+    }
+}
@@ -0,0 +1,62 @@
+package com.carpooling.dto.request;
+
+import jakarta.validation.constraints.*;
+import java.time.LocalDate;
+
+/**
+ * Nearby variant of RideSearchRequest: rides whose pickup (and, if given, dropoff)
+ * point lies within radiusMeters of the requested points
+ */
+public class NearbyRideSearchRequest {
+
+    @NotNull(message = "Pickup latitude is required")
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    private Double pickupLatitude;
+
+    @NotNull(message = "Pickup longitude is required")
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    private Double pickupLongitude;
+
+    // Optional dropoff point; both or neither
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    private Double dropoffLatitude;
+
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    private Double dropoffLongitude;
+
+    @Positive(message = "Radius must be greater than 0")
+    @Max(value = 20000, message = "Radius must be at most 20000 meters")
+    private Integer radiusMeters = 1000;
+
+    @NotNull(message = "Ride date is required")
+    @FutureOrPresent(message = "Ride date must be today or in the future")
+    private LocalDate rideDate;
+
+    // Getters and Setters
+    public Double getPickupLatitude() { return pickupLatitude; }
+    public void setPickupLatitude(Double pickupLatitude) { this.pickupLatitude = pickupLatitude; }
+
+    public Double getPickupLongitude() { return pickupLongitude; }
+    public void setPickupLongitude(Double pickupLongitude) { this.pickupLongitude = pickupLongitude; }
+
+    public Double getDropoffLatitude() { return dropoffLatitude; }
+    public void setDropoffLatitude(Double dropoffLatitude) { this.dropoffLatitude = dropoffLatitude; }
+
+    public Double getDropoffLongitude() { return dropoffLongitude; }
+    public void setDropoffLongitude(Double dropoffLongitude) { this.dropoffLongitude = dropoffLongitude; }
+
+    public Integer getRadiusMeters() { return radiusMeters; }
+    public void setRadiusMeters(Integer radiusMeters) { this.radiusMeters = radiusMeters; }
+
+    public LocalDate getRideDate() { return rideDate; }
+    public void setRideDate(LocalDate rideDate) { this.rideDate = rideDate; }
+
+    @AssertTrue(message = "Dropoff latitude and longitude must be given together")
+    public boolean isDropoffComplete() {
+        return (dropoffLatitude == null) == (dropoffLongitude == null);
+    }
+}
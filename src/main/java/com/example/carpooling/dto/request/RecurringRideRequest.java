@@ -0,0 +1,107 @@
+package com.carpooling.dto.request;
+
+import jakarta.validation.constraints.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+
+public class RecurringRideRequest {
+
+    @NotBlank(message = "Source is required")
+    @Size(min = 2, max = 100, message = "Source must be between 2 and 100 characters")
+    private String source;
+
+    @NotBlank(message = "Destination is required")
+    @Size(min = 2, max = 100, message = "Destination must be between 2 and 100 characters")
+    private String destination;
+
+    // Optional coordinates; each latitude/longitude pair must be given together
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    private Double sourceLatitude;
+
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    private Double sourceLongitude;
+
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    private Double destinationLatitude;
+
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    private Double destinationLongitude;
+
+    @NotNull(message = "Ride time is required")
+    private LocalTime rideTime;
+
+    // Optional estimated trip duration
+    @Positive(message = "Duration must be greater than 0")
+    @Max(value = 1440, message = "Duration must be at most 1440 minutes")
+    private Integer durationMinutes;
+
+    @NotNull(message = "Total seats is required")
+    @Positive(message = "Total seats must be greater than 0")
+    private Integer totalSeats;
+
+    @NotNull(message = "Price per seat is required")
+    @Positive(message = "Price per seat must be greater than 0")
+    private Double pricePerSeat;
+
+    @NotNull(message = "Start date is required")
+    @FutureOrPresent(message = "Start date must be today or in the future")
+    private LocalDate startDate;
+
+    @NotNull(message = "End date is required")
+    private LocalDate endDate;
+
+    // Days of the week the ride runs on (e.g. ["MONDAY", "FRIDAY"]); empty means every day
+    private Set<DayOfWeek> daysOfWeek;
+
+    // Getters and Setters
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+
+    public String getDestination() { return destination; }
+    public void setDestination(String destination) { this.destination = destination; }
+
+    public Double getSourceLatitude() { return sourceLatitude; }
+    public void setSourceLatitude(Double sourceLatitude) { this.sourceLatitude = sourceLatitude; }
+
+    public Double getSourceLongitude() { return sourceLongitude; }
+    public void setSourceLongitude(Double sourceLongitude) { this.sourceLongitude = sourceLongitude; }
+
+    public Double getDestinationLatitude() { return destinationLatitude; }
+    public void setDestinationLatitude(Double destinationLatitude) { this.destinationLatitude = destinationLatitude; }
+
+    public Double getDestinationLongitude() { return destinationLongitude; }
+    public void setDestinationLongitude(Double destinationLongitude) { this.destinationLongitude = destinationLongitude; }
+
+    public LocalTime getRideTime() { return rideTime; }
+    public void setRideTime(LocalTime rideTime) { this.rideTime = rideTime; }
+
+    public Integer getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(Integer durationMinutes) { this.durationMinutes = durationMinutes; }
+
+    public Integer getTotalSeats() { return totalSeats; }
+    public void setTotalSeats(Integer totalSeats) { this.totalSeats = totalSeats; }
+
+    public Double getPricePerSeat() { return pricePerSeat; }
+    public void setPricePerSeat(Double pricePerSeat) { this.pricePerSeat = pricePerSeat; }
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+    public Set<DayOfWeek> getDaysOfWeek() { return daysOfWeek; }
+    public void setDaysOfWeek(Set<DayOfWeek> daysOfWeek) { this.daysOfWeek = daysOfWeek; }
+
+    @AssertTrue(message = "Latitude and longitude must be given together")
+    public boolean isCoordinatePairsComplete() {
+        return (sourceLatitude == null) == (sourceLongitude == null)
+                && (destinationLatitude == null) == (destinationLongitude == null);
+    }
+}
@@ -14,6 +14,23 @@ public class RideCreateRequest {
     @Size(min = 2, max = 100, message = "Destination must be between 2 and 100 characters")
     private String destination;
 
+    // Optional coordinates; each latitude/longitude pair must be given together
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    private Double sourceLatitude;
+
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    private Double sourceLongitude;
+
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    private Double destinationLatitude;
+
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    private Double destinationLongitude;
+
     @NotNull(message = "Ride date is required")
     @FutureOrPresent(message = "Ride date must be today or in the future")
     private LocalDate rideDate;
@@ -21,6 +38,11 @@ public class RideCreateRequest {
     @NotNull(message = "Ride time is required")
     private LocalTime rideTime;
 
+    // Optional estimated trip duration
+    @Positive(message = "Duration must be greater than 0")
+    @Max(value = 1440, message = "Duration must be at most 1440 minutes")
+    private Integer durationMinutes;
+
     @NotNull(message = "Total seats is required")
     @Positive(message = "Total seats must be greater than 0")
     private Integer totalSeats;
@@ -36,15 +58,36 @@ public class RideCreateRequest {
     public String getDestination() { return destination; }
     public void setDestination(String destination) { this.destination = destination; }
 
+    public Double getSourceLatitude() { return sourceLatitude; }
+    public void setSourceLatitude(Double sourceLatitude) { this.sourceLatitude = sourceLatitude; }
+
+    public Double getSourceLongitude() { return sourceLongitude; }
+    public void setSourceLongitude(Double sourceLongitude) { this.sourceLongitude = sourceLongitude; }
+
+    public Double getDestinationLatitude() { return destinationLatitude; }
+    public void setDestinationLatitude(Double destinationLatitude) { this.destinationLatitude = destinationLatitude; }
+
+    public Double getDestinationLongitude() { return destinationLongitude; }
+    public void setDestinationLongitude(Double destinationLongitude) { this.destinationLongitude = destinationLongitude; }
+
     public LocalDate getRideDate() { return rideDate; }
     public void setRideDate(LocalDate rideDate) { this.rideDate = rideDate; }
 
     public LocalTime getRideTime() { return rideTime; }
     public void setRideTime(LocalTime rideTime) { this.rideTime = rideTime; }
 
+    public Integer getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(Integer durationMinutes) { this.durationMinutes = durationMinutes; }
+
     public Integer getTotalSeats() { return totalSeats; }
     public void setTotalSeats(Integer totalSeats) { this.totalSeats = totalSeats; }
 
     public Double getPricePerSeat() { return pricePerSeat; }
     public void setPricePerSeat(Double pricePerSeat) { this.pricePerSeat = pricePerSeat; }
+
+    @AssertTrue(message = "Latitude and longitude must be given together")
+    public boolean isCoordinatePairsComplete() {
+        return (sourceLatitude == null) == (sourceLongitude == null)
+                && (destinationLatitude == null) == (destinationLongitude == null);
+    }
 }
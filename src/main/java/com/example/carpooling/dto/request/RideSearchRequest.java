@@ -3,6 +3,7 @@ package com.carpooling.dto.request;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDate;
+import java.time.LocalTime;
 
 public class RideSearchRequest {
 
@@ -15,6 +16,11 @@ public class RideSearchRequest {
     @NotNull(message = "Ride date is required")
     private LocalDate rideDate;
 
+    // Optional departure window on rideDate; latest before earliest crosses midnight into the next day
+    private LocalTime earliestDeparture;
+
+    private LocalTime latestDeparture;
+
     // Getters and Setters
     public String getSource() { return source; }
     public void setSource(String source) { this.source = source; }
@@ -24,4 +30,10 @@ public class RideSearchRequest {
 
     public LocalDate getRideDate() { return rideDate; }
     public void setRideDate(LocalDate rideDate) { this.rideDate = rideDate; }
+
+    public LocalTime getEarliestDeparture() { return earliestDeparture; }
+    public void setEarliestDeparture(LocalTime earliestDeparture) { this.earliestDeparture = earliestDeparture; }
+
+    public LocalTime getLatestDeparture() { return latestDeparture; }
+    public void setLatestDeparture(LocalTime latestDeparture) { this.latestDeparture = latestDeparture; }
 }
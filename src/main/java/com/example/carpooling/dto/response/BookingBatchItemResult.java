@@ -0,0 +1,39 @@
+package com.carpooling.dto.response;
+
+public class BookingBatchItemResult {
+
+    private Long bookingId;
+    private boolean success;
+    private String status;
+    private String message;
+
+    public BookingBatchItemResult() {}
+
+    public BookingBatchItemResult(Long bookingId, boolean success, String status, String message) {
+        this.bookingId = bookingId;
+        this.success = success;
+        this.status = status;
+        this.message = message;
+    }
+
+    public static BookingBatchItemResult succeeded(Long bookingId, String status, String message) {
+        return new BookingBatchItemResult(bookingId, true, status, message);
+    }
+
+    public static BookingBatchItemResult failed(Long bookingId, String status, String message) {
+        return new BookingBatchItemResult(bookingId, false, status, message);
+    }
+
+    // Getters and Setters
+    public Long getBookingId() { return bookingId; }
+    public void setBookingId(Long bookingId) { this.bookingId = bookingId; }
+
+    public boolean isSuccess() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
@@ -0,0 +1,44 @@
+package com.carpooling.dto.response;
+
+import java.util.List;
+
+public class BookingBatchResponse {
+
+    private Long rideId;
+    private String action;
+    private int succeeded;
+    private int failed;
+    private Integer availableSeats;
+    private List<BookingBatchItemResult> results;
+
+    public BookingBatchResponse() {}
+
+    public BookingBatchResponse(Long rideId, String action, Integer availableSeats,
+                                List<BookingBatchItemResult> results) {
+        this.rideId = rideId;
+        this.action = action;
+        this.availableSeats = availableSeats;
+        this.results = results;
+        this.succeeded = (int) results.stream().filter(BookingBatchItemResult::isSuccess).count();
+        this.failed = results.size() - succeeded;
+    }
+
+    // Getters and Setters
+    public Long getRideId() { return rideId; }
+    public void setRideId(Long rideId) { this.rideId = rideId; }
+
+    public String getAction() { return action; }
+    public void setAction(String action) { this.action = action; }
+
+    public int getSucceeded() { return succeeded; }
+    public void setSucceeded(int succeeded) { this.succeeded = succeeded; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    public Integer getAvailableSeats() { return availableSeats; }
+    public void setAvailableSeats(Integer availableSeats) { this.availableSeats = availableSeats; }
+
+    public List<BookingBatchItemResult> getResults() { return results; }
+    public void setResults(List<BookingBatchItemResult> results) { this.results = results; }
+}
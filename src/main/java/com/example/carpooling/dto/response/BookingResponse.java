@@ -1,6 +1,9 @@
 package com.carpooling.dto.response;
 
 import com.carpooling.entity.Booking;
+import com.carpooling.entity.enums.BookingStatus;
+
+import java.time.LocalDateTime;
 
 public class BookingResponse {
 
@@ -22,6 +25,19 @@ public class BookingResponse {
         this.bookedAt = booking.getBookedAt().toString();
     }
 
+    /**
+     * Used by the JPQL constructor projections in BookingRepository
+     */
+    public BookingResponse(Long id, Long rideId, Long passengerId, String passengerUsername,
+                           BookingStatus status, LocalDateTime bookedAt) {
+        this.id = id;
+        this.rideId = rideId;
+        this.passengerId = passengerId;
+        this.passengerUsername = passengerUsername;
+        this.status = status.toString();
+        this.bookedAt = bookedAt.toString();
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
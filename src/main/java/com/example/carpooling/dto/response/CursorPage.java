@@ -0,0 +1,53 @@
+package com.carpooling.dto.response;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (seek) paginated listing
+ * nextCursor is null when there are no more rows
+ */
+public class CursorPage<T> {
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    public CursorPage() {}
+
+    public CursorPage(List<T> content, int size, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = nextCursor != null;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Build a page from a result fetched with size + 1 rows
+     * The extra row only signals that another page exists and is dropped
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, size, null);
+        }
+        List<T> content = rows.subList(0, size);
+        return new CursorPage<>(content, size, cursorOf.apply(content.get(size - 1)));
+    }
+
+    // Getters and Setters
+    public List<T> getContent() { return content; }
+    public void setContent(List<T> content) { this.content = content; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public boolean isHasNext() { return hasNext; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
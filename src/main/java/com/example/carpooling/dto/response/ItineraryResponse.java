@@ -0,0 +1,40 @@
+package com.carpooling.dto.response;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class ItineraryResponse {
+
+    private List<RideResponse> legs;
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private Integer transfers;
+    private Double totalPricePerSeat;
+
+    public ItineraryResponse() {}
+
+    public ItineraryResponse(List<RideResponse> legs, LocalDateTime departureTime, LocalDateTime arrivalTime,
+                             Double totalPricePerSeat) {
+        this.legs = legs;
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+        this.transfers = legs.size() - 1;
+        this.totalPricePerSeat = totalPricePerSeat;
+    }
+
+    // Getters and Setters
+    public List<RideResponse> getLegs() { return legs; }
+    public void setLegs(List<RideResponse> legs) { this.legs = legs; }
+
+    public LocalDateTime getDepartureTime() { return departureTime; }
+    public void setDepartureTime(LocalDateTime departureTime) { this.departureTime = departureTime; }
+
+    public LocalDateTime getArrivalTime() { return arrivalTime; }
+    public void setArrivalTime(LocalDateTime arrivalTime) { this.arrivalTime = arrivalTime; }
+
+    public Integer getTransfers() { return transfers; }
+    public void setTransfers(Integer transfers) { this.transfers = transfers; }
+
+    public Double getTotalPricePerSeat() { return totalPricePerSeat; }
+    public void setTotalPricePerSeat(Double totalPricePerSeat) { this.totalPricePerSeat = totalPricePerSeat; }
+}
@@ -0,0 +1,32 @@
+package com.carpooling.dto.response;
+
+import java.time.Instant;
+
+public class LoginResponse {
+
+    private String accessToken;
+    private String tokenType = "Bearer";
+    private Instant expiresAt;
+    private UserResponse user;
+
+    public LoginResponse() {}
+
+    public LoginResponse(String accessToken, Instant expiresAt, UserResponse user) {
+        this.accessToken = accessToken;
+        this.expiresAt = expiresAt;
+        this.user = user;
+    }
+
+    // Getters and Setters
+    public String getAccessToken() { return accessToken; }
+    public void setAccessToken(String accessToken) { this.accessToken = accessToken; }
+
+    public String getTokenType() { return tokenType; }
+    public void setTokenType(String tokenType) { this.tokenType = tokenType; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+
+    public UserResponse getUser() { return user; }
+    public void setUser(UserResponse user) { this.user = user; }
+}
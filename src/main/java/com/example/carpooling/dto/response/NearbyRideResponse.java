@@ -0,0 +1,26 @@
+package com.carpooling.dto.response;
+
+public class NearbyRideResponse {
+
+    private RideResponse ride;
+    private Integer pickupDistanceMeters;
+    private Integer dropoffDistanceMeters;
+
+    public NearbyRideResponse() {}
+
+    public NearbyRideResponse(RideResponse ride, Integer pickupDistanceMeters, Integer dropoffDistanceMeters) {
+        this.ride = ride;
+        this.pickupDistanceMeters = pickupDistanceMeters;
+        this.dropoffDistanceMeters = dropoffDistanceMeters;
+    }
+
+    // Getters and Setters
+    public RideResponse getRide() { return ride; }
+    public void setRide(RideResponse ride) { this.ride = ride; }
+
+    public Integer getPickupDistanceMeters() { return pickupDistanceMeters; }
+    public void setPickupDistanceMeters(Integer pickupDistanceMeters) { this.pickupDistanceMeters = pickupDistanceMeters; }
+
+    public Integer getDropoffDistanceMeters() { return dropoffDistanceMeters; }
+    public void setDropoffDistanceMeters(Integer dropoffDistanceMeters) { this.dropoffDistanceMeters = dropoffDistanceMeters; }
+}
@@ -0,0 +1,34 @@
+package com.carpooling.dto.response;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class RecurringRideResponse {
+
+    private int created;
+    private LocalDate firstRideDate;
+    private LocalDate lastRideDate;
+    private List<Long> rideIds;
+
+    public RecurringRideResponse() {}
+
+    public RecurringRideResponse(LocalDate firstRideDate, LocalDate lastRideDate, List<Long> rideIds) {
+        this.created = rideIds.size();
+        this.firstRideDate = firstRideDate;
+        this.lastRideDate = lastRideDate;
+        this.rideIds = rideIds;
+    }
+
+    // Getters and Setters
+    public int getCreated() { return created; }
+    public void setCreated(int created) { this.created = created; }
+
+    public LocalDate getFirstRideDate() { return firstRideDate; }
+    public void setFirstRideDate(LocalDate firstRideDate) { this.firstRideDate = firstRideDate; }
+
+    public LocalDate getLastRideDate() { return lastRideDate; }
+    public void setLastRideDate(LocalDate lastRideDate) { this.lastRideDate = lastRideDate; }
+
+    public List<Long> getRideIds() { return rideIds; }
+    public void setRideIds(List<Long> rideIds) { this.rideIds = rideIds; }
+}
@@ -11,8 +11,13 @@ public class RideResponse {
     private String driverUsername;
     private String source;
     private String destination;
+    private Double sourceLatitude;
+    private Double sourceLongitude;
+    private Double destinationLatitude;
+    private Double destinationLongitude;
     private LocalDate rideDate;
     private LocalTime rideTime;
+    private Integer durationMinutes;
     private Integer totalSeats;
     private Integer availableSeats;
     private Double pricePerSeat;
@@ -26,8 +31,13 @@ public class RideResponse {
         this.driverUsername = ride.getDriver().getUsername();
         this.source = ride.getSource();
         this.destination = ride.getDestination();
+        this.sourceLatitude = ride.getSourceLatitude();
+        this.sourceLongitude = ride.getSourceLongitude();
+        this.destinationLatitude = ride.getDestinationLatitude();
+        this.destinationLongitude = ride.getDestinationLongitude();
         this.rideDate = ride.getRideDate();
         this.rideTime = ride.getRideTime();
+        this.durationMinutes = ride.getDurationMinutes();
         this.totalSeats = ride.getTotalSeats();
         this.availableSeats = ride.getAvailableSeats();
         this.pricePerSeat = ride.getPricePerSeat();
@@ -50,12 +60,27 @@ public class RideResponse {
     public String getDestination() { return destination; }
     public void setDestination(String destination) { this.destination = destination; }
 
+    public Double getSourceLatitude() { return sourceLatitude; }
+    public void setSourceLatitude(Double sourceLatitude) { this.sourceLatitude = sourceLatitude; }
+
+    public Double getSourceLongitude() { return sourceLongitude; }
+    public void setSourceLongitude(Double sourceLongitude) { this.sourceLongitude = sourceLongitude; }
+
+    public Double getDestinationLatitude() { return destinationLatitude; }
+    public void setDestinationLatitude(Double destinationLatitude) { this.destinationLatitude = destinationLatitude; }
+
+    public Double getDestinationLongitude() { return destinationLongitude; }
+    public void setDestinationLongitude(Double destinationLongitude) { this.destinationLongitude = destinationLongitude; }
+
     public LocalDate getRideDate() { return rideDate; }
     public void setRideDate(LocalDate rideDate) { this.rideDate = rideDate; }
 
     public LocalTime getRideTime() { return rideTime; }
     public void setRideTime(LocalTime rideTime) { this.rideTime = rideTime; }
 
+    public Integer getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(Integer durationMinutes) { this.durationMinutes = durationMinutes; }
+
     public Integer getTotalSeats() { return totalSeats; }
     public void setTotalSeats(Integer totalSeats) { this.totalSeats = totalSeats; }
 
@@ -0,0 +1,24 @@
+package com.carpooling.dto.response;
+
+/**
+ * Current seat count of one ride, as pushed on the seat availability feed
+ */
+public class SeatAvailabilityEvent {
+
+    private Long rideId;
+    private Integer availableSeats;
+
+    public SeatAvailabilityEvent() {}
+
+    public SeatAvailabilityEvent(Long rideId, Integer availableSeats) {
+        this.rideId = rideId;
+        this.availableSeats = availableSeats;
+    }
+
+    // Getters and Setters
+    public Long getRideId() { return rideId; }
+    public void setRideId(Long rideId) { this.rideId = rideId; }
+
+    public Integer getAvailableSeats() { return availableSeats; }
+    public void setAvailableSeats(Integer availableSeats) { this.availableSeats = availableSeats; }
+}
@@ -0,0 +1,58 @@
+package com.carpooling.dto.response;
+
+import com.carpooling.entity.Ride;
+import com.carpooling.entity.WaitlistEntry;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public class WaitlistResponse {
+
+    private Long rideId;
+    private String source;
+    private String destination;
+    private LocalDate rideDate;
+    private LocalTime rideTime;
+    private int position;
+    private int waiting;
+    private String joinedAt;
+
+    public WaitlistResponse() {}
+
+    public WaitlistResponse(WaitlistEntry entry, int position, int waiting) {
+        Ride ride = entry.getRide();
+        this.rideId = ride.getId();
+        this.source = ride.getSource();
+        this.destination = ride.getDestination();
+        this.rideDate = ride.getRideDate();
+        this.rideTime = ride.getRideTime();
+        this.position = position;
+        this.waiting = waiting;
+        this.joinedAt = entry.getJoinedAt().toString();
+    }
+
+    // Getters and Setters
+    public Long getRideId() { return rideId; }
+    public void setRideId(Long rideId) { this.rideId = rideId; }
+
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+
+    public String getDestination() { return destination; }
+    public void setDestination(String destination) { this.destination = destination; }
+
+    public LocalDate getRideDate() { return rideDate; }
+    public void setRideDate(LocalDate rideDate) { this.rideDate = rideDate; }
+
+    public LocalTime getRideTime() { return rideTime; }
+    public void setRideTime(LocalTime rideTime) { this.rideTime = rideTime; }
+
+    public int getPosition() { return position; }
+    public void setPosition(int position) { this.position = position; }
+
+    public int getWaiting() { return waiting; }
+    public void setWaiting(int waiting) { this.waiting = waiting; }
+
+    public String getJoinedAt() { return joinedAt; }
+    public void setJoinedAt(String joinedAt) { this.joinedAt = joinedAt; }
+}
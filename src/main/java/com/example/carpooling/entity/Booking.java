@@ -8,6 +8,8 @@ import java.time.LocalDateTime;
 @Table(name = "bookings", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"ride_id", "passenger_id"},
                 name = "unique_ride_passenger")
+}, indexes = {
+        @Index(name = "idx_passenger_id", columnList = "passenger_id, id")
 })
 public class Booking {
 
@@ -29,6 +31,11 @@ public class Booking {
     @Column(nullable = false)
     private BookingStatus status;
 
+    // Optimistic locking: concurrent confirm/cancel of the same booking fail instead of overwriting each other
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @Column(name = "booked_at", nullable = false, updatable = false)
     private LocalDateTime bookedAt;
 
@@ -62,6 +69,8 @@ public class Booking {
     public BookingStatus getStatus() { return status; }
     public void setStatus(BookingStatus status) { this.status = status; }
 
+    public Long getVersion() { return version; }
+
     public LocalDateTime getBookedAt() { return bookedAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
 
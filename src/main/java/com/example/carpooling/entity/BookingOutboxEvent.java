@@ -0,0 +1,78 @@
+package com.carpooling.entity;
+
+import jakarta.persistence.*;
+import com.carpooling.entity.enums.BookingStatus;
+import java.time.LocalDateTime;
+
+/**
+ * Transactional outbox row: one booking status change, written in the same transaction
+ * as the change itself and deleted by the OutboxRelay once the sink has accepted it
+ *
+ * Ids come from a pooled sequence so that a batch decision inserts its events in one
+ * JDBC batch. They are handed out before commit, so they follow commit order only among
+ * changes serialized by the same ride lock, i.e. within one ride.
+ */
+@Entity
+@Table(name = "booking_outbox")
+public class BookingOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_outbox_seq")
+    @SequenceGenerator(name = "booking_outbox_seq", sequenceName = "booking_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "booking_id", nullable = false, updatable = false)
+    private Long bookingId;
+
+    @Column(name = "ride_id", nullable = false, updatable = false)
+    private Long rideId;
+
+    @Column(name = "passenger_id", nullable = false, updatable = false)
+    private Long passengerId;
+
+    // Null when the booking was created
+    @Enumerated(EnumType.STRING)
+    @Column(name = "previous_status", updatable = false)
+    private BookingStatus previousStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private BookingStatus status;
+
+    @Column(name = "occurred_at", nullable = false, updatable = false)
+    private LocalDateTime occurredAt;
+
+    // Failed delivery attempts, for diagnosing a stuck relay
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    // Set once the relay gives up on the event; it stays here for inspection and replay
+    @Column(name = "dead_lettered", nullable = false)
+    private boolean deadLettered;
+
+    protected BookingOutboxEvent() {}
+
+    public BookingOutboxEvent(Booking booking, BookingStatus previousStatus, BookingStatus status) {
+        this.bookingId = booking.getId();
+        this.rideId = booking.getRide().getId();
+        this.passengerId = booking.getPassenger().getId();
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public Long getBookingId() { return bookingId; }
+    public Long getRideId() { return rideId; }
+    public Long getPassengerId() { return passengerId; }
+    public BookingStatus getPreviousStatus() { return previousStatus; }
+    public BookingStatus getStatus() { return status; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+    public int getAttempts() { return attempts; }
+    public String getLastError() { return lastError; }
+    public boolean isDeadLettered() { return deadLettered; }
+}
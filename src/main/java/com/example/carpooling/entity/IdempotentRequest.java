@@ -0,0 +1,69 @@
+package com.carpooling.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+import java.time.LocalDateTime;
+
+/**
+ * An idempotency key claimed by a request, with its response once it has completed
+ * Used by the database-backed idempotency store. The key is assigned by the caller, so new
+ * rows are always inserted (never merged): a second claim of a live key fails on the
+ * primary key instead of overwriting the first.
+ */
+@Entity
+@Table(name = "idempotent_requests", indexes = {
+        @Index(name = "idx_idempotent_requests_expires_at", columnList = "expires_at")
+})
+public class IdempotentRequest implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key", length = 320)
+    private String key;
+
+    @Column(nullable = false, length = 64, updatable = false)
+    private String fingerprint;
+
+    // Null while the request is still running
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Lob
+    @Column(name = "response_body")
+    private byte[] responseBody;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Transient
+    private boolean isNew;
+
+    protected IdempotentRequest() {}
+
+    public IdempotentRequest(String key, String fingerprint, LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.key = key;
+        this.fingerprint = fingerprint;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+        this.isNew = true;
+    }
+
+    @Override
+    public String getId() { return key; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    // Getters
+    public String getFingerprint() { return fingerprint; }
+    public Integer getResponseStatus() { return responseStatus; }
+    public String getContentType() { return contentType; }
+    public byte[] getResponseBody() { return responseBody; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+}
@@ -7,17 +7,24 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 
 @Entity
 @Table(name = "rides", indexes = {
-        @Index(name = "idx_source_dest_date", columnList = "source, destination, ride_date"),
-        @Index(name = "idx_driver_id", columnList = "driver_id")
+        @Index(name = "idx_route_departure", columnList = "source_key, destination_key, ride_date, ride_time, available_seats"),
+        @Index(name = "idx_driver_id", columnList = "driver_id, id")
 })
 public class Ride {
 
+    public static final String ID_SEQUENCE = "rides_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Pooled sequence (a table on MySQL) instead of IDENTITY, so Hibernate can batch inserts
+    // RideSequenceGuard moves it past the ids IDENTITY handed out on existing databases
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rides_seq")
+    @SequenceGenerator(name = "rides_seq", sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     // Many rides belong to one driver
@@ -33,12 +40,36 @@ public class Ride {
     @Column(nullable = false, length = 100)
     private String destination;
 
+    // Canonical (trimmed, lowercase) copies of source/destination used for indexed search
+    @Column(name = "source_key", nullable = false, length = 100)
+    private String sourceKey;
+
+    @Column(name = "destination_key", nullable = false, length = 100)
+    private String destinationKey;
+
+    // Optional pickup/dropoff coordinates (WGS84 degrees) for nearby search
+    @Column(name = "source_lat")
+    private Double sourceLatitude;
+
+    @Column(name = "source_lng")
+    private Double sourceLongitude;
+
+    @Column(name = "destination_lat")
+    private Double destinationLatitude;
+
+    @Column(name = "destination_lng")
+    private Double destinationLongitude;
+
     @Column(nullable = false)
     private LocalDate rideDate;
 
     @Column(nullable = false)
     private LocalTime rideTime;
 
+    // Optional estimated trip duration, used to chain rides into connections
+    @Column(name = "duration_minutes")
+    private Integer durationMinutes;
+
     @Positive(message = "Total seats must be greater than 0")
     @Column(nullable = false)
     private Integer totalSeats;
@@ -51,6 +82,11 @@ public class Ride {
     @Column(nullable = false)
     private Double pricePerSeat;
 
+    // Optimistic locking: concurrent writers of the same ride fail instead of overwriting each other
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -80,10 +116,31 @@ public class Ride {
     public void setDriver(User driver) { this.driver = driver; }
 
     public String getSource() { return source; }
-    public void setSource(String source) { this.source = source; }
+    public void setSource(String source) {
+        this.source = source;
+        this.sourceKey = normalizeLocation(source);
+    }
 
     public String getDestination() { return destination; }
-    public void setDestination(String destination) { this.destination = destination; }
+    public void setDestination(String destination) {
+        this.destination = destination;
+        this.destinationKey = normalizeLocation(destination);
+    }
+
+    public String getSourceKey() { return sourceKey; }
+    public String getDestinationKey() { return destinationKey; }
+
+    public Double getSourceLatitude() { return sourceLatitude; }
+    public void setSourceLatitude(Double sourceLatitude) { this.sourceLatitude = sourceLatitude; }
+
+    public Double getSourceLongitude() { return sourceLongitude; }
+    public void setSourceLongitude(Double sourceLongitude) { this.sourceLongitude = sourceLongitude; }
+
+    public Double getDestinationLatitude() { return destinationLatitude; }
+    public void setDestinationLatitude(Double destinationLatitude) { this.destinationLatitude = destinationLatitude; }
+
+    public Double getDestinationLongitude() { return destinationLongitude; }
+    public void setDestinationLongitude(Double destinationLongitude) { this.destinationLongitude = destinationLongitude; }
 
     public LocalDate getRideDate() { return rideDate; }
     public void setRideDate(LocalDate rideDate) { this.rideDate = rideDate; }
@@ -91,6 +148,9 @@ public class Ride {
     public LocalTime getRideTime() { return rideTime; }
     public void setRideTime(LocalTime rideTime) { this.rideTime = rideTime; }
 
+    public Integer getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(Integer durationMinutes) { this.durationMinutes = durationMinutes; }
+
     public Integer getTotalSeats() { return totalSeats; }
     public void setTotalSeats(Integer totalSeats) { this.totalSeats = totalSeats; }
 
@@ -100,12 +160,21 @@ public class Ride {
     public Double getPricePerSeat() { return pricePerSeat; }
     public void setPricePerSeat(Double pricePerSeat) { this.pricePerSeat = pricePerSeat; }
 
+    public Long getVersion() { return version; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
 
     public Set<Booking> getBookings() { return bookings; }
     public void setBookings(Set<Booking> bookings) { this.bookings = bookings; }
 
+    /**
+     * Canonical form of a location as stored in source_key/destination_key
+     */
+    public static String normalizeLocation(String location) {
+        return location == null ? null : location.trim().toLowerCase(Locale.ROOT);
+    }
+
     @Override
     public String toString() {
         return "Ride{" +
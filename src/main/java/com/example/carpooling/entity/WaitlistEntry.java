@@ -0,0 +1,51 @@
+package com.carpooling.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A passenger waiting for a seat on a full ride
+ * Entries are served first come, first served (in id order) and deleted when the
+ * passenger is promoted to a booking or leaves the waitlist.
+ */
+@Entity
+@Table(name = "ride_waitlist", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"ride_id", "passenger_id"},
+                name = "unique_waitlist_ride_passenger")
+}, indexes = {
+        @Index(name = "idx_waitlist_passenger_id", columnList = "passenger_id")
+})
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ride_id", nullable = false)
+    private Ride ride;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "passenger_id", nullable = false)
+    private User passenger;
+
+    @Column(name = "joined_at", nullable = false, updatable = false)
+    private LocalDateTime joinedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.joinedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Ride getRide() { return ride; }
+    public void setRide(Ride ride) { this.ride = ride; }
+
+    public User getPassenger() { return passenger; }
+    public void setPassenger(User passenger) { this.passenger = passenger; }
+
+    public LocalDateTime getJoinedAt() { return joinedAt; }
+}
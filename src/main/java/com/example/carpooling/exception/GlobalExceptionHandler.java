@@ -2,6 +2,7 @@ package com.carpooling.exception;
 
 import com.carpooling.dto.response.ApiResponse;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -91,6 +92,44 @@ public class GlobalExceptionHandler {
         );
     }
 
+    /**
+     * Handle rides too busy to take another write right now
+     */
+    @ExceptionHandler(RideBusyException.class)
+    public ResponseEntity<ApiResponse<String>> handleRideBusy(
+            RideBusyException ex, WebRequest request) {
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ApiResponse.error(ex.getMessage()));
+    }
+
+    /**
+     * Handle malformed pagination cursors
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ApiResponse<String>> handleInvalidCursor(
+            InvalidCursorException ex, WebRequest request) {
+
+        return new ResponseEntity<>(
+                ApiResponse.error(ex.getMessage()),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    /**
+     * Handle invalid request input found outside Bean Validation
+     */
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<ApiResponse<String>> handleInvalidRequest(
+            InvalidRequestException ex, WebRequest request) {
+
+        return new ResponseEntity<>(
+                ApiResponse.error(ex.getMessage()),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
     /**
      * Handle bad credentials (login failure)
      */
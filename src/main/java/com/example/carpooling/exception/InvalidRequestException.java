@@ -0,0 +1,11 @@
+package com.carpooling.exception;
+
+/**
+ * Thrown when request input is invalid in a way Bean Validation cannot express
+ * e.g., a limit that comes from configuration
+ */
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.carpooling.exception;
+
+/**
+ * Thrown when a ride's write lock cannot be taken in time
+ * The request was not processed and can be retried as is
+ */
+public class RideBusyException extends RuntimeException {
+    public RideBusyException(String message) {
+        super(message);
+    }
+
+    public RideBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
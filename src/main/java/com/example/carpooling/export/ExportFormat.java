@@ -0,0 +1,36 @@
+package com.carpooling.export;
+
+import com.carpooling.exception.BookingException;
+
+import java.util.Locale;
+
+/**
+ * Output formats of the streaming exports
+ */
+public enum ExportFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    /**
+     * Parse a format request parameter, case-insensitively
+     */
+    public static ExportFormat of(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BookingException("Unsupported export format: " + value);
+        }
+    }
+
+    public String getContentType() { return contentType; }
+    public String getExtension() { return extension; }
+}
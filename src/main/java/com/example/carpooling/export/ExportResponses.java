@@ -0,0 +1,33 @@
+package com.carpooling.export;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+/**
+ * Builds the download responses of the export endpoints
+ */
+public final class ExportResponses {
+
+    private ExportResponses() {
+    }
+
+    /**
+     * Attachment named after the export and today's date, e.g. ride-bookings-2026-05-01.csv
+     * The body runs on an MVC async thread after the controller method has returned
+     */
+    public static ResponseEntity<StreamingResponseBody> attachment(String name, ExportFormat format,
+                                                                   StreamingResponseBody body) {
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(name + "-" + LocalDate.now() + "." + format.getExtension())
+                .build();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .contentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+                .body(body);
+    }
+}
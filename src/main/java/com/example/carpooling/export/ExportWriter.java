@@ -0,0 +1,97 @@
+package com.carpooling.export;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Writes export rows one at a time as NDJSON (one JSON object per line) or CSV
+ *
+ * Output is buffered and flushed every FLUSH_EVERY rows, so the client receives the export
+ * progressively and the writer never holds more than one buffer of it.
+ */
+public final class ExportWriter<T> {
+
+    private static final int FLUSH_EVERY = 200;
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final ExportFormat format;
+    private final OutputStream out;
+    private final JsonMapper jsonMapper;
+    private final Function<T, List<?>> csvRow;
+    private long rows;
+
+    private ExportWriter(ExportFormat format, OutputStream out, JsonMapper jsonMapper, Function<T, List<?>> csvRow) {
+        this.format = format;
+        this.out = new BufferedOutputStream(out, 16 * 1024);
+        this.jsonMapper = jsonMapper;
+        this.csvRow = csvRow;
+    }
+
+    /**
+     * Start an export; CSV output begins with the header line
+     */
+    public static <T> ExportWriter<T> open(ExportFormat format, OutputStream out, JsonMapper jsonMapper,
+                                           List<String> csvHeader, Function<T, List<?>> csvRow) throws IOException {
+        ExportWriter<T> writer = new ExportWriter<>(format, out, jsonMapper, csvRow);
+        if (format == ExportFormat.CSV) {
+            writer.writeCsvLine(csvHeader);
+        }
+        return writer;
+    }
+
+    public void write(T row) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            out.write(jsonMapper.writeValueAsBytes(row));
+            out.write(NEWLINE);
+        } else {
+            writeCsvLine(csvRow.apply(row));
+        }
+        if (++rows % FLUSH_EVERY == 0) {
+            out.flush();
+        }
+    }
+
+    /**
+     * Flush the remaining rows; the underlying stream is left open for the container to close
+     */
+    public long finish() throws IOException {
+        out.flush();
+        return rows;
+    }
+
+    private void writeCsvLine(List<?> values) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(csvValue(values.get(i)));
+        }
+        line.append("\r\n");
+        out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * RFC 4180 quoting; text starting like a formula is prefixed with ' so spreadsheets
+     * do not evaluate user-supplied values
+     */
+    static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (value instanceof String && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -0,0 +1,245 @@
+package com.carpooling.idempotency;
+
+import com.carpooling.security.CustomUserDetails;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Honours the Idempotency-Key header on creating requests (booking a ride, offering rides)
+ *
+ * The first request with a key runs as usual and its successful response is stored; a
+ * repeat with the same key is answered from the store and never reaches the controllers
+ * or services. Keys are scoped to the user and the endpoint. Meanwhile:
+ * - a repeat while the first request is still running gets 409 (retry shortly)
+ * - the same key with a different body gets 422
+ * - a failed first request (4xx/5xx) releases the key, so it can be retried with it
+ * Runs after Spring Security, so only authenticated requests are considered.
+ * Its counts are published as carpooling.idempotency.replayed and .conflicts.
+ */
+@Component
+@ConditionalOnProperty(prefix = "carpooling.idempotency", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyFilter extends OncePerRequestFilter implements MeterBinder {
+
+    public static final String REPLAYED_NAME = "carpooling.idempotency.replayed";
+    public static final String CONFLICTS_NAME = "carpooling.idempotency.conflicts";
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 200;
+
+    private static final String IN_PROGRESS_BODY =
+            "{\"success\":false,\"message\":\"A request with this Idempotency-Key is still being processed\",\"data\":null}";
+    private static final String MISMATCH_BODY =
+            "{\"success\":false,\"message\":\"Idempotency-Key was already used for a different request\",\"data\":null}";
+    private static final String INVALID_KEY_BODY =
+            "{\"success\":false,\"message\":\"Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters\",\"data\":null}";
+
+    private final IdempotencyStore store;
+    private final List<String> paths;
+
+    // Idempotency statistics
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    public IdempotencyFilter(IdempotencyStore store,
+                             @Value("${carpooling.idempotency.paths:/bookings,/rides,/rides/recurring}") List<String> paths) {
+        this.store = store;
+        this.paths = List.copyOf(paths);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || request.getHeader(HEADER) == null
+                || !paths.contains(path(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        Long userId = currentUserId();
+        if (userId == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String clientKey = request.getHeader(HEADER).trim();
+        if (clientKey.isEmpty() || clientKey.length() > MAX_KEY_LENGTH) {
+            reject(response, HttpStatus.BAD_REQUEST, INVALID_KEY_BODY);
+            return;
+        }
+
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String key = userId + ":" + path(request) + ":" + clientKey;
+        String fingerprint = fingerprint(cachedRequest.body);
+
+        Optional<IdempotencyRecord> existing = store.claim(key, fingerprint);
+        if (existing.isPresent()) {
+            answerRepeat(existing.get(), fingerprint, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper cachedResponse = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(cachedRequest, cachedResponse);
+            int status = cachedResponse.getStatus();
+            if (status >= 200 && status < 300) {
+                store.complete(key, new StoredResponse(status, cachedResponse.getContentType(),
+                        cachedResponse.getContentAsByteArray()));
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                store.release(key);
+            }
+            cachedResponse.copyBodyToResponse();
+        }
+    }
+
+    private void answerRepeat(IdempotencyRecord record, String fingerprint, HttpServletResponse response)
+            throws IOException {
+
+        if (!record.fingerprint().equals(fingerprint)) {
+            conflicts.increment();
+            reject(response, HttpStatus.UNPROCESSABLE_CONTENT, MISMATCH_BODY);
+        } else if (!record.isCompleted()) {
+            conflicts.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            reject(response, HttpStatus.CONFLICT, IN_PROGRESS_BODY);
+        } else {
+            replayed.increment();
+            StoredResponse stored = record.response();
+            response.setStatus(stored.status());
+            response.setHeader(REPLAYED_HEADER, "true");
+            if (stored.contentType() != null) {
+                response.setContentType(stored.contentType());
+            }
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+        }
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String body) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(body);
+    }
+
+    // Path below the context path, as in the security rules
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static String fingerprint(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails user) {
+            return user.getUserId();
+        }
+        return null;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(REPLAYED_NAME, replayed, LongAdder::sum)
+                .description("Repeated requests answered from the stored response")
+                .register(registry);
+        FunctionCounter.builder(CONFLICTS_NAME, conflicts, LongAdder::sum)
+                .description("Repeated requests rejected while in progress or with a different body")
+                .register(registry);
+    }
+
+    public long getReplayedCount() { return replayed.sum(); }
+    public long getConflictCount() { return conflicts.sum(); }
+
+    /**
+     * Request whose body is read up front (to fingerprint it) and can then be read again
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.carpooling.idempotency;
+
+/**
+ * What a store knows about a key: the fingerprint of the request that claimed it and,
+ * once that request has completed, its response (null while it is still running)
+ */
+public record IdempotencyRecord(String fingerprint, StoredResponse response) {
+
+    public static IdempotencyRecord inProgress(String fingerprint) {
+        return new IdempotencyRecord(fingerprint, null);
+    }
+
+    public boolean isCompleted() {
+        return response != null;
+    }
+}
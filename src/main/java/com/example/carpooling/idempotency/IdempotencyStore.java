@@ -0,0 +1,24 @@
+package com.carpooling.idempotency;
+
+import java.util.Optional;
+
+/**
+ * Keeps the first response of each idempotency key for a limited time
+ *
+ * claim is atomic: of concurrent requests with the same key exactly one gets an empty
+ * result and runs; the others see the claim (in progress) or, later, the stored response.
+ * The claimant either completes the key with its response or releases it, so that a
+ * failed request can be retried with the same key.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Claim a key for a request with the given fingerprint
+     * @return empty if the caller now holds the key, otherwise the existing record
+     */
+    Optional<IdempotencyRecord> claim(String key, String fingerprint);
+
+    void complete(String key, StoredResponse response);
+
+    void release(String key);
+}
@@ -0,0 +1,121 @@
+package com.carpooling.idempotency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, TTL-evicting idempotency store kept in memory (single node)
+ *
+ * Keys expire a fixed time after they were claimed or completed. When the store is full,
+ * expired keys are dropped first, then the key closest to expiry.
+ * Its size and evictions are published as carpooling.idempotency.store.size and .evictions.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore, MeterBinder {
+
+    public static final String SIZE_NAME = "carpooling.idempotency.store.size";
+    public static final String EVICTIONS_NAME = "carpooling.idempotency.store.evictions";
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxSize;
+    private final LongSupplier clock;
+
+    private final LongAdder evictions = new LongAdder();
+
+    public InMemoryIdempotencyStore(Duration ttl, int maxSize) {
+        this(ttl, maxSize, System::nanoTime);
+    }
+
+    InMemoryIdempotencyStore(Duration ttl, int maxSize, LongSupplier clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Idempotency store size must be at least 1");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> claim(String key, String fingerprint) {
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            makeRoom();
+        }
+        long now = clock.getAsLong();
+        Entry claimed = new Entry(IdempotencyRecord.inProgress(fingerprint), now + ttlNanos);
+        while (true) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                if (entries.putIfAbsent(key, claimed) == null) {
+                    return Optional.empty();
+                }
+            } else if (!entry.isExpired(now)) {
+                return Optional.of(entry.record());
+            } else if (entries.replace(key, entry, claimed)) {
+                return Optional.empty();
+            }
+            // Lost a race with another request using the key; look again
+        }
+    }
+
+    @Override
+    public void complete(String key, StoredResponse response) {
+        entries.computeIfPresent(key, (k, entry) -> new Entry(
+                new IdempotencyRecord(entry.record().fingerprint(), response), clock.getAsLong() + ttlNanos));
+    }
+
+    @Override
+    public void release(String key) {
+        entries.computeIfPresent(key, (k, entry) -> entry.record().isCompleted() ? entry : null);
+    }
+
+    /**
+     * Drop expired keys; if the store is still full, drop the key closest to expiry
+     * Only runs when claiming a new key against a full store
+     */
+    private synchronized void makeRoom() {
+        long now = clock.getAsLong();
+        Map.Entry<String, Entry> oldest = null;
+        for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+            if (candidate.getValue().isExpired(now)) {
+                if (entries.remove(candidate.getKey(), candidate.getValue())) {
+                    evictions.increment();
+                }
+            } else if (oldest == null || candidate.getValue().expiresAt() < oldest.getValue().expiresAt()) {
+                oldest = candidate;
+            }
+        }
+        if (entries.size() >= maxSize && oldest != null && entries.remove(oldest.getKey(), oldest.getValue())) {
+            evictions.increment();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(SIZE_NAME, this, InMemoryIdempotencyStore::getSize)
+                .description("Idempotency keys held")
+                .register(registry);
+        FunctionCounter.builder(EVICTIONS_NAME, evictions, LongAdder::sum)
+                .description("Unexpired keys dropped because the store was full")
+                .register(registry);
+    }
+
+    public int getSize() { return entries.size(); }
+    public long getEvictionCount() { return evictions.sum(); }
+
+    private record Entry(IdempotencyRecord record, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.carpooling.idempotency;
+
+import com.carpooling.entity.IdempotentRequest;
+import com.carpooling.repository.IdempotentRequestRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Idempotency store backed by the idempotent_requests table, shared by all instances
+ *
+ * A claim is an insert: the primary key makes exactly one of concurrent claims succeed.
+ * Expired keys are deleted periodically, and the table is trimmed to its maximum size
+ * (keys closest to expiry go first).
+ */
+public class JpaIdempotencyStore implements IdempotencyStore {
+
+    // A claim only loses to a concurrent release or expiry a few times in a row
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
+
+    private final IdempotentRequestRepository repository;
+    private final Duration ttl;
+    private final int maxSize;
+    private final Clock clock;
+
+    public JpaIdempotencyStore(IdempotentRequestRepository repository, Duration ttl, int maxSize) {
+        this(repository, ttl, maxSize, Clock.systemDefaultZone());
+    }
+
+    JpaIdempotencyStore(IdempotentRequestRepository repository, Duration ttl, int maxSize, Clock clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Idempotency store size must be at least 1");
+        }
+        this.repository = repository;
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> claim(String key, String fingerprint) {
+        for (int attempt = 1; attempt <= MAX_CLAIM_ATTEMPTS; attempt++) {
+            LocalDateTime now = LocalDateTime.now(clock);
+            try {
+                repository.saveAndFlush(new IdempotentRequest(key, fingerprint, now, now.plus(ttl)));
+                return Optional.empty();
+            } catch (DataIntegrityViolationException e) {
+                // Key already claimed: use it unless it has expired (or was released meanwhile)
+                Optional<IdempotentRequest> existing = repository.findById(key);
+                if (existing.isPresent() && existing.get().getExpiresAt().isAfter(now)) {
+                    return existing.map(JpaIdempotencyStore::toRecord);
+                }
+                repository.deleteIfExpired(key, now);
+            }
+        }
+        // Still contended: let the client retry later
+        return Optional.of(IdempotencyRecord.inProgress(fingerprint));
+    }
+
+    @Override
+    public void complete(String key, StoredResponse response) {
+        repository.complete(key, response.status(), response.contentType(), response.body(),
+                LocalDateTime.now(clock).plus(ttl));
+    }
+
+    @Override
+    public void release(String key) {
+        repository.release(key);
+    }
+
+    /**
+     * Delete expired keys, then trim the table to its maximum size
+     */
+    @Scheduled(fixedDelayString = "${carpooling.idempotency.database.purge-interval:5m}")
+    public void purge() {
+        repository.deleteExpired(LocalDateTime.now(clock));
+        long excess = repository.count() - maxSize;
+        if (excess > 0) {
+            List<String> keys = repository.findKeysByExpiry(PageRequest.of(0, (int) Math.min(excess, Integer.MAX_VALUE)));
+            repository.deleteAllByIdInBatch(keys);
+        }
+    }
+
+    private static IdempotencyRecord toRecord(IdempotentRequest request) {
+        if (request.getResponseStatus() == null) {
+            return IdempotencyRecord.inProgress(request.getFingerprint());
+        }
+        return new IdempotencyRecord(request.getFingerprint(), new StoredResponse(
+                request.getResponseStatus(), request.getContentType(), request.getResponseBody()));
+    }
+}
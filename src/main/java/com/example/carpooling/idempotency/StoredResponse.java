@@ -0,0 +1,7 @@
+package com.carpooling.idempotency;
+
+/**
+ * A completed response kept for replay: status, content type and body
+ */
+public record StoredResponse(int status, String contentType, byte[] body) {
+}
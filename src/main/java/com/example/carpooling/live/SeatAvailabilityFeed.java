@@ -0,0 +1,328 @@
+package com.carpooling.live;
+
+import com.carpooling.dto.response.SeatAvailabilityEvent;
+import com.carpooling.exception.InvalidRequestException;
+import com.carpooling.transaction.AfterCommit;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Pushes seat count changes of rides to subscribed clients as Server-Sent Events
+ *
+ * Open connections are parked in the servlet container's async support, not on a thread
+ * each; a small dispatcher pool does all the writing. Every subscriber keeps only the
+ * latest unsent seat count per ride, so a slow client skips intermediate values instead
+ * of queueing them, and publishing never waits on a client.
+ * The number of open streams is published as carpooling.live.subscribers.
+ */
+@Component
+public class SeatAvailabilityFeed implements MeterBinder {
+
+    public static final String SUBSCRIBERS_NAME = "carpooling.live.subscribers";
+
+    private static final Logger log = LoggerFactory.getLogger(SeatAvailabilityFeed.class);
+
+    private final ConcurrentMap<Long, Set<Subscriber>> subscribersByRide = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService dispatcher;
+    private final long timeoutMillis;
+    private final int maxRidesPerSubscription;
+
+    @Autowired
+    public SeatAvailabilityFeed(
+            @Value("${carpooling.live.dispatch-threads:2}") int dispatchThreads,
+            @Value("${carpooling.live.subscription-timeout:30m}") Duration timeout,
+            @Value("${carpooling.live.heartbeat-interval:25s}") Duration heartbeatInterval,
+            @Value("${carpooling.live.max-rides-per-subscription:50}") int maxRidesPerSubscription) {
+        this(Executors.newScheduledThreadPool(dispatchThreads, dispatcherThreads()),
+                timeout, heartbeatInterval, maxRidesPerSubscription);
+    }
+
+    SeatAvailabilityFeed(ScheduledExecutorService dispatcher, Duration timeout, Duration heartbeatInterval,
+                         int maxRidesPerSubscription) {
+        this.dispatcher = dispatcher;
+        this.timeoutMillis = timeout.toMillis();
+        this.maxRidesPerSubscription = maxRidesPerSubscription;
+        if (!heartbeatInterval.isZero()) {
+            long interval = heartbeatInterval.toMillis();
+            dispatcher.scheduleWithFixedDelay(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Open an event stream for the given rides
+     * The current seat counts are sent first, then every committed change
+     */
+    public SseEmitter subscribe(Collection<Long> rideIds,
+                                Function<Set<Long>, List<SeatAvailabilityEvent>> currentSeats) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = register(rideIds, new EmitterSink(emitter), currentSeats);
+        emitter.onCompletion(() -> unregister(subscriber));
+        emitter.onError(error -> unregister(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Send a ride's new seat count to its subscribers
+     * Inside a transaction this happens after commit, so rolled back changes are never pushed
+     */
+    public void publish(Long rideId, int availableSeats) {
+        AfterCommit.run(() -> deliver(rideId, availableSeats));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(SUBSCRIBERS_NAME, this, SeatAvailabilityFeed::getSubscriberCount)
+                .description("Open seat availability streams")
+                .register(registry);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Subscribe first, then read the snapshot: a change committed in between is either in
+     * the snapshot or delivered live, and a live value is never overwritten by the snapshot
+     */
+    Subscriber register(Collection<Long> rideIds, EventSink sink,
+                        Function<Set<Long>, List<SeatAvailabilityEvent>> currentSeats) {
+        Set<Long> rides = new LinkedHashSet<>(rideIds);
+        rides.remove(null);
+        if (rides.isEmpty()) {
+            throw new InvalidRequestException("At least one ride ID is required");
+        }
+        if (rides.size() > maxRidesPerSubscription) {
+            throw new InvalidRequestException("At most " + maxRidesPerSubscription + " rides per subscription");
+        }
+
+        Subscriber subscriber = new Subscriber(rides, sink);
+        subscribers.add(subscriber);
+        for (Long rideId : rides) {
+            // Added inside compute so a concurrent unregister cannot drop the set being added to
+            subscribersByRide.compute(rideId, (id, rideSubscribers) -> {
+                Set<Subscriber> updated = rideSubscribers != null ? rideSubscribers : ConcurrentHashMap.newKeySet();
+                updated.add(subscriber);
+                return updated;
+            });
+        }
+        try {
+            if (subscriber.offerSnapshot(currentSeats.apply(rides))) {
+                dispatch(subscriber);
+            }
+        } catch (RuntimeException e) {
+            unregister(subscriber);
+            throw e;
+        }
+        return subscriber;
+    }
+
+    void unregister(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        subscriber.closed = true;
+        for (Long rideId : subscriber.rideIds) {
+            subscribersByRide.computeIfPresent(rideId, (id, rideSubscribers) -> {
+                rideSubscribers.remove(subscriber);
+                return rideSubscribers.isEmpty() ? null : rideSubscribers;
+            });
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+        for (Subscriber subscriber : List.copyOf(subscribers)) {
+            unregister(subscriber);
+            subscriber.sink.close();
+        }
+    }
+
+    private void deliver(Long rideId, int availableSeats) {
+        Set<Subscriber> rideSubscribers = subscribersByRide.get(rideId);
+        if (rideSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : rideSubscribers) {
+            if (subscriber.offer(rideId, availableSeats)) {
+                dispatch(subscriber);
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.offerHeartbeat()) {
+                dispatch(subscriber);
+            }
+        }
+    }
+
+    private void dispatch(Subscriber subscriber) {
+        try {
+            dispatcher.execute(subscriber::drain);
+        } catch (RejectedExecutionException e) {
+            log.debug("Seat availability feed is shut down; dropping update");
+        }
+    }
+
+    private static ThreadFactory dispatcherThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "seat-feed-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Where a subscriber's events are written
+     */
+    interface EventSink {
+
+        void send(SeatAvailabilityEvent event) throws IOException;
+
+        void heartbeat() throws IOException;
+
+        void close();
+    }
+
+    private static final class EmitterSink implements EventSink {
+
+        private final SseEmitter emitter;
+
+        EmitterSink(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void send(SeatAvailabilityEvent event) throws IOException {
+            emitter.send(SseEmitter.event().name("seats").data(event, MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment("keep-alive"));
+        }
+
+        @Override
+        public void close() {
+            emitter.complete();
+        }
+    }
+
+    /**
+     * One open stream; pending values are coalesced per ride until the dispatcher drains them
+     * At most one drain per subscriber is queued or running at any time
+     */
+    final class Subscriber {
+
+        private final Set<Long> rideIds;
+        private final EventSink sink;
+
+        // Guarded by this
+        private final Map<Long, Integer> pending = new HashMap<>();
+        private final Set<Long> live = new HashSet<>();
+        private boolean heartbeatDue;
+        private boolean scheduled;
+
+        private volatile boolean closed;
+
+        Subscriber(Set<Long> rideIds, EventSink sink) {
+            this.rideIds = rideIds;
+            this.sink = sink;
+        }
+
+        /**
+         * Returns true when the caller must dispatch a drain
+         */
+        synchronized boolean offer(Long rideId, int availableSeats) {
+            live.add(rideId);
+            pending.put(rideId, availableSeats);
+            return schedule();
+        }
+
+        synchronized boolean offerSnapshot(List<SeatAvailabilityEvent> current) {
+            for (SeatAvailabilityEvent event : current) {
+                if (!live.contains(event.getRideId())) {
+                    pending.putIfAbsent(event.getRideId(), event.getAvailableSeats());
+                }
+            }
+            return !pending.isEmpty() && schedule();
+        }
+
+        synchronized boolean offerHeartbeat() {
+            heartbeatDue = true;
+            return schedule();
+        }
+
+        private boolean schedule() {
+            if (scheduled || closed) {
+                return false;
+            }
+            scheduled = true;
+            return true;
+        }
+
+        void drain() {
+            while (true) {
+                List<SeatAvailabilityEvent> batch;
+                boolean heartbeat;
+                synchronized (this) {
+                    if (closed || (pending.isEmpty() && !heartbeatDue)) {
+                        scheduled = false;
+                        return;
+                    }
+                    batch = new ArrayList<>(pending.size());
+                    pending.forEach((rideId, seats) -> batch.add(new SeatAvailabilityEvent(rideId, seats)));
+                    pending.clear();
+                    heartbeat = heartbeatDue && batch.isEmpty();
+                    heartbeatDue = false;
+                }
+                try {
+                    for (SeatAvailabilityEvent event : batch) {
+                        sink.send(event);
+                    }
+                    if (heartbeat) {
+                        sink.heartbeat();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away or the stream already completed
+                    unregister(this);
+                    sink.close();
+                    return;
+                }
+            }
+        }
+    }
+}
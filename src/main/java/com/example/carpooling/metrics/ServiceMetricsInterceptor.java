@@ -0,0 +1,101 @@
+package com.carpooling.metrics;
+
+import com.carpooling.exception.BookingException;
+import com.carpooling.exception.UnauthorizedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times service method calls and counts the business rules they reject requests with
+ *
+ * - carpooling.service (timer): class, method and exception ("none" on success); the
+ *   percentile histogram is switched on in application.properties
+ * - carpooling.booking.rejections (counter): method and exception class of each
+ *   BookingException/UnauthorizedException raised by the rejection source class. The
+ *   message is not a tag, so wording changes and ids in messages cannot add series.
+ * The registry is looked up on first use, so the interceptor can be created before it.
+ */
+public class ServiceMetricsInterceptor implements MethodInterceptor {
+
+    public static final String TIMER_NAME = "carpooling.service";
+    public static final String REJECTIONS_NAME = "carpooling.booking.rejections";
+
+    private final Supplier<MeterRegistry> registrySupplier;
+    private final Class<?> rejectionSource;
+    // Timers of successful calls, cached by method so the common path does not rebuild meter ids
+    private final ConcurrentMap<Method, Timer> successTimers = new ConcurrentHashMap<>();
+
+    private volatile MeterRegistry registry;
+
+    public ServiceMetricsInterceptor(Supplier<MeterRegistry> registrySupplier, Class<?> rejectionSource) {
+        this.registrySupplier = registrySupplier;
+        this.rejectionSource = rejectionSource;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MeterRegistry registry = registry();
+        if (registry == null) {
+            return invocation.proceed();
+        }
+        long start = registry.config().clock().monotonicTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            long elapsed = registry.config().clock().monotonicTime() - start;
+            Class<?> targetClass = targetClass(invocation);
+            timer(registry, targetClass, invocation.getMethod(), e.getClass().getSimpleName())
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            if (targetClass == rejectionSource
+                    && (e instanceof BookingException || e instanceof UnauthorizedException)) {
+                Counter.builder(REJECTIONS_NAME)
+                        .description("Booking requests rejected by a business rule")
+                        .tag("method", invocation.getMethod().getName())
+                        .tag("exception", e.getClass().getSimpleName())
+                        .register(registry)
+                        .increment();
+            }
+            throw e;
+        }
+        long elapsed = registry.config().clock().monotonicTime() - start;
+        successTimers.computeIfAbsent(invocation.getMethod(),
+                        method -> timer(registry, targetClass(invocation), method, "none"))
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private MeterRegistry registry() {
+        MeterRegistry current = registry;
+        if (current == null) {
+            current = registrySupplier.get();
+            registry = current;
+        }
+        return current;
+    }
+
+    private static Timer timer(MeterRegistry registry, Class<?> targetClass, Method method, String exception) {
+        return Timer.builder(TIMER_NAME)
+                .description("Service method calls")
+                .tag("class", targetClass.getSimpleName())
+                .tag("method", method.getName())
+                .tag("exception", exception)
+                .register(registry);
+    }
+
+    private static Class<?> targetClass(MethodInvocation invocation) {
+        return invocation.getThis() != null
+                ? AopUtils.getTargetClass(invocation.getThis())
+                : invocation.getMethod().getDeclaringClass();
+    }
+}
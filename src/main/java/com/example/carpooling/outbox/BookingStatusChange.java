@@ -0,0 +1,20 @@
+package com.carpooling.outbox;
+
+import com.carpooling.entity.BookingOutboxEvent;
+import com.carpooling.entity.enums.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * A booking status change as handed to an OutboxSink
+ * eventId is unique per change; consumers use it to drop redeliveries
+ */
+public record BookingStatusChange(Long eventId, Long bookingId, Long rideId, Long passengerId,
+                                  BookingStatus previousStatus, BookingStatus status,
+                                  LocalDateTime occurredAt) {
+
+    public static BookingStatusChange of(BookingOutboxEvent event) {
+        return new BookingStatusChange(event.getId(), event.getBookingId(), event.getRideId(),
+                event.getPassengerId(), event.getPreviousStatus(), event.getStatus(), event.getOccurredAt());
+    }
+}
@@ -0,0 +1,52 @@
+package com.carpooling.outbox;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends relayed changes to a file as NDJSON (one JSON object per line)
+ * flush forces the appended lines to disk before the relay deletes them from the outbox
+ */
+public class FileOutboxSink implements OutboxSink, Closeable {
+
+    private final FileChannel channel;
+    private final OutputStream out;
+    private final JsonMapper jsonMapper;
+
+    public FileOutboxSink(Path path, JsonMapper jsonMapper) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.out = new BufferedOutputStream(Channels.newOutputStream(channel), 16 * 1024);
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public synchronized void send(BookingStatusChange change) throws IOException {
+        out.write(jsonMapper.writeValueAsBytes(change));
+        out.write('\n');
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        out.flush();
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
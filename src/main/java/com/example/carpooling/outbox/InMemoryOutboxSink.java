@@ -0,0 +1,37 @@
+package com.carpooling.outbox;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recent relayed changes in memory, for local runs and tests
+ * Once full, the oldest change is dropped for each new one
+ */
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final int capacity;
+    private final Deque<BookingStatusChange> changes = new ArrayDeque<>();
+
+    public InMemoryOutboxSink(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void send(BookingStatusChange change) {
+        if (changes.size() == capacity) {
+            changes.removeFirst();
+        }
+        changes.addLast(change);
+    }
+
+    /**
+     * Relayed changes, oldest first
+     */
+    public synchronized List<BookingStatusChange> getChanges() {
+        return List.copyOf(changes);
+    }
+}
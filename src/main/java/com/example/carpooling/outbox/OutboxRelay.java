@@ -0,0 +1,171 @@
+package com.carpooling.outbox;
+
+import com.carpooling.datasource.ReadYourWrites;
+import com.carpooling.entity.BookingOutboxEvent;
+import com.carpooling.repository.BookingOutboxRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves booking status changes from the outbox table to the configured OutboxSink
+ *
+ * Delivery is at least once: events are deleted only after the sink has flushed them,
+ * so a crash in between sends them again (consumers deduplicate on eventId). Events go out
+ * in id order and delivery stops at the first failure. Order is guaranteed per ride only:
+ * a ride's changes are written under its ride lock, so their ids follow commit order. Ids
+ * are drawn before commit, so across rides a change committed later with a lower id can be
+ * relayed after one with a higher id.
+ *
+ * An event the sink keeps rejecting (any failure but IOException, see OutboxSink) is
+ * dead-lettered after max-attempts: it stays in the table with its last error, and later
+ * changes (including its ride's) go out without it. An unreachable sink never dead-letters.
+ * Run the relay on one instance only (carpooling.outbox.relay.enabled=false elsewhere).
+ * Its counts are published as carpooling.outbox.delivered, .failures and .dead.lettered.
+ */
+@Component
+@ConditionalOnProperty(prefix = "carpooling.outbox.relay", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay implements MeterBinder {
+
+    public static final String DELIVERED_NAME = "carpooling.outbox.delivered";
+    public static final String FAILURES_NAME = "carpooling.outbox.failures";
+    public static final String DEAD_LETTERED_NAME = "carpooling.outbox.dead.lettered";
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final BookingOutboxRepository outboxRepository;
+    private final OutboxSink sink;
+    private final int batchSize;
+    private final int maxAttempts;
+
+    // Relay statistics
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+
+    public OutboxRelay(BookingOutboxRepository outboxRepository, OutboxSink sink,
+                       @Value("${carpooling.outbox.batch-size:100}") int batchSize,
+                       @Value("${carpooling.outbox.max-attempts:10}") int maxAttempts) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Max attempts must be at least 1");
+        }
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Drain the outbox: full batches are relayed back to back, then the relay waits
+     * for the next flush interval
+     */
+    @Scheduled(fixedDelayString = "${carpooling.outbox.flush-interval:1s}")
+    public void relay() {
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed == batchSize);
+    }
+
+    /**
+     * Relay the oldest pending events; returns how many were delivered
+     */
+    int relayBatch() {
+        // The outbox is read straight after commits, so never from a lagging replica
+        List<BookingOutboxEvent> batch = ReadYourWrites.onPrimary(() ->
+                outboxRepository.findOldest(PageRequest.of(0, batchSize)));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> sent = new ArrayList<>(batch.size());
+        try {
+            for (BookingOutboxEvent event : batch) {
+                sink.send(BookingStatusChange.of(event));
+                sent.add(event.getId());
+            }
+        } catch (IOException e) {
+            failed(batch.get(sent.size()), e, false);
+        } catch (RuntimeException e) {
+            failed(batch.get(sent.size()), e, true);
+        }
+
+        if (!sent.isEmpty()) {
+            try {
+                sink.flush();
+            } catch (IOException | RuntimeException e) {
+                // Nothing is deleted; the whole batch is sent again
+                failed(batch.get(0), e, false);
+                return 0;
+            }
+            outboxRepository.deleteAllByIdInBatch(sent);
+            delivered.add(sent.size());
+        }
+        return sent.size();
+    }
+
+    /**
+     * Record a failed attempt; rejected marks a failure caused by the event itself, which
+     * counts towards dead-lettering it
+     */
+    private void failed(BookingOutboxEvent event, Exception error, boolean rejected) {
+        failures.increment();
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        if (message.length() > MAX_ERROR_LENGTH) {
+            message = message.substring(0, MAX_ERROR_LENGTH);
+        }
+        int attempt = event.getAttempts() + 1;
+        boolean giveUp = rejected && attempt >= maxAttempts;
+        outboxRepository.recordFailure(event.getId(), message, giveUp);
+        if (giveUp) {
+            deadLettered.increment();
+            log.error("Outbox event {} dead-lettered after {} attempts; relaying later events without it: {}",
+                    event.getId(), attempt, message);
+        } else {
+            log.warn("Outbox delivery failed at event {} (attempt {}); retrying on the next run: {}",
+                    event.getId(), attempt, message);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(DELIVERED_NAME, delivered, LongAdder::sum)
+                .description("Booking status changes delivered to the sink")
+                .register(registry);
+        FunctionCounter.builder(FAILURES_NAME, failures, LongAdder::sum)
+                .description("Failed delivery attempts")
+                .register(registry);
+        FunctionCounter.builder(DEAD_LETTERED_NAME, deadLettered, LongAdder::sum)
+                .description("Events given up on after max-attempts rejections")
+                .register(registry);
+    }
+
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    public long getDeadLetteredCount() {
+        return deadLettered.sum();
+    }
+}
@@ -0,0 +1,20 @@
+package com.carpooling.outbox;
+
+import java.io.IOException;
+
+/**
+ * Destination of relayed booking status changes (message broker, file, ...)
+ *
+ * send may buffer. flush must make everything sent since the previous flush durable:
+ * the relay deletes those events from the outbox as soon as it returns.
+ * Throw IOException when the destination is unreachable; the relay retries until it is
+ * back. Any other exception from send rejects that change itself, and the relay
+ * dead-letters it after max-attempts.
+ */
+public interface OutboxSink {
+
+    void send(BookingStatusChange change) throws IOException;
+
+    default void flush() throws IOException {
+    }
+}
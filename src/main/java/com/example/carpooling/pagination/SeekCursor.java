@@ -0,0 +1,84 @@
+package com.carpooling.pagination;
+
+import com.carpooling.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last row returned by a keyset (seek) page
+ *
+ * Holds the sort key of that row: an optional ride date and time plus the row id.
+ * The date is only needed where a listing spans several dates (a window crossing midnight).
+ * Clients only ever see the opaque, URL-safe token produced by {@link #encode()}.
+ */
+public final class SeekCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDate rideDate;
+    private final LocalTime rideTime;
+    private final Long id;
+
+    private SeekCursor(LocalDate rideDate, LocalTime rideTime, Long id) {
+        this.rideDate = rideDate;
+        this.rideTime = rideTime;
+        this.id = id;
+    }
+
+    public static SeekCursor afterId(Long id) {
+        return new SeekCursor(null, null, id);
+    }
+
+    public static SeekCursor after(LocalTime rideTime, Long id) {
+        return new SeekCursor(null, rideTime, id);
+    }
+
+    public static SeekCursor after(LocalDate rideDate, LocalTime rideTime, Long id) {
+        return new SeekCursor(rideDate, rideTime, id);
+    }
+
+    /**
+     * Decode a continuation token
+     * Returns null for a missing or empty token, which means "start from the first row"
+     */
+    public static SeekCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = raw.indexOf(SEPARATOR);
+            if (split < 0) {
+                throw new InvalidCursorException("Invalid cursor: " + token);
+            }
+            String time = raw.substring(0, split);
+            Long id = Long.valueOf(raw.substring(split + 1));
+            if (time.isEmpty()) {
+                return new SeekCursor(null, null, id);
+            }
+            // Date-qualified cursors carry an ISO date-time, older ones a bare time
+            if (time.indexOf('T') >= 0) {
+                LocalDateTime departure = LocalDateTime.parse(time);
+                return new SeekCursor(departure.toLocalDate(), departure.toLocalTime(), id);
+            }
+            return new SeekCursor(null, LocalTime.parse(time), id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        String key = rideTime == null ? "" : rideDate == null ? rideTime.toString() : rideDate.atTime(rideTime).toString();
+        String raw = key + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDate getRideDate() { return rideDate; }
+    public LocalTime getRideTime() { return rideTime; }
+    public Long getId() { return id; }
+}
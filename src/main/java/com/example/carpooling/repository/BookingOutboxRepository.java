@@ -0,0 +1,35 @@
+package com.carpooling.repository;
+
+import com.carpooling.entity.BookingOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface BookingOutboxRepository extends JpaRepository<BookingOutboxEvent, Long> {
+
+    /**
+     * Oldest undelivered events first, skipping dead-lettered ones; the page size is the relay batch size
+     */
+    @Query("SELECT e FROM BookingOutboxEvent e WHERE e.deadLettered = false ORDER BY e.id")
+    List<BookingOutboxEvent> findOldest(Pageable pageable);
+
+    /**
+     * Count a failed delivery attempt against an event, and take it out of the relay's way
+     * when deadLettered is set
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE BookingOutboxEvent e SET e.attempts = e.attempts + 1, e.lastError = :error, "
+            + "e.deadLettered = :deadLettered WHERE e.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("error") String error,
+                      @Param("deadLettered") boolean deadLettered);
+
+    long countByDeadLetteredTrue();
+}
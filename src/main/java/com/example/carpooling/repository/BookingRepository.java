@@ -1,30 +1,75 @@
 package com.carpooling.repository;
 
+import com.carpooling.dto.response.BookingResponse;
 import com.carpooling.entity.Booking;
 import com.carpooling.entity.enums.BookingStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
+    /**
+     * Projection of exactly the columns BookingResponse needs
+     * Selecting them in one statement avoids loading the lazy ride/passenger per row
+     */
+    String RESPONSE_SELECT = "SELECT new com.carpooling.dto.response.BookingResponse(" +
+            "b.id, b.ride.id, p.id, p.username, b.status, b.bookedAt) " +
+            "FROM Booking b JOIN b.passenger p ";
+
+    /**
+     * Rows fetched per round trip by the streaming exports
+     * MySQL only honours a fetch size when the JDBC URL has useCursorFetch=true
+     */
+    String EXPORT_FETCH_SIZE = "500";
+
     /**
      * Find existing booking to prevent duplicate
      * Returns Optional - present if passenger already booked this ride
      */
     Optional<Booking> findByRideIdAndPassengerId(Long rideId, Long passengerId);
 
+    /**
+     * Look up only the ride a booking belongs to
+     */
+    @Query("SELECT b.ride.id FROM Booking b WHERE b.id = :bookingId")
+    Optional<Long> findRideIdById(@Param("bookingId") Long bookingId);
+
     /**
      * Find all bookings for a specific ride
      */
     List<Booking> findByRideId(Long rideId);
 
+    /**
+     * Find the given bookings, restricted to one ride
+     */
+    List<Booking> findByRideIdAndIdIn(Long rideId, Collection<Long> ids);
+
+    /**
+     * Move several bookings to a new status in one statement
+     * Only rows still in one of the expected statuses are changed; returns the number changed
+     */
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = :status, b.version = b.version + 1, " +
+            "b.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE b.id IN :ids AND b.status IN :expected")
+    int updateStatuses(@Param("ids") Collection<Long> ids,
+                       @Param("expected") Collection<BookingStatus> expected,
+                       @Param("status") BookingStatus status);
+
     /**
      * Find all confirmed bookings for a ride
      */
@@ -35,12 +80,67 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
      */
     Page<Booking> findByPassengerId(Long passengerId, Pageable pageable);
 
+    /**
+     * Bookings made by a passenger, as BookingResponse projections
+     */
+    @Query(value = RESPONSE_SELECT + "WHERE p.id = :passengerId",
+            countQuery = "SELECT COUNT(b) FROM Booking b WHERE b.passenger.id = :passengerId")
+    Page<BookingResponse> findResponsesByPassengerId(@Param("passengerId") Long passengerId, Pageable pageable);
+
+    /**
+     * Count-free variant of findResponsesByPassengerId
+     */
+    @Query(RESPONSE_SELECT + "WHERE p.id = :passengerId")
+    Slice<BookingResponse> findResponseSliceByPassengerId(@Param("passengerId") Long passengerId,
+                                                          Pageable pageable);
+
+    /**
+     * Keyset pagination over a passenger's bookings, newest first
+     * Seeks on (passenger_id, id) through idx_passenger_id, so page depth does not matter
+     */
+    @Query(RESPONSE_SELECT + "WHERE p.id = :passengerId ORDER BY b.id DESC")
+    List<BookingResponse> findLatestResponsesByPassengerId(@Param("passengerId") Long passengerId,
+                                                           Pageable pageable);
+
+    @Query(RESPONSE_SELECT + "WHERE p.id = :passengerId AND b.id < :id ORDER BY b.id DESC")
+    List<BookingResponse> findResponsesByPassengerIdBefore(@Param("passengerId") Long passengerId,
+                                                           @Param("id") Long id,
+                                                           Pageable pageable);
+
     /**
      * Find all bookings for rides created by a specific driver
      */
     @Query("SELECT b FROM Booking b WHERE b.ride.driver.id = :driverId")
     Page<Booking> findBookingsForDriverRides(@Param("driverId") Long driverId, Pageable pageable);
 
+    /**
+     * Bookings for rides created by a driver, as BookingResponse projections
+     */
+    @Query(value = RESPONSE_SELECT + "WHERE b.ride.driver.id = :driverId",
+            countQuery = "SELECT COUNT(b) FROM Booking b WHERE b.ride.driver.id = :driverId")
+    Page<BookingResponse> findResponsesForDriverRides(@Param("driverId") Long driverId, Pageable pageable);
+
+    /**
+     * Count-free variant of findResponsesForDriverRides
+     */
+    @Query(RESPONSE_SELECT + "WHERE b.ride.driver.id = :driverId")
+    Slice<BookingResponse> findResponseSliceForDriverRides(@Param("driverId") Long driverId, Pageable pageable);
+
+    /**
+     * Stream all bookings for rides created by a driver, oldest first, for export
+     * Must be consumed inside a transaction and closed; the passenger comes in the same row
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT b FROM Booking b JOIN FETCH b.passenger WHERE b.ride.driver.id = :driverId ORDER BY b.id")
+    Stream<Booking> streamForDriverRides(@Param("driverId") Long driverId);
+
+    /**
+     * Stream all bookings of a passenger, oldest first, for export
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT b FROM Booking b JOIN FETCH b.passenger p WHERE p.id = :passengerId ORDER BY b.id")
+    Stream<Booking> streamByPassengerId(@Param("passengerId") Long passengerId);
+
     /**
      * Count confirmed bookings for a ride
      */
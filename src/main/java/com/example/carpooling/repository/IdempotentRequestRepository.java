@@ -0,0 +1,57 @@
+package com.carpooling.repository;
+
+import com.carpooling.entity.IdempotentRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface IdempotentRequestRepository extends JpaRepository<IdempotentRequest, String> {
+
+    /**
+     * Store the response of a claimed key and restart its time to live
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotentRequest r SET r.responseStatus = :status, r.contentType = :contentType, " +
+           "r.responseBody = :body, r.expiresAt = :expiresAt WHERE r.key = :key")
+    int complete(@Param("key") String key,
+                 @Param("status") int status,
+                 @Param("contentType") String contentType,
+                 @Param("body") byte[] body,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Give up a claim that has no response yet
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotentRequest r WHERE r.key = :key AND r.responseStatus IS NULL")
+    int release(@Param("key") String key);
+
+    /**
+     * Remove one key if it has expired, so that it can be claimed again
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotentRequest r WHERE r.key = :key AND r.expiresAt <= :now")
+    int deleteIfExpired(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotentRequest r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    /**
+     * Keys closest to expiry first, for trimming the table to its maximum size
+     */
+    @Query("SELECT r.key FROM IdempotentRequest r ORDER BY r.expiresAt")
+    List<String> findKeysByExpiry(Pageable pageable);
+}
@@ -1,31 +1,74 @@
 package com.carpooling.repository;
 
+import com.carpooling.dto.response.SeatAvailabilityEvent;
 import com.carpooling.entity.Ride;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface RideRepository extends JpaRepository<Ride, Long> {
 
     /**
-     * Find available rides by source, destination, and date with pagination
+     * Route plus (rideDate, rideTime) range, in idx_route_departure column order
+     */
+    String DEPARTURE_WINDOW = "r.sourceKey = :source AND " +
+            "r.destinationKey = :destination AND " +
+            "r.rideDate BETWEEN :fromDate AND :toDate AND " +
+            "(r.rideDate > :fromDate OR r.rideTime >= :fromTime) AND " +
+            "(r.rideDate < :toDate OR r.rideTime <= :toTime) AND " +
+            "r.availableSeats > 0";
+
+    /**
+     * Find available rides by source, destination, and departure window with pagination
      * Available rides = those with available_seats > 0
+     * The window runs from (fromDate, fromTime) to (toDate, toTime) inclusive and may span
+     * two dates when it crosses midnight (see DepartureWindow)
+     * Source and destination must already be normalized (see Ride.normalizeLocation)
+     * so the predicate is a range scan over idx_route_departure, with the time bounds
+     * checked on the index entries
+     * The driver is fetched in the same statement (RideResponse reads its username)
      */
-    @Query("SELECT r FROM Ride r WHERE " +
-            "LOWER(r.source) = LOWER(:source) AND " +
-            "LOWER(r.destination) = LOWER(:destination) AND " +
-            "r.rideDate = :rideDate AND " +
-            "r.availableSeats > 0")
+    @Query(value = "SELECT r FROM Ride r JOIN FETCH r.driver WHERE " + DEPARTURE_WINDOW,
+            countQuery = "SELECT COUNT(r) FROM Ride r WHERE " + DEPARTURE_WINDOW)
     Page<Ride> findAvailableRides(
             @Param("source") String source,
             @Param("destination") String destination,
-            @Param("rideDate") LocalDate rideDate,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("fromTime") LocalTime fromTime,
+            @Param("toDate") LocalDate toDate,
+            @Param("toTime") LocalTime toTime,
+            Pageable pageable
+    );
+
+    /**
+     * Count-free variant of findAvailableRides
+     * Fetches one extra row to learn whether a next page exists
+     */
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE " + DEPARTURE_WINDOW)
+    Slice<Ride> findAvailableRidesAsSlice(
+            @Param("source") String source,
+            @Param("destination") String destination,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("fromTime") LocalTime fromTime,
+            @Param("toDate") LocalDate toDate,
+            @Param("toTime") LocalTime toTime,
             Pageable pageable
     );
 
@@ -37,7 +80,150 @@ public interface RideRepository extends JpaRepository<Ride, Long> {
     /**
      * Find rides by driver with pagination
      */
+    @EntityGraph(attributePaths = "driver")
     Page<Ride> findByDriverId(Long driverId, Pageable pageable);
 
-/**
- * Find rides fo
+    /**
+     * Count-free variant of findByDriverId
+     */
+    @EntityGraph(attributePaths = "driver")
+    Slice<Ride> findSliceByDriverId(Long driverId, Pageable pageable);
+
+    /**
+     * Keyset pagination over a driver's rides, newest first
+     * Seeks on (driver_id, id) through idx_driver_id, so page depth does not matter
+     */
+    @EntityGraph(attributePaths = "driver")
+    List<Ride> findByDriverIdOrderByIdDesc(Long driverId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "driver")
+    List<Ride> findByDriverIdAndIdLessThanOrderByIdDesc(Long driverId, Long id, Pageable pageable);
+
+    /**
+     * Stream all rides of a driver, oldest first, for export
+     * Must be consumed inside a transaction and closed
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = BookingRepository.EXPORT_FETCH_SIZE))
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver d WHERE d.id = :driverId ORDER BY r.id")
+    Stream<Ride> streamByDriverId(@Param("driverId") Long driverId);
+
+    /**
+     * Find a ride together with its driver
+     */
+    @EntityGraph(attributePaths = "driver")
+    Optional<Ride> findWithDriverById(Long rideId);
+
+    /**
+     * Take one seat in a single guarded UPDATE
+     * Returns 1 if a seat was taken, 0 if the ride was already full
+     */
+    @Modifying
+    @Query("UPDATE Ride r SET r.availableSeats = r.availableSeats - 1, " +
+            "r.version = r.version + 1, r.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE r.id = :rideId AND r.availableSeats > 0")
+    int decrementAvailableSeats(@Param("rideId") Long rideId);
+
+    /**
+     * Return one seat in a single guarded UPDATE
+     * Returns 1 if a seat was returned, 0 if the ride was already at capacity
+     */
+    @Modifying
+    @Query("UPDATE Ride r SET r.availableSeats = r.availableSeats + 1, " +
+            "r.version = r.version + 1, r.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE r.id = :rideId AND r.availableSeats < r.totalSeats")
+    int incrementAvailableSeats(@Param("rideId") Long rideId);
+
+    /**
+     * Take several seats at once; all or nothing
+     * Returns 1 if the seats were taken, 0 if fewer were available
+     */
+    @Modifying
+    @Query("UPDATE Ride r SET r.availableSeats = r.availableSeats - :seats, " +
+            "r.version = r.version + 1, r.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE r.id = :rideId AND r.availableSeats >= :seats")
+    int takeSeats(@Param("rideId") Long rideId, @Param("seats") int seats);
+
+    /**
+     * Return several seats at once, never exceeding total seats
+     * Returns 1 if the seats were returned, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE Ride r SET r.availableSeats = r.availableSeats + :seats, " +
+            "r.version = r.version + 1, r.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE r.id = :rideId AND r.availableSeats + :seats <= r.totalSeats")
+    int returnSeats(@Param("rideId") Long rideId, @Param("seats") int seats);
+
+    /**
+     * Read the current seat count straight from the database
+     * Used after a guarded UPDATE, which bypasses the persistence context
+     */
+    @Query("SELECT r.availableSeats FROM Ride r WHERE r.id = :rideId")
+    int findAvailableSeatsById(@Param("rideId") Long rideId);
+
+    /**
+     * Current seat counts of several rides; unknown ids are left out
+     */
+    @Query("SELECT new com.carpooling.dto.response.SeatAvailabilityEvent(r.id, r.availableSeats) " +
+            "FROM Ride r WHERE r.id IN :rideIds")
+    List<SeatAvailabilityEvent> findSeatAvailabilityByIdIn(@Param("rideIds") Collection<Long> rideIds);
+
+    /**
+     * Find all available rides for one route and date, driver fetched eagerly
+     * Used to load a single key into the ride availability index
+     * Source and destination must already be normalized
+     */
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE " +
+            "r.sourceKey = :source AND " +
+            "r.destinationKey = :destination AND " +
+            "r.rideDate = :rideDate AND " +
+            "r.availableSeats > 0")
+    List<Ride> findAllAvailableRides(
+            @Param("source") String source,
+            @Param("destination") String destination,
+            @Param("rideDate") LocalDate rideDate
+    );
+
+    /**
+     * Find all available rides on one date, driver fetched eagerly
+     * Used to build the connection planner's graph for that date
+     */
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE " +
+            "r.rideDate = :rideDate AND " +
+            "r.availableSeats > 0")
+    List<Ride> findAllAvailableRidesOn(@Param("rideDate") LocalDate rideDate);
+
+    /**
+     * Highest ride id in use, 0 when there are no rides
+     */
+    @Query("SELECT COALESCE(MAX(r.id), 0) FROM Ride r")
+    long findMaxId();
+
+    /**
+     * Rides after a given id whose location keys were never filled in, oldest first
+     * Rows written before source_key/destination_key existed hold empty keys (see RideLocationKeyBackfill)
+     */
+    @Query("SELECT r FROM Ride r WHERE r.id > :afterId AND " +
+            "(r.sourceKey IS NULL OR r.sourceKey = '' OR r.destinationKey IS NULL OR r.destinationKey = '') " +
+            "ORDER BY r.id")
+    List<Ride> findWithoutLocationKeys(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Store the location keys of one ride without touching its version
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Ride r SET r.sourceKey = :sourceKey, r.destinationKey = :destinationKey WHERE r.id = :rideId")
+    int updateLocationKeys(@Param("rideId") Long rideId,
+                           @Param("sourceKey") String sourceKey,
+                           @Param("destinationKey") String destinationKey);
+
+    /**
+     * Find all rides with available seats from a given date onwards, driver fetched eagerly
+     * Used to rebuild the ride availability index on startup
+     */
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE " +
+            "r.rideDate >= :fromDate AND " +
+            "r.availableSeats > 0")
+    List<Ride> findAllAvailableRidesFrom(@Param("fromDate") LocalDate fromDate);
+}
+
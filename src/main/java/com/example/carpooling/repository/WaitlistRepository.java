@@ -0,0 +1,42 @@
+package com.carpooling.repository;
+
+import com.carpooling.entity.WaitlistEntry;
+import com.carpooling.waitlist.WaitlistSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    boolean existsByRideIdAndPassengerId(Long rideId, Long passengerId);
+
+    Optional<WaitlistEntry> findByRideIdAndPassengerId(Long rideId, Long passengerId);
+
+    /**
+     * A passenger's entries with their rides, for listing
+     */
+    @Query("SELECT w FROM WaitlistEntry w JOIN FETCH w.ride WHERE w.passenger.id = :passengerId ORDER BY w.id")
+    List<WaitlistEntry> findByPassengerIdWithRide(@Param("passengerId") Long passengerId);
+
+    /**
+     * Entries of rides from a date onwards, in queue order
+     * Used to rebuild the in-memory waitlist
+     */
+    @Query("SELECT new com.carpooling.waitlist.WaitlistSlot(w.id, w.ride.id, w.passenger.id) " +
+            "FROM WaitlistEntry w WHERE w.ride.rideDate >= :fromDate ORDER BY w.id")
+    List<WaitlistSlot> findSlotsFrom(@Param("fromDate") LocalDate fromDate);
+
+    /**
+     * Remove an entry; returns 0 if it was already removed
+     */
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.id = :id")
+    int deleteEntry(@Param("id") Long id);
+}
@@ -0,0 +1,59 @@
+package com.carpooling.schema;
+
+import com.carpooling.entity.Ride;
+import com.carpooling.repository.RideRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * One-time fill of rides.source_key and destination_key for rows written before those columns existed
+ *
+ * ddl-auto=update adds the NOT NULL columns with empty values, which no search matches. The
+ * backfill runs once all beans exist and before the web server starts and the availability
+ * index is built, so those rides are searchable from the first request. Once every row has
+ * its keys it costs one query per startup.
+ */
+@Component
+public class RideLocationKeyBackfill implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(RideLocationKeyBackfill.class);
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final RideRepository rideRepository;
+
+    public RideLocationKeyBackfill(RideRepository rideRepository) {
+        this.rideRepository = rideRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int filled = backfill();
+        if (filled > 0) {
+            log.info("Filled in location keys of {} rides", filled);
+        }
+    }
+
+    /**
+     * Fill in the keys of every ride that lacks them; returns how many rides were updated
+     */
+    public int backfill() {
+        int filled = 0;
+        long afterId = 0;
+        List<Ride> chunk;
+        do {
+            chunk = rideRepository.findWithoutLocationKeys(afterId, PageRequest.of(0, CHUNK_SIZE));
+            for (Ride ride : chunk) {
+                filled += rideRepository.updateLocationKeys(ride.getId(),
+                        Ride.normalizeLocation(ride.getSource()), Ride.normalizeLocation(ride.getDestination()));
+                afterId = ride.getId();
+            }
+        } while (chunk.size() == CHUNK_SIZE);
+        return filled;
+    }
+}
@@ -0,0 +1,69 @@
+package com.carpooling.schema;
+
+import com.carpooling.entity.Ride;
+import com.carpooling.repository.RideRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.sequence.SequenceSupport;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Keeps the rides_seq id generator ahead of every ride id already in use
+ *
+ * Ride ids used to come from IDENTITY. On an existing database ddl-auto=update creates
+ * rides_seq starting at 1, so without this guard new rides would be handed ids that are
+ * taken. The pooled generator hands out the block of ID_ALLOCATION_SIZE ids ending at
+ * the value it reads, so the next value must be at least MAX(id) + ID_ALLOCATION_SIZE.
+ * Runs once all beans exist and before the web server starts, when nothing has drawn
+ * from the generator yet. It only ever moves the generator forward.
+ * - MySQL has no sequences: rides_seq is a table whose next_val row is raised in place
+ * - databases with sequences: one value is drawn and the sequence restarted if it is behind
+ */
+@Component
+public class RideSequenceGuard implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(RideSequenceGuard.class);
+
+    private final RideRepository rideRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceSupport sequenceSupport;
+
+    public RideSequenceGuard(RideRepository rideRepository, DataSource dataSource,
+                             EntityManagerFactory entityManagerFactory) {
+        this.rideRepository = rideRepository;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.sequenceSupport = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (advance()) {
+            log.info("Moved {} past existing ride ids", Ride.ID_SEQUENCE);
+        }
+    }
+
+    /**
+     * Move the generator past the highest ride id; returns whether it had to move
+     */
+    public boolean advance() {
+        long required = rideRepository.findMaxId() + Ride.ID_ALLOCATION_SIZE;
+
+        if (!sequenceSupport.supportsSequences()) {
+            return jdbcTemplate.update("UPDATE " + Ride.ID_SEQUENCE + " SET next_val = ? WHERE next_val < ?",
+                    required, required) > 0;
+        }
+        Long next = jdbcTemplate.queryForObject(sequenceSupport.getSequenceNextValString(Ride.ID_SEQUENCE), Long.class);
+        if (next != null && next >= required) {
+            return false;
+        }
+        jdbcTemplate.execute(sequenceSupport.getRestartSequenceString(Ride.ID_SEQUENCE, required));
+        return true;
+    }
+}
@@ -0,0 +1,306 @@
+package com.carpooling.search;
+
+import com.carpooling.datasource.ReadYourWrites;
+import com.carpooling.dto.request.ConnectionSearchRequest;
+import com.carpooling.dto.response.ItineraryResponse;
+import com.carpooling.dto.response.RideResponse;
+import com.carpooling.entity.Ride;
+import com.carpooling.repository.RideRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Plans itineraries of up to three rides (two transfers) departing on one date
+ *
+ * Each date gets a time-expanded graph: a ride is an arc from a departure event at its
+ * source to an arrival event at its destination, and the departures at each location are
+ * kept sorted by time, so waiting for a later ride is a walk along that location's tail.
+ * A graph is built from the database the first time its date is planned and afterwards
+ * updated in place by RideAvailabilityIndex, so it only ever holds rides with seats.
+ * A ride without a duration is assumed to take the configured default.
+ */
+@Component
+public class ConnectionPlanner {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPlanner.class);
+
+    private static final Comparator<Leg> DEPARTURE_ORDER =
+            Comparator.comparing(Leg::departure).thenComparing(Leg::rideId);
+
+    private static final Comparator<Itinerary> BY_ARRIVAL =
+            Comparator.comparing(Itinerary::arrival)
+                    .thenComparingDouble(Itinerary::price)
+                    .thenComparingInt(itinerary -> itinerary.legs().size())
+                    .thenComparing(Itinerary::rideIds);
+
+    private static final Comparator<Itinerary> BY_PRICE =
+            Comparator.comparingDouble(Itinerary::price)
+                    .thenComparing(Itinerary::arrival)
+                    .thenComparingInt(itinerary -> itinerary.legs().size())
+                    .thenComparing(Itinerary::rideIds);
+
+    private final RideRepository rideRepository;
+    private final Duration minConnection;
+    private final Duration defaultRideDuration;
+
+    private final ConcurrentMap<LocalDate, DayGraph> graphs = new ConcurrentHashMap<>();
+
+    public ConnectionPlanner(RideRepository rideRepository,
+                             @Value("${carpooling.planner.min-connection:15m}") Duration minConnection,
+                             @Value("${carpooling.planner.default-ride-duration:2h}") Duration defaultRideDuration) {
+        this.rideRepository = rideRepository;
+        this.minConnection = minConnection;
+        this.defaultRideDuration = defaultRideDuration;
+    }
+
+    /**
+     * Best itineraries from source to destination, at most limit of them
+     * Every leg has the requested seats free and departs at least the minimum connection
+     * time after the previous leg arrives
+     */
+    public List<ItineraryResponse> plan(ConnectionSearchRequest request, int limit) {
+        String origin = Ride.normalizeLocation(request.getSource());
+        String target = Ride.normalizeLocation(request.getDestination());
+        LocalTime earliest = request.getEarliestDeparture() != null ? request.getEarliestDeparture() : LocalTime.MIN;
+        int seats = request.getSeats();
+        int maxTransfers = request.getMaxTransfers();
+
+        Comparator<Itinerary> order = request.getSortBy() == ConnectionSearchRequest.SortBy.PRICE
+                ? BY_PRICE : BY_ARRIVAL;
+        // Worst kept itinerary at the head, so it is the one dropped when the queue overflows
+        PriorityQueue<Itinerary> best = new PriorityQueue<>(order.reversed());
+
+        DayGraph graph = graph(request.getRideDate());
+        for (Leg first : graph.departures(origin, request.getRideDate().atTime(earliest))) {
+            if (first.availableSeats() < seats) {
+                continue;
+            }
+            if (first.destination().equals(target)) {
+                offer(best, order, limit, List.of(first));
+                continue;
+            }
+            if (maxTransfers < 1 || first.destination().equals(origin)) {
+                continue;
+            }
+
+            LocalDateTime firstTransfer = first.arrival().plus(minConnection);
+            // Without a second transfer only rides straight to the target matter
+            NavigableSet<Leg> onwards = maxTransfers < 2
+                    ? graph.departures(first.destination(), target, firstTransfer)
+                    : graph.departures(first.destination(), firstTransfer);
+            for (Leg second : onwards) {
+                if (second.availableSeats() < seats) {
+                    continue;
+                }
+                if (second.destination().equals(target)) {
+                    offer(best, order, limit, List.of(first, second));
+                    continue;
+                }
+                if (second.destination().equals(origin) || second.destination().equals(first.destination())) {
+                    continue;
+                }
+                for (Leg third : graph.departures(second.destination(), target, second.arrival().plus(minConnection))) {
+                    if (third.availableSeats() >= seats) {
+                        offer(best, order, limit, List.of(first, second, third));
+                    }
+                }
+            }
+        }
+
+        List<Itinerary> ranked = new ArrayList<>(best);
+        ranked.sort(order);
+        List<ItineraryResponse> results = new ArrayList<>(ranked.size());
+        for (Itinerary itinerary : ranked) {
+            results.add(itinerary.toResponse());
+        }
+        return results;
+    }
+
+    /**
+     * Drop all cached graphs (used when the ride indexes are rebuilt)
+     */
+    void clear() {
+        graphs.clear();
+    }
+
+    /**
+     * Drop the graphs of dates before the given one
+     */
+    void evictBefore(LocalDate date) {
+        graphs.keySet().removeIf(graphDate -> graphDate.isBefore(date));
+    }
+
+    /**
+     * Add or update a ride in the graph of its date, if that graph is cached
+     */
+    void put(RideResponse ride) {
+        DayGraph graph = graphs.get(ride.getRideDate());
+        if (graph != null) {
+            graph.put(toLeg(ride));
+        }
+    }
+
+    void remove(Long rideId) {
+        for (DayGraph graph : graphs.values()) {
+            graph.remove(rideId);
+        }
+    }
+
+    private DayGraph graph(LocalDate rideDate) {
+        DayGraph graph = graphs.get(rideDate);
+        if (graph != null) {
+            return graph;
+        }
+        // Graphs of past dates are never planned again
+        graphs.keySet().removeIf(date -> date.isBefore(LocalDate.now()));
+
+        DayGraph loaded = new DayGraph();
+        // Primary: the graph is only corrected by later writes, so it must not start from replica lag
+        List<Ride> rides = ReadYourWrites.onPrimary(() -> rideRepository.findAllAvailableRidesOn(rideDate));
+        for (Ride ride : rides) {
+            loaded.put(toLeg(new RideResponse(ride)));
+        }
+        DayGraph existing = graphs.putIfAbsent(rideDate, loaded);
+        if (existing != null) {
+            return existing;
+        }
+        log.debug("Connection graph for {} built from {} rides", rideDate, rides.size());
+        return loaded;
+    }
+
+    private Leg toLeg(RideResponse ride) {
+        LocalDateTime departure = ride.getRideDate().atTime(ride.getRideTime());
+        Duration duration = ride.getDurationMinutes() != null
+                ? Duration.ofMinutes(ride.getDurationMinutes())
+                : defaultRideDuration;
+        return new Leg(ride.getId(), Ride.normalizeLocation(ride.getSource()),
+                Ride.normalizeLocation(ride.getDestination()), departure, departure.plus(duration),
+                ride.getAvailableSeats(), ride.getPricePerSeat(), ride);
+    }
+
+    private static void offer(PriorityQueue<Itinerary> best, Comparator<Itinerary> order, int limit, List<Leg> legs) {
+        Itinerary itinerary = Itinerary.of(legs);
+        if (best.size() < limit) {
+            best.add(itinerary);
+        } else if (order.compare(itinerary, best.peek()) < 0) {
+            best.poll();
+            best.add(itinerary);
+        }
+    }
+
+    /**
+     * Time-expanded graph of one date
+     * Departures are indexed by source location and by (source, destination) route
+     */
+    private static final class DayGraph {
+
+        private final ConcurrentMap<Long, Leg> byId = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, ConcurrentSkipListSet<Leg>> bySource = new ConcurrentHashMap<>();
+        private final ConcurrentMap<RouteKey, ConcurrentSkipListSet<Leg>> byRoute = new ConcurrentHashMap<>();
+
+        void put(Leg leg) {
+            byId.compute(leg.rideId(), (id, previous) -> {
+                if (previous != null) {
+                    unlink(previous);
+                }
+                bySource.computeIfAbsent(leg.source(), key -> new ConcurrentSkipListSet<>(DEPARTURE_ORDER)).add(leg);
+                byRoute.computeIfAbsent(new RouteKey(leg.source(), leg.destination()),
+                        key -> new ConcurrentSkipListSet<>(DEPARTURE_ORDER)).add(leg);
+                return leg;
+            });
+        }
+
+        void remove(Long rideId) {
+            byId.computeIfPresent(rideId, (id, previous) -> {
+                unlink(previous);
+                return null;
+            });
+        }
+
+        /**
+         * All departures from a location at or after a time, earliest first
+         */
+        NavigableSet<Leg> departures(String source, LocalDateTime notBefore) {
+            return tail(bySource.get(source), notBefore);
+        }
+
+        /**
+         * Departures on one route at or after a time, earliest first
+         */
+        NavigableSet<Leg> departures(String source, String destination, LocalDateTime notBefore) {
+            return tail(byRoute.get(new RouteKey(source, destination)), notBefore);
+        }
+
+        private void unlink(Leg leg) {
+            ConcurrentSkipListSet<Leg> fromSource = bySource.get(leg.source());
+            if (fromSource != null) {
+                fromSource.remove(leg);
+            }
+            ConcurrentSkipListSet<Leg> onRoute = byRoute.get(new RouteKey(leg.source(), leg.destination()));
+            if (onRoute != null) {
+                onRoute.remove(leg);
+            }
+        }
+
+        private static NavigableSet<Leg> tail(ConcurrentSkipListSet<Leg> legs, LocalDateTime notBefore) {
+            if (legs == null) {
+                return Collections.emptyNavigableSet();
+            }
+            return legs.tailSet(Leg.probe(notBefore), true);
+        }
+    }
+
+    private record RouteKey(String source, String destination) {
+    }
+
+    /**
+     * One ride as an arc of the time-expanded graph
+     */
+    private record Leg(Long rideId, String source, String destination, LocalDateTime departure,
+                       LocalDateTime arrival, int availableSeats, double price, RideResponse ride) {
+
+        /**
+         * Sorts before every real leg departing at the same time
+         */
+        static Leg probe(LocalDateTime departure) {
+            return new Leg(Long.MIN_VALUE, null, null, departure, departure, 0, 0, null);
+        }
+    }
+
+    private record Itinerary(List<Leg> legs, LocalDateTime arrival, double price, String rideIds) {
+
+        static Itinerary of(List<Leg> legs) {
+            double price = 0;
+            StringBuilder rideIds = new StringBuilder();
+            for (Leg leg : legs) {
+                price += leg.price();
+                rideIds.append(leg.rideId()).append(',');
+            }
+            return new Itinerary(legs, legs.get(legs.size() - 1).arrival(), price, rideIds.toString());
+        }
+
+        ItineraryResponse toResponse() {
+            List<RideResponse> rides = new ArrayList<>(legs.size());
+            for (Leg leg : legs) {
+                rides.add(leg.ride());
+            }
+            return new ItineraryResponse(rides, legs.get(0).departure(), arrival, price);
+        }
+    }
+}
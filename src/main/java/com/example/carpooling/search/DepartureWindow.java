@@ -0,0 +1,51 @@
+package com.carpooling.search;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Inclusive range of departures, from one (date, time) to another
+ *
+ * Built from a ride date plus optional earliest/latest times. A latest time before the
+ * earliest time means the window crosses midnight and ends on the following day.
+ */
+public record DepartureWindow(LocalDateTime from, LocalDateTime to) {
+
+    /**
+     * Last departure of a day; ride times are stored to the second, and LocalTime.MAX
+     * would round over to midnight when bound to a TIME column
+     */
+    public static final LocalTime END_OF_DAY = LocalTime.of(23, 59, 59);
+
+    public static DepartureWindow of(LocalDate rideDate, LocalTime earliest, LocalTime latest) {
+        LocalTime start = earliest != null ? earliest : LocalTime.MIN;
+        LocalTime end = latest != null ? latest : END_OF_DAY;
+        LocalDate endDate = end.isBefore(start) ? rideDate.plusDays(1) : rideDate;
+        return new DepartureWindow(rideDate.atTime(start), endDate.atTime(end));
+    }
+
+    /**
+     * The ride dates the window touches, in order (one, or two when it crosses midnight)
+     */
+    public List<LocalDate> dates() {
+        LocalDate first = from.toLocalDate();
+        LocalDate last = to.toLocalDate();
+        return first.equals(last) ? List.of(first) : List.of(first, last);
+    }
+
+    /**
+     * Earliest departure time within the window on the given date
+     */
+    public LocalTime startOn(LocalDate date) {
+        return date.equals(from.toLocalDate()) ? from.toLocalTime() : LocalTime.MIN;
+    }
+
+    /**
+     * Latest departure time within the window on the given date
+     */
+    public LocalTime endOn(LocalDate date) {
+        return date.equals(to.toLocalDate()) ? to.toLocalTime() : END_OF_DAY;
+    }
+}
@@ -0,0 +1,446 @@
+package com.carpooling.search;
+
+import com.carpooling.datasource.ReadYourWrites;
+import com.carpooling.dto.response.RideResponse;
+import com.carpooling.entity.Ride;
+import com.carpooling.pagination.SeekCursor;
+import com.carpooling.repository.RideRepository;
+import com.carpooling.transaction.AfterCommit;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of available rides keyed by (source, destination, rideDate)
+ *
+ * Only rides with availableSeats > 0 are held. Entries are ordered by rideTime, then id,
+ * so pages served from the index are stable and a departure window is a sub-range of one
+ * or two route-days. Route-days are loaded from the database on first search and then
+ * kept up to date by the write paths that change seats:
+ * - changes to a route-day that is not loaded are skipped; its first search reads them
+ * - changes that arrive while a route-day loads, or while the whole index is rebuilt, are
+ *   replayed on top of what was read, so a snapshot read before a commit never wins
+ * - route-days without rides are not kept, so searches of arbitrary routes and dates do
+ *   not grow the index; searching them again reads the database
+ * - route-days of past dates are evicted daily
+ * Every change is mirrored into the RideGeoIndex for nearby search and into the
+ * ConnectionPlanner's cached graphs.
+ * The number of route-days held is published as carpooling.search.index.route.days.
+ */
+@Component
+public class RideAvailabilityIndex implements MeterBinder {
+
+    public static final String ROUTE_DAYS_NAME = "carpooling.search.index.route.days";
+
+    private static final Logger log = LoggerFactory.getLogger(RideAvailabilityIndex.class);
+
+    private static final Comparator<RideSlot> SLOT_ORDER =
+            Comparator.comparing(RideSlot::rideTime).thenComparing(RideSlot::rideId);
+
+    private final RideRepository rideRepository;
+    private final RideGeoIndex rideGeoIndex;
+    private final ConnectionPlanner connectionPlanner;
+
+    private volatile ConcurrentMap<RouteKey, RouteDay> routes = new ConcurrentHashMap<>();
+
+    // Changes are applied under the read lock; a rebuild swaps the index under the write lock
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    // Changes applied while a rebuild reads the database, replayed onto the rebuilt index
+    private Queue<Change> rebuildLog;
+
+    public RideAvailabilityIndex(RideRepository rideRepository, RideGeoIndex rideGeoIndex,
+                                 ConnectionPlanner connectionPlanner) {
+        this.rideRepository = rideRepository;
+        this.rideGeoIndex = rideGeoIndex;
+        this.connectionPlanner = connectionPlanner;
+    }
+
+    /**
+     * Rebuild the index from all rides with available seats from today onwards
+     * Reads the primary: the index is only corrected by later writes, so it must not start from replica lag
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        Queue<Change> changes = new ConcurrentLinkedQueue<>();
+        setRebuildLog(changes);
+        try {
+            ConcurrentMap<RouteKey, RouteDay> rebuilt = new ConcurrentHashMap<>();
+            List<Ride> rides = ReadYourWrites.onPrimary(() -> rideRepository.findAllAvailableRidesFrom(LocalDate.now()));
+            for (Ride ride : rides) {
+                rebuilt.computeIfAbsent(RouteKey.of(ride), key -> new RouteDay(true))
+                        .write(RideSlot.of(ride), new RideResponse(ride));
+            }
+
+            rebuildLock.writeLock().lock();
+            try {
+                this.routes = rebuilt;
+                rideGeoIndex.replaceAll(rebuilt.values().stream().flatMap(day -> day.rides.values().stream()).toList());
+                connectionPlanner.clear();
+                for (Change change : changes) {
+                    applyTo(rebuilt, change);
+                }
+            } finally {
+                rebuildLock.writeLock().unlock();
+            }
+            log.info("Ride availability index rebuilt: {} rides across {} routes, {} changes replayed",
+                    rides.size(), rebuilt.size(), changes.size());
+        } finally {
+            setRebuildLog(null);
+        }
+    }
+
+    private void setRebuildLog(Queue<Change> changes) {
+        rebuildLock.writeLock().lock();
+        try {
+            rebuildLog = changes;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop the route-days of past dates, which are never searched again
+     */
+    @Scheduled(cron = "${carpooling.search.index.evict-cron:0 5 0 * * *}")
+    public void evictPastDates() {
+        evictBefore(LocalDate.now());
+    }
+
+    void evictBefore(LocalDate date) {
+        int before = routes.size();
+        routes.keySet().removeIf(key -> key.rideDate().isBefore(date));
+        rideGeoIndex.evictBefore(date);
+        connectionPlanner.evictBefore(date);
+        log.debug("Evicted {} route-days before {}", before - routes.size(), date);
+    }
+
+    /**
+     * Search available rides for a route departing within a window, ordered by departure
+     * Falls back to the database only for route-days that are not yet indexed.
+     * The total is free for whole days; for a partial window it costs a walk of the
+     * window, and only when the page is full.
+     */
+    public Page<RideResponse> search(String source, String destination, DepartureWindow window, Pageable pageable) {
+        List<Segment> segments = segments(source, destination, window);
+        return PageableExecutionUtils.getPage(collect(segments, pageable).content(), pageable,
+                () -> segments.stream().mapToLong(Segment::count).sum());
+    }
+
+    /**
+     * Count-free variant of search
+     */
+    public Slice<RideResponse> searchSlice(String source, String destination, DepartureWindow window,
+                                           Pageable pageable) {
+        Collected collected = collect(segments(source, destination, window), pageable);
+        return new SliceImpl<>(collected.content(), pageable, collected.hasNext());
+    }
+
+    /**
+     * Keyset variant of search: rides ordered after the given cursor position
+     * Returns at most limit rides; a null cursor starts from the earliest departure.
+     * A cursor without a ride date is taken to be on the window's first date.
+     */
+    public List<RideResponse> seek(String source, String destination, DepartureWindow window,
+                                   SeekCursor after, int limit) {
+        LocalDate cursorDate = after == null ? null
+                : Objects.requireNonNullElse(after.getRideDate(), window.from().toLocalDate());
+
+        List<RideResponse> content = new ArrayList<>(Math.min(limit, 64));
+        for (LocalDate date : window.dates()) {
+            if (cursorDate != null && date.isBefore(cursorDate)) {
+                continue;
+            }
+            NavigableMap<RideSlot, RideResponse> rides = segment(source, destination, window, date).rides();
+            if (date.equals(cursorDate)) {
+                rides = rides.tailMap(new RideSlot(after.getRideTime(), after.getId()), false);
+            }
+            Iterator<RideResponse> iterator = rides.values().iterator();
+            while (iterator.hasNext() && content.size() < limit) {
+                content.add(iterator.next());
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Apply the current seat count of a ride to the index
+     * Inside a transaction the change is applied after commit, so rolled back writes are never visible
+     */
+    public void refresh(Ride ride) {
+        refresh(ride, ride.getAvailableSeats());
+    }
+
+    /**
+     * Apply a seat count that was changed in the database without touching the Ride entity
+     * (e.g. by a conditional UPDATE)
+     */
+    public void refresh(Ride ride, int availableSeats) {
+        Change change = new Change(RouteKey.of(ride), RideSlot.of(ride),
+                availableSeats > 0 ? snapshot(ride, availableSeats) : null);
+        AfterCommit.run(() -> apply(change));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(ROUTE_DAYS_NAME, this, RideAvailabilityIndex::getRouteDayCount)
+                .description("Route-days held in the search index, loaded or loading")
+                .register(registry);
+    }
+
+    /**
+     * Number of route-days held, loaded or loading
+     */
+    public int getRouteDayCount() {
+        return routes.size();
+    }
+
+    private static RideResponse snapshot(Ride ride, int availableSeats) {
+        RideResponse snapshot = new RideResponse(ride);
+        snapshot.setAvailableSeats(availableSeats);
+        snapshot.setBookedSeats(ride.getTotalSeats() - availableSeats);
+        return snapshot;
+    }
+
+    private void apply(Change change) {
+        rebuildLock.readLock().lock();
+        try {
+            Queue<Change> changes = rebuildLog;
+            if (changes != null) {
+                changes.add(change);
+            }
+            applyTo(routes, change);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private void applyTo(ConcurrentMap<RouteKey, RouteDay> target, Change change) {
+        RouteDay day = target.get(change.key());
+        if (day != null) {
+            day.apply(change);
+            if (day.isLoaded() && day.size() == 0) {
+                target.remove(change.key(), day);
+            }
+        }
+        if (change.snapshot() == null) {
+            rideGeoIndex.remove(change.slot().rideId());
+            connectionPlanner.remove(change.slot().rideId());
+        } else {
+            rideGeoIndex.put(change.snapshot());
+            connectionPlanner.put(change.snapshot());
+        }
+    }
+
+    /**
+     * The loaded route-day for the key
+     * The first search of a key loads it; searches that find it still loading read the
+     * database for themselves instead of waiting. A route-day found empty is dropped
+     * again, which is safe because a key that is not held is always read from the database.
+     */
+    private RouteDay routeDay(RouteKey key) {
+        ConcurrentMap<RouteKey, RouteDay> current = routes;
+        RouteDay day = current.get(key);
+        if (day != null && day.isLoaded()) {
+            return day;
+        }
+        if (day == null) {
+            RouteDay loading = new RouteDay(false);
+            if (current.putIfAbsent(key, loading) == null) {
+                try {
+                    loading.finishLoading(findAvailableRides(key));
+                } catch (RuntimeException e) {
+                    current.remove(key, loading);
+                    throw e;
+                }
+                if (loading.size() == 0) {
+                    current.remove(key, loading);
+                }
+                return loading;
+            }
+        }
+        RouteDay uncached = new RouteDay(true);
+        for (Ride ride : findAvailableRides(key)) {
+            uncached.write(RideSlot.of(ride), new RideResponse(ride));
+        }
+        return uncached;
+    }
+
+    private List<Ride> findAvailableRides(RouteKey key) {
+        // Primary when this is the transaction's first statement (connections are fetched lazily)
+        return ReadYourWrites.onPrimary(() ->
+                rideRepository.findAllAvailableRides(key.source(), key.destination(), key.rideDate()));
+    }
+
+    private List<Segment> segments(String source, String destination, DepartureWindow window) {
+        List<Segment> segments = new ArrayList<>(2);
+        for (LocalDate date : window.dates()) {
+            segments.add(segment(source, destination, window, date));
+        }
+        return segments;
+    }
+
+    /**
+     * The part of one route-day that falls within the window
+     */
+    private Segment segment(String source, String destination, DepartureWindow window, LocalDate date) {
+        RouteDay day = routeDay(RouteKey.of(source, destination, date));
+        if (window.startOn(date).equals(LocalTime.MIN) && window.endOn(date).equals(DepartureWindow.END_OF_DAY)) {
+            return new Segment(day.rides, day);
+        }
+        return new Segment(day.rides.subMap(new RideSlot(window.startOn(date), Long.MIN_VALUE), true,
+                new RideSlot(window.endOn(date), Long.MAX_VALUE), true), null);
+    }
+
+    private static Collected collect(List<Segment> segments, Pageable pageable) {
+        List<RideResponse> content = new ArrayList<>(pageable.getPageSize());
+        long skipped = 0;
+        for (Segment segment : segments) {
+            Iterator<RideResponse> iterator = segment.rides().values().iterator();
+            while (iterator.hasNext() && skipped < pageable.getOffset()) {
+                iterator.next();
+                skipped++;
+            }
+            while (iterator.hasNext() && content.size() < pageable.getPageSize()) {
+                content.add(iterator.next());
+            }
+            if (content.size() == pageable.getPageSize()) {
+                boolean hasNext = iterator.hasNext() || segments.subList(segments.indexOf(segment) + 1, segments.size())
+                        .stream().anyMatch(next -> !next.rides().isEmpty());
+                return new Collected(content, hasNext);
+            }
+        }
+        return new Collected(content, false);
+    }
+
+    /**
+     * Rides of one route-day
+     * A route-day starts out loading: changes that arrive before its database read is in
+     * are queued and replayed on top of it.
+     */
+    private static final class RouteDay {
+
+        private final ConcurrentSkipListMap<RideSlot, RideResponse> rides = new ConcurrentSkipListMap<>(SLOT_ORDER);
+        // ConcurrentSkipListMap.size() walks the map
+        private final AtomicInteger size = new AtomicInteger();
+        private volatile boolean loaded;
+        // Guarded by this; null once loaded
+        private List<Change> pending;
+
+        RouteDay(boolean loaded) {
+            this.loaded = loaded;
+            this.pending = loaded ? null : new ArrayList<>();
+        }
+
+        boolean isLoaded() {
+            return loaded;
+        }
+
+        int size() {
+            return size.get();
+        }
+
+        void apply(Change change) {
+            synchronized (this) {
+                if (pending != null) {
+                    pending.add(change);
+                    return;
+                }
+            }
+            write(change.slot(), change.snapshot());
+        }
+
+        synchronized void finishLoading(List<Ride> loadedRides) {
+            for (Ride ride : loadedRides) {
+                write(RideSlot.of(ride), new RideResponse(ride));
+            }
+            for (Change change : pending) {
+                write(change.slot(), change.snapshot());
+            }
+            pending = null;
+            loaded = true;
+        }
+
+        void write(RideSlot slot, RideResponse snapshot) {
+            if (snapshot == null) {
+                if (rides.remove(slot) != null) {
+                    size.decrementAndGet();
+                }
+            } else if (rides.put(slot, snapshot) == null) {
+                size.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * A window of one route-day; day is set when the window covers the whole day
+     */
+    private record Segment(NavigableMap<RideSlot, RideResponse> rides, RouteDay day) {
+
+        long count() {
+            return day != null ? day.size() : rides.size();
+        }
+    }
+
+    private record Collected(List<RideResponse> content, boolean hasNext) {
+    }
+
+    /**
+     * New state of one ride: its snapshot, or null when it no longer has seats
+     */
+    private record Change(RouteKey key, RideSlot slot, RideResponse snapshot) {
+    }
+
+    /**
+     * Index key: normalized route plus date
+     */
+    private record RouteKey(String source, String destination, LocalDate rideDate) {
+
+        static RouteKey of(String source, String destination, LocalDate rideDate) {
+            return new RouteKey(Ride.normalizeLocation(source), Ride.normalizeLocation(destination), rideDate);
+        }
+
+        static RouteKey of(Ride ride) {
+            return new RouteKey(ride.getSourceKey(), ride.getDestinationKey(), ride.getRideDate());
+        }
+    }
+
+    /**
+     * Position of a ride within its route, ordered by departure time
+     */
+    private record RideSlot(LocalTime rideTime, Long rideId) {
+
+        static RideSlot of(Ride ride) {
+            return new RideSlot(ride.getRideTime(), Objects.requireNonNull(ride.getId()));
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.carpooling.search;
+
+import com.carpooling.dto.response.NearbyRideResponse;
+import com.carpooling.dto.response.RideResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Uniform-grid spatial index of available rides by pickup point, per ride date
+ *
+ * Pickup points are bucketed into square cells of a fixed size in degrees. A radius
+ * query only visits the cells overlapping the query's bounding box and then filters
+ * by great-circle distance, so its cost depends on the local density of rides, not on
+ * the total number indexed. Maintained by RideAvailabilityIndex (same snapshots, same
+ * after-commit updates); rides without coordinates are not indexed.
+ * Queries do not wrap across the antimeridian.
+ * The number of rides held is published as carpooling.search.geo.rides.
+ */
+@Component
+public class RideGeoIndex implements MeterBinder {
+
+    public static final String SIZE_NAME = "carpooling.search.geo.rides";
+
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    private static final double METERS_PER_DEGREE = Math.toRadians(EARTH_RADIUS_METERS);
+
+    private static final Comparator<Candidate> BY_DISTANCE =
+            Comparator.comparingDouble(Candidate::score)
+                    .thenComparing(candidate -> candidate.ride().ride().getRideTime())
+                    .thenComparing(candidate -> candidate.ride().ride().getId());
+
+    private final double cellDegrees;
+
+    private volatile Grid grid = new Grid();
+
+    public RideGeoIndex(@Value("${carpooling.search.geo.cell-size-meters:1000}") int cellSizeMeters) {
+        if (cellSizeMeters < 1) {
+            throw new IllegalArgumentException("Cell size must be at least 1 meter");
+        }
+        this.cellDegrees = cellSizeMeters / METERS_PER_DEGREE;
+    }
+
+    /**
+     * Rides within radiusMeters of the pickup point (and of the dropoff point, if given),
+     * nearest first by total pickup + dropoff distance
+     */
+    public List<NearbyRideResponse> search(LocalDate rideDate, double pickupLatitude, double pickupLongitude,
+                                           Double dropoffLatitude, Double dropoffLongitude,
+                                           double radiusMeters, int limit) {
+
+        boolean withDropoff = dropoffLatitude != null && dropoffLongitude != null;
+        double latSpan = radiusMeters / METERS_PER_DEGREE;
+        double lonSpan = radiusMeters / (METERS_PER_DEGREE * Math.max(Math.cos(Math.toRadians(pickupLatitude)), 0.01));
+
+        int minLat = cellIndex(pickupLatitude - latSpan);
+        int maxLat = cellIndex(pickupLatitude + latSpan);
+        int minLon = cellIndex(pickupLongitude - lonSpan);
+        int maxLon = cellIndex(pickupLongitude + lonSpan);
+
+        Grid current = grid;
+        List<Candidate> candidates = new ArrayList<>();
+        for (int lat = minLat; lat <= maxLat; lat++) {
+            for (int lon = minLon; lon <= maxLon; lon++) {
+                Map<Long, GeoRide> cell = current.cells.get(new CellKey(rideDate, lat, lon));
+                if (cell == null) {
+                    continue;
+                }
+                for (GeoRide ride : cell.values()) {
+                    double pickup = distanceMeters(pickupLatitude, pickupLongitude, ride.latitude(), ride.longitude());
+                    if (pickup > radiusMeters) {
+                        continue;
+                    }
+                    double dropoff = 0;
+                    if (withDropoff) {
+                        if (ride.dropoffLatitude() == null || ride.dropoffLongitude() == null) {
+                            continue;
+                        }
+                        dropoff = distanceMeters(dropoffLatitude, dropoffLongitude,
+                                ride.dropoffLatitude(), ride.dropoffLongitude());
+                        if (dropoff > radiusMeters) {
+                            continue;
+                        }
+                    }
+                    candidates.add(new Candidate(ride, pickup, withDropoff ? dropoff : null));
+                }
+            }
+        }
+
+        candidates.sort(BY_DISTANCE);
+        List<NearbyRideResponse> results = new ArrayList<>(Math.min(limit, candidates.size()));
+        for (Candidate candidate : candidates.subList(0, Math.min(limit, candidates.size()))) {
+            results.add(new NearbyRideResponse(candidate.ride().ride(),
+                    (int) Math.round(candidate.pickupMeters()),
+                    candidate.dropoffMeters() == null ? null : (int) Math.round(candidate.dropoffMeters())));
+        }
+        return results;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(SIZE_NAME, this, RideGeoIndex::size)
+                .description("Rides held in the nearby search index")
+                .register(registry);
+    }
+
+    public int size() {
+        return grid.byId.size();
+    }
+
+    /**
+     * Replace the whole index (used on rebuild)
+     */
+    void replaceAll(Collection<RideResponse> rides) {
+        Grid rebuilt = new Grid();
+        for (RideResponse ride : rides) {
+            GeoRide geoRide = toGeoRide(ride);
+            if (geoRide != null) {
+                rebuilt.put(geoRide);
+            }
+        }
+        this.grid = rebuilt;
+    }
+
+    /**
+     * Add or move a ride; rides without pickup coordinates are removed
+     */
+    void put(RideResponse ride) {
+        GeoRide geoRide = toGeoRide(ride);
+        if (geoRide == null) {
+            grid.remove(ride.getId());
+        } else {
+            grid.put(geoRide);
+        }
+    }
+
+    void remove(Long rideId) {
+        grid.remove(rideId);
+    }
+
+    /**
+     * Drop the rides of dates before the given one
+     */
+    void evictBefore(LocalDate date) {
+        Grid current = grid;
+        for (GeoRide ride : current.byId.values()) {
+            if (ride.cell().rideDate().isBefore(date)) {
+                current.remove(ride.ride().getId());
+            }
+        }
+    }
+
+    private GeoRide toGeoRide(RideResponse ride) {
+        if (ride.getSourceLatitude() == null || ride.getSourceLongitude() == null) {
+            return null;
+        }
+        CellKey cell = new CellKey(ride.getRideDate(),
+                cellIndex(ride.getSourceLatitude()), cellIndex(ride.getSourceLongitude()));
+        return new GeoRide(ride, cell, ride.getSourceLatitude(), ride.getSourceLongitude(),
+                ride.getDestinationLatitude(), ride.getDestinationLongitude());
+    }
+
+    private int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / cellDegrees);
+    }
+
+    /**
+     * Great-circle (haversine) distance
+     */
+    static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Cells and a ride-id lookup; a ride is moved between cells atomically per ride id
+     */
+    private static final class Grid {
+
+        private final ConcurrentMap<Long, GeoRide> byId = new ConcurrentHashMap<>();
+        private final ConcurrentMap<CellKey, ConcurrentMap<Long, GeoRide>> cells = new ConcurrentHashMap<>();
+
+        void put(GeoRide ride) {
+            Long rideId = ride.ride().getId();
+            byId.compute(rideId, (id, previous) -> {
+                if (previous != null) {
+                    removeFromCell(id, previous);
+                }
+                cells.compute(ride.cell(), (cell, rides) -> {
+                    ConcurrentMap<Long, GeoRide> target = rides != null ? rides : new ConcurrentHashMap<>();
+                    target.put(id, ride);
+                    return target;
+                });
+                return ride;
+            });
+        }
+
+        void remove(Long rideId) {
+            byId.computeIfPresent(rideId, (id, previous) -> {
+                removeFromCell(id, previous);
+                return null;
+            });
+        }
+
+        private void removeFromCell(Long rideId, GeoRide ride) {
+            cells.computeIfPresent(ride.cell(), (cell, rides) -> {
+                rides.remove(rideId);
+                return rides.isEmpty() ? null : rides;
+            });
+        }
+    }
+
+    private record CellKey(LocalDate rideDate, int latIndex, int lonIndex) {
+    }
+
+    private record GeoRide(RideResponse ride, CellKey cell, double latitude, double longitude,
+                           Double dropoffLatitude, Double dropoffLongitude) {
+    }
+
+    private record Candidate(GeoRide ride, double pickupMeters, Double dropoffMeters) {
+
+        double score() {
+            return dropoffMeters == null ? pickupMeters : pickupMeters + dropoffMeters;
+        }
+    }
+}
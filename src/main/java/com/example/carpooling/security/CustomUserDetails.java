@@ -26,6 +26,16 @@ public class CustomUserDetails implements UserDetails {
         this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole()));
     }
 
+    /**
+     * Principal for a request authenticated by a signed token (no password held)
+     */
+    public CustomUserDetails(TokenService.TokenClaims claims) {
+        this.userId = claims.userId();
+        this.username = claims.username();
+        this.password = null;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + claims.role()));
+    }
+
     public Long getUserId() {
         return userId;
     }
@@ -0,0 +1,143 @@
+package com.carpooling.security;
+
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.UserRole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Issues and verifies short-lived HMAC-SHA256 signed access tokens
+ *
+ * Token format: base64url(payload) + "." + base64url(signature), where the payload is
+ * "userId|role|expiresAtEpochSecond|username". Verification only recomputes the HMAC,
+ * so authenticated requests need neither a database lookup nor a password hash.
+ * Tokens cannot be revoked before they expire; keep the TTL short.
+ */
+@Component
+public class TokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Mac prototype;
+    private final Duration ttl;
+    private final Clock clock;
+
+    @Autowired
+    public TokenService(
+            @Value("${carpooling.security.token.secret:}") String secret,
+            @Value("${carpooling.security.token.ttl:30m}") Duration ttl) {
+        this(secret, ttl, Clock.systemUTC());
+    }
+
+    TokenService(String secret, Duration ttl, Clock clock) {
+        byte[] key;
+        if (secret == null || secret.isBlank()) {
+            log.warn("carpooling.security.token.secret is not set; using a random key, tokens will not survive a restart");
+            key = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = secret.getBytes(StandardCharsets.UTF_8);
+            if (key.length < MIN_SECRET_BYTES) {
+                throw new IllegalArgumentException("Token secret must be at least " + MIN_SECRET_BYTES + " bytes");
+            }
+        }
+        try {
+            this.prototype = Mac.getInstance(ALGORITHM);
+            this.prototype.init(new SecretKeySpec(key, ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise " + ALGORITHM, e);
+        }
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * Issue a token for an authenticated user
+     */
+    public IssuedToken issue(User user) {
+        Instant expiresAt = clock.instant().plus(ttl);
+        String payload = user.getId() + "|" + user.getRole() + "|" + expiresAt.getEpochSecond() + "|" + user.getUsername();
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        String token = ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+        return new IssuedToken(token, expiresAt);
+    }
+
+    /**
+     * Verify signature and expiry of a token
+     * Returns empty for any malformed, tampered or expired token
+     */
+    public Optional<TokenClaims> verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payloadBytes = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payloadBytes), signature)) {
+                return Optional.empty();
+            }
+
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|", 4);
+            if (fields.length != 4) {
+                return Optional.empty();
+            }
+            Instant expiresAt = Instant.ofEpochSecond(Long.parseLong(fields[2]));
+            if (!clock.instant().isBefore(expiresAt)) {
+                return Optional.empty();
+            }
+            return Optional.of(new TokenClaims(
+                    Long.valueOf(fields[0]), fields[3], UserRole.valueOf(fields[1]), expiresAt));
+        } catch (IllegalArgumentException e) {
+            // Bad Base64, number or role
+            return Optional.empty();
+        }
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    private byte[] sign(byte[] payload) {
+        // Mac is not thread-safe; cloning the initialised prototype skips key setup
+        try {
+            Mac mac = (Mac) prototype.clone();
+            return mac.doFinal(payload);
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(ALGORITHM + " provider does not support clone", e);
+        }
+    }
+
+    /**
+     * A signed token and the instant it stops being accepted
+     */
+    public record IssuedToken(String token, Instant expiresAt) {
+    }
+
+    /**
+     * Claims carried by a verified token
+     */
+    public record TokenClaims(Long userId, String username, UserRole role, Instant expiresAt) {
+    }
+}
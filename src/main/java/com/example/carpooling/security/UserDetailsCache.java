@@ -0,0 +1,172 @@
+package com.carpooling.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, TTL-evicting cache of loaded user details
+ *
+ * Plugged into the DaoAuthenticationProvider, which only /auth/login goes through (other
+ * requests carry a signed token), so repeated logins do not query the users table each
+ * time. If a cached password does not match, the provider reloads the user from the
+ * database, so a stale entry can never lock a user out; registration is the only other
+ * change to users and invalidates its username.
+ * Entries are copied on the way in and out: Spring Security erases the credentials of
+ * the principal after authentication, which must not reach the cached instance.
+ * Published as the standard cache meters (cache.gets, cache.evictions, cache.size) with
+ * cache=users.
+ */
+@Component
+public class UserDetailsCache implements UserCache, MeterBinder {
+
+    private static final String CACHE_NAME = "users";
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxSize;
+    private final LongSupplier clock;
+
+    // Cache statistics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public UserDetailsCache(
+            @Value("${carpooling.security.user-cache.ttl:5m}") Duration ttl,
+            @Value("${carpooling.security.user-cache.max-size:10000}") int maxSize) {
+        this(ttl, maxSize, System::nanoTime);
+    }
+
+    UserDetailsCache(Duration ttl, int maxSize, LongSupplier clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("User cache size must be at least 1");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        String key = key(username);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(clock.getAsLong())) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copy(entry.user());
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        String key = key(user.getUsername());
+        Entry entry = new Entry(copy(user), clock.getAsLong() + ttlNanos);
+        // Refreshing a cached user never grows the cache
+        if (entries.replace(key, entry) != null) {
+            return;
+        }
+        // New keys are added one at a time, so the size check and the insert cannot interleave
+        synchronized (this) {
+            if (entries.size() >= maxSize && !entries.containsKey(key)) {
+                makeRoom();
+            }
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Invalidate a user, e.g. after it was changed
+     */
+    @Override
+    public void removeUserFromCache(String username) {
+        entries.remove(key(username));
+    }
+
+    /**
+     * Drop expired entries; if the cache is still full, drop the entry closest to expiry
+     * Only runs when a new user is added to a full cache, so the scan stays off the hit path
+     * Called with the cache's lock held
+     */
+    private void makeRoom() {
+        long now = clock.getAsLong();
+        Map.Entry<String, Entry> oldest = null;
+        for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+            if (candidate.getValue().isExpired(now)) {
+                if (entries.remove(candidate.getKey(), candidate.getValue())) {
+                    evictions.increment();
+                }
+            } else if (oldest == null || candidate.getValue().expiresAt() < oldest.getValue().expiresAt()) {
+                oldest = candidate;
+            }
+        }
+        if (entries.size() >= maxSize && oldest != null && entries.remove(oldest.getKey(), oldest.getValue())) {
+            evictions.increment();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tags("cache", CACHE_NAME, "result", "hit")
+                .description("Lookups of users in the cache")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tags("cache", CACHE_NAME, "result", "miss")
+                .description("Lookups of users in the cache")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum)
+                .tags("cache", CACHE_NAME)
+                .description("Users dropped from the cache on expiry or to make room")
+                .register(registry);
+        Gauge.builder("cache.size", entries, Map::size)
+                .tags("cache", CACHE_NAME)
+                .description("Users in the cache")
+                .register(registry);
+    }
+
+    // Usernames are matched case-insensitively by the database, so the cache does the same
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private static UserDetails copy(UserDetails user) {
+        return User.withUserDetails(user).build();
+    }
+
+    public int getSize() { return entries.size(); }
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+
+    private record Entry(UserDetails user, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package com.carpooling.service;
 
+import com.carpooling.dto.response.BookingBatchResponse;
 import com.carpooling.dto.response.BookingResponse;
+import com.carpooling.dto.response.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
 
 public interface BookingService {
     BookingResponse bookRide(Long rideId, Long passengerId);
     BookingResponse getBookingById(Long bookingId);
     Page<BookingResponse> getMyBookings(Long passengerId, Pageable pageable);
+    CursorPage<BookingResponse> getMyBookings(Long passengerId, String cursor, int size);
     Page<BookingResponse> getBookingsForMyRides(Long driverId, Pageable pageable);
+    Slice<BookingResponse> getMyBookingsSlice(Long passengerId, Pageable pageable);
+    Slice<BookingResponse> getBookingsForMyRidesSlice(Long driverId, Pageable pageable);
     BookingResponse confirmBooking(Long bookingId, Long driverId);
     BookingResponse cancelBooking(Long bookingId, Long userId);
+    BookingBatchResponse decideBookings(Long rideId, String action, List<Long> bookingIds, Long driverId);
 }
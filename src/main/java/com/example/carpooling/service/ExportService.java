@@ -0,0 +1,12 @@
+package com.carpooling.service;
+
+import com.carpooling.export.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportService {
+    long exportBookingsForMyRides(Long driverId, ExportFormat format, OutputStream out) throws IOException;
+    long exportMyBookings(Long passengerId, ExportFormat format, OutputStream out) throws IOException;
+    long exportMyRides(Long driverId, ExportFormat format, OutputStream out) throws IOException;
+}
@@ -1,14 +1,34 @@
 package com.carpooling.service;
 
+import com.carpooling.dto.request.ConnectionSearchRequest;
+import com.carpooling.dto.request.NearbyRideSearchRequest;
 import com.carpooling.dto.request.RideCreateRequest;
+import com.carpooling.dto.request.RecurringRideRequest;
 import com.carpooling.dto.request.RideSearchRequest;
+import com.carpooling.dto.response.CursorPage;
+import com.carpooling.dto.response.ItineraryResponse;
+import com.carpooling.dto.response.NearbyRideResponse;
+import com.carpooling.dto.response.RecurringRideResponse;
 import com.carpooling.dto.response.RideResponse;
+import com.carpooling.dto.response.SeatAvailabilityEvent;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface RideService {
     RideResponse createRide(RideCreateRequest request, Long driverId);
+    RecurringRideResponse createRecurringRides(RecurringRideRequest request, Long driverId);
     RideResponse getRideById(Long rideId);
+    List<SeatAvailabilityEvent> getSeatAvailability(Collection<Long> rideIds);
     Page<RideResponse> searchRides(RideSearchRequest request, Pageable pageable);
     Page<RideResponse> getMyRides(Long driverId, Pageable pageable);
+    Slice<RideResponse> searchRidesSlice(RideSearchRequest request, Pageable pageable);
+    Slice<RideResponse> getMyRidesSlice(Long driverId, Pageable pageable);
+    CursorPage<RideResponse> searchRides(RideSearchRequest request, String cursor, int size);
+    CursorPage<RideResponse> getMyRides(Long driverId, String cursor, int size);
+    List<NearbyRideResponse> searchNearbyRides(NearbyRideSearchRequest request, int size);
+    List<ItineraryResponse> planConnections(ConnectionSearchRequest request, int size);
 }
@@ -0,0 +1,13 @@
+package com.carpooling.service;
+
+import com.carpooling.dto.response.BookingResponse;
+import com.carpooling.dto.response.WaitlistResponse;
+
+import java.util.List;
+
+public interface WaitlistService {
+    WaitlistResponse joinWaitlist(Long rideId, Long passengerId);
+    void leaveWaitlist(Long rideId, Long passengerId);
+    List<WaitlistResponse> getMyWaitlist(Long passengerId);
+    List<BookingResponse> promote(Long rideId, int seats);
+}
@@ -1,40 +1,81 @@
 package com.carpooling.service.impl;
 
+import com.carpooling.dto.response.BookingBatchItemResult;
+import com.carpooling.dto.response.BookingBatchResponse;
 import com.carpooling.dto.response.BookingResponse;
+import com.carpooling.dto.response.CursorPage;
 import com.carpooling.entity.Booking;
+import com.carpooling.entity.BookingOutboxEvent;
 import com.carpooling.entity.Ride;
 import com.carpooling.entity.User;
 import com.carpooling.entity.enums.BookingStatus;
 import com.carpooling.exception.BookingException;
 import com.carpooling.exception.ResourceNotFoundException;
 import com.carpooling.exception.UnauthorizedException;
+import com.carpooling.live.SeatAvailabilityFeed;
+import com.carpooling.pagination.SeekCursor;
+import com.carpooling.repository.BookingOutboxRepository;
 import com.carpooling.repository.BookingRepository;
 import com.carpooling.repository.RideRepository;
 import com.carpooling.repository.UserRepository;
+import com.carpooling.search.RideAvailabilityIndex;
 import com.carpooling.service.BookingService;
+import com.carpooling.waitlist.SeatsReturnedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 /**
  * Business logic for booking management
  * Enforces critical rules like overbooking prevention and duplicate booking prevention
+ * Every status change is also written to the booking outbox in the same transaction,
+ * from where the OutboxRelay publishes it
  */
 @Service
 @Transactional
 public class BookingServiceImpl implements BookingService {
 
+    private static final Logger log = LoggerFactory.getLogger(BookingServiceImpl.class);
+
     private final BookingRepository bookingRepository;
     private final RideRepository rideRepository;
     private final UserRepository userRepository;
+    private final RideAvailabilityIndex rideAvailabilityIndex;
+    private final SeatAvailabilityFeed seatAvailabilityFeed;
+    private final BookingOutboxRepository outboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public BookingServiceImpl(BookingRepository bookingRepository,
                               RideRepository rideRepository,
-                              UserRepository userRepository) {
+                              UserRepository userRepository,
+                              RideAvailabilityIndex rideAvailabilityIndex,
+                              SeatAvailabilityFeed seatAvailabilityFeed,
+                              BookingOutboxRepository outboxRepository,
+                              ApplicationEventPublisher eventPublisher) {
         this.bookingRepository = bookingRepository;
         this.rideRepository = rideRepository;
         this.userRepository = userRepository;
+        this.rideAvailabilityIndex = rideAvailabilityIndex;
+        this.seatAvailabilityFeed = seatAvailabilityFeed;
+        this.outboxRepository = outboxRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -79,6 +120,7 @@ public class BookingServiceImpl implements BookingService {
         booking.setStatus(BookingStatus.REQUESTED);
 
         Booking savedBooking = bookingRepository.save(booking);
+        outboxRepository.save(new BookingOutboxEvent(savedBooking, null, BookingStatus.REQUESTED));
         return new BookingResponse(savedBooking);
     }
 
@@ -86,6 +128,7 @@ public class BookingServiceImpl implements BookingService {
      * Retrieve booking by ID
      */
     @Override
+    @Transactional(readOnly = true)
     public BookingResponse getBookingById(Long bookingId) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new ResourceNotFoundException("Booking not found with ID: " + bookingId));
@@ -96,18 +139,50 @@ public class BookingServiceImpl implements BookingService {
      * Retrieve all bookings made by a passenger
      */
     @Override
+    @Transactional(readOnly = true)
     public Page<BookingResponse> getMyBookings(Long passengerId, Pageable pageable) {
-        Page<Booking> bookings = bookingRepository.findByPassengerId(passengerId, pageable);
-        return bookings.map(BookingResponse::new);
+        return bookingRepository.findResponsesByPassengerId(passengerId, pageable);
+    }
+
+    /**
+     * Keyset variant of getMyBookings, newest booking first
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookingResponse> getMyBookings(Long passengerId, String cursor, int size) {
+        SeekCursor after = SeekCursor.decode(cursor);
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<BookingResponse> bookings = after == null
+                ? bookingRepository.findLatestResponsesByPassengerId(passengerId, limit)
+                : bookingRepository.findResponsesByPassengerIdBefore(passengerId, after.getId(), limit);
+        return CursorPage.of(bookings, size, booking -> SeekCursor.afterId(booking.getId()).encode());
     }
 
     /**
      * Retrieve all bookings for rides created by a driver
      */
     @Override
+    @Transactional(readOnly = true)
     public Page<BookingResponse> getBookingsForMyRides(Long driverId, Pageable pageable) {
-        Page<Booking> bookings = bookingRepository.findBookingsForDriverRides(driverId, pageable);
-        return bookings.map(BookingResponse::new);
+        return bookingRepository.findResponsesForDriverRides(driverId, pageable);
+    }
+
+    /**
+     * Count-free variant of getMyBookings
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<BookingResponse> getMyBookingsSlice(Long passengerId, Pageable pageable) {
+        return bookingRepository.findResponseSliceByPassengerId(passengerId, pageable);
+    }
+
+    /**
+     * Count-free variant of getBookingsForMyRides
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<BookingResponse> getBookingsForMyRidesSlice(Long driverId, Pageable pageable) {
+        return bookingRepository.findResponseSliceForDriverRides(driverId, pageable);
     }
 
     /**
@@ -116,6 +191,9 @@ public class BookingServiceImpl implements BookingService {
      * When confirmed:
      * - Booking status changes to CONFIRMED
      * - Available seats reduced by 1
+     *
+     * The seat is taken with one conditional UPDATE (available_seats > 0), so concurrent
+     * confirmations on the same ride can never oversell it
      */
     @Override
     public BookingResponse confirmBooking(Long bookingId, Long driverId) {
@@ -133,13 +211,16 @@ public class BookingServiceImpl implements BookingService {
             throw new BookingException("Only REQUESTED bookings can be confirmed");
         }
 
+        // Reduce available seats (fails if another confirmation took the last seat)
+        Ride ride = booking.getRide();
+        if (rideRepository.decrementAvailableSeats(ride.getId()) == 0) {
+            throw new BookingException("No available seats for this ride");
+        }
+        seatsChanged(ride, rideRepository.findAvailableSeatsById(ride.getId()));
+
         // Update booking status
         booking.setStatus(BookingStatus.CONFIRMED);
-
-        // Reduce available seats
-        Ride ride = booking.getRide();
-        ride.setAvailableSeats(ride.getAvailableSeats() - 1);
-        rideRepository.save(ride);
+        outboxRepository.save(new BookingOutboxEvent(booking, BookingStatus.REQUESTED, BookingStatus.CONFIRMED));
 
         Booking savedBooking = bookingRepository.save(booking);
         return new BookingResponse(savedBooking);
@@ -151,7 +232,8 @@ public class BookingServiceImpl implements BookingService {
      * Driver can cancel any booking for their ride
      * When cancelled:
      * - Booking status changes to CANCELLED
-     * - If was CONFIRMED, available seats increased by 1
+     * - If was CONFIRMED, available seats increased by 1 and, after commit, the first
+     *   waitlisted passenger is promoted (see WaitlistPromoter)
      */
     @Override
     public BookingResponse cancelBooking(Long bookingId, Long userId) {
@@ -175,14 +257,183 @@ public class BookingServiceImpl implements BookingService {
         // If booking was confirmed, return seat to available pool
         if (booking.getStatus().equals(BookingStatus.CONFIRMED)) {
             Ride ride = booking.getRide();
-            ride.setAvailableSeats(ride.getAvailableSeats() + 1);
-            rideRepository.save(ride);
+            if (rideRepository.incrementAvailableSeats(ride.getId()) == 1) {
+                seatsChanged(ride, rideRepository.findAvailableSeatsById(ride.getId()));
+                eventPublisher.publishEvent(new SeatsReturnedEvent(ride.getId(), 1));
+            } else {
+                // The ride already shows every seat free: there is no seat to return or hand to the waitlist
+                log.warn("Cancelled confirmed booking {} of ride {}, which already had all seats available",
+                        bookingId, ride.getId());
+            }
         }
 
         // Update booking status
+        outboxRepository.save(new BookingOutboxEvent(booking, booking.getStatus(), BookingStatus.CANCELLED));
         booking.setStatus(BookingStatus.CANCELLED);
         Booking savedBooking = bookingRepository.save(booking);
 
         return new BookingResponse(savedBooking);
     }
+
+    /**
+     * Confirm or reject several bookings of one ride in a single transaction
+     * Ownership is checked once, seats change with one guarded UPDATE and
+     * statuses with one bulk UPDATE. Bookings that cannot be processed are
+     * reported individually and do not fail the rest of the batch.
+     *
+     * CONFIRM: REQUESTED bookings are confirmed in the given order while seats last
+     * REJECT:  REQUESTED and CONFIRMED bookings are cancelled; confirmed seats are returned
+     */
+    @Override
+    public BookingBatchResponse decideBookings(Long rideId, String action, List<Long> bookingIds, Long driverId) {
+
+        BatchAction batchAction;
+        try {
+            batchAction = BatchAction.valueOf(action.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BookingException("Invalid action. Must be CONFIRM or REJECT");
+        }
+
+        Ride ride = rideRepository.findById(rideId)
+                .orElseThrow(() -> new ResourceNotFoundException("Ride not found with ID: " + rideId));
+
+        // Authorization check, once for the whole batch
+        if (!ride.getDriver().getId().equals(driverId)) {
+            throw new UnauthorizedException("Only the ride driver can confirm or reject its bookings");
+        }
+
+        Set<Long> requestedIds = new LinkedHashSet<>(bookingIds);
+        Map<Long, Booking> bookings = bookingRepository.findByRideIdAndIdIn(rideId, requestedIds).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+
+        Map<Long, BookingBatchItemResult> results = new LinkedHashMap<>();
+        for (Long bookingId : requestedIds) {
+            if (!bookings.containsKey(bookingId)) {
+                results.put(bookingId, BookingBatchItemResult.failed(bookingId, null, "Booking not found for this ride"));
+            }
+        }
+
+        if (batchAction == BatchAction.CONFIRM) {
+            confirmInBatch(rideId, requestedIds, bookings, results);
+        } else {
+            rejectInBatch(ride, requestedIds, bookings, results);
+        }
+
+        int availableSeats = rideRepository.findAvailableSeatsById(rideId);
+        seatsChanged(ride, availableSeats);
+
+        List<BookingBatchItemResult> ordered = requestedIds.stream().map(results::get).toList();
+        return new BookingBatchResponse(rideId, batchAction.name(), availableSeats, ordered);
+    }
+
+    private void confirmInBatch(Long rideId, Set<Long> requestedIds, Map<Long, Booking> bookings,
+                                Map<Long, BookingBatchItemResult> results) {
+        List<Long> candidates = new ArrayList<>();
+        for (Long bookingId : requestedIds) {
+            Booking booking = bookings.get(bookingId);
+            if (booking == null) {
+                continue;
+            }
+            if (booking.getStatus() != BookingStatus.REQUESTED) {
+                results.put(bookingId, BookingBatchItemResult.failed(bookingId, booking.getStatus().toString(),
+                        "Only REQUESTED bookings can be confirmed"));
+            } else {
+                candidates.add(bookingId);
+            }
+        }
+
+        int seats = rideRepository.findAvailableSeatsById(rideId);
+        List<Long> granted = candidates.subList(0, Math.min(candidates.size(), Math.max(seats, 0)));
+        for (Long bookingId : candidates.subList(granted.size(), candidates.size())) {
+            results.put(bookingId, BookingBatchItemResult.failed(bookingId, BookingStatus.REQUESTED.toString(),
+                    "No available seats for this ride"));
+        }
+        if (granted.isEmpty()) {
+            return;
+        }
+
+        // Both statements are guarded; a concurrent change rolls back and retries the whole batch
+        if (rideRepository.takeSeats(rideId, granted.size()) == 0) {
+            throw new OptimisticLockingFailureException("Seats of ride " + rideId + " changed concurrently");
+        }
+        if (bookingRepository.updateStatuses(granted, List.of(BookingStatus.REQUESTED),
+                BookingStatus.CONFIRMED) != granted.size()) {
+            throw new OptimisticLockingFailureException("Bookings of ride " + rideId + " changed concurrently");
+        }
+        for (Long bookingId : granted) {
+            results.put(bookingId, BookingBatchItemResult.succeeded(bookingId, BookingStatus.CONFIRMED.toString(),
+                    "Booking confirmed"));
+        }
+        outboxRepository.saveAll(granted.stream()
+                .map(bookingId -> new BookingOutboxEvent(bookings.get(bookingId), BookingStatus.REQUESTED,
+                        BookingStatus.CONFIRMED))
+                .toList());
+    }
+
+    private void rejectInBatch(Ride ride, Set<Long> requestedIds, Map<Long, Booking> bookings,
+                               Map<Long, BookingBatchItemResult> results) {
+        Long rideId = ride.getId();
+        List<Long> rejected = new ArrayList<>();
+        int seatsToReturn = 0;
+        for (Long bookingId : requestedIds) {
+            Booking booking = bookings.get(bookingId);
+            if (booking == null) {
+                continue;
+            }
+            if (booking.getStatus() == BookingStatus.CANCELLED) {
+                results.put(bookingId, BookingBatchItemResult.failed(bookingId, BookingStatus.CANCELLED.toString(),
+                        "Booking is already cancelled"));
+                continue;
+            }
+            if (booking.getStatus() == BookingStatus.CONFIRMED) {
+                seatsToReturn++;
+            }
+            rejected.add(bookingId);
+        }
+        if (rejected.isEmpty()) {
+            return;
+        }
+
+        if (bookingRepository.updateStatuses(rejected, List.of(BookingStatus.REQUESTED, BookingStatus.CONFIRMED),
+                BookingStatus.CANCELLED) != rejected.size()) {
+            throw new OptimisticLockingFailureException("Bookings of ride " + rideId + " changed concurrently");
+        }
+        if (seatsToReturn > 0) {
+            // Never above total seats: only the seats the ride is actually missing come back
+            int returnable = Math.min(seatsToReturn,
+                    ride.getTotalSeats() - rideRepository.findAvailableSeatsById(rideId));
+            if (returnable < seatsToReturn) {
+                log.warn("Rejected {} confirmed bookings of ride {}, which was only missing {} seats",
+                        seatsToReturn, rideId, Math.max(returnable, 0));
+            }
+            if (returnable > 0) {
+                if (rideRepository.returnSeats(rideId, returnable) == 0) {
+                    throw new OptimisticLockingFailureException("Seats of ride " + rideId + " changed concurrently");
+                }
+                eventPublisher.publishEvent(new SeatsReturnedEvent(rideId, returnable));
+            }
+        }
+        for (Long bookingId : rejected) {
+            results.put(bookingId, BookingBatchItemResult.succeeded(bookingId, BookingStatus.CANCELLED.toString(),
+                    "Booking rejected"));
+        }
+        // The loaded bookings still hold their status from before the bulk update
+        outboxRepository.saveAll(rejected.stream()
+                .map(bookingId -> new BookingOutboxEvent(bookings.get(bookingId), bookings.get(bookingId).getStatus(),
+                        BookingStatus.CANCELLED))
+                .toList());
+    }
+
+    /**
+     * Update the availability index and push the new count to live subscribers, both after commit
+     */
+    private void seatsChanged(Ride ride, int availableSeats) {
+        rideAvailabilityIndex.refresh(ride, availableSeats);
+        seatAvailabilityFeed.publish(ride.getId(), availableSeats);
+    }
+
+    private enum BatchAction {
+        CONFIRM,
+        REJECT
+    }
 }
@@ -0,0 +1,115 @@
+package com.carpooling.service.impl;
+
+import com.carpooling.dto.response.BookingResponse;
+import com.carpooling.dto.response.RideResponse;
+import com.carpooling.entity.Booking;
+import com.carpooling.entity.Ride;
+import com.carpooling.export.ExportFormat;
+import com.carpooling.export.ExportWriter;
+import com.carpooling.repository.BookingRepository;
+import com.carpooling.repository.RideRepository;
+import com.carpooling.service.ExportService;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Streaming exports of bookings and rides
+ *
+ * Rows come from a forward-only database cursor and each entity is detached as soon as
+ * its row is written, so memory use does not grow with the size of the export.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ExportServiceImpl implements ExportService {
+
+    private static final List<String> BOOKING_COLUMNS =
+            List.of("id", "rideId", "passengerId", "passengerUsername", "status", "bookedAt");
+
+    private static final List<String> RIDE_COLUMNS =
+            List.of("id", "source", "destination", "rideDate", "rideTime", "durationMinutes",
+                    "totalSeats", "availableSeats", "bookedSeats", "pricePerSeat");
+
+    private final BookingRepository bookingRepository;
+    private final RideRepository rideRepository;
+    private final EntityManager entityManager;
+    private final JsonMapper jsonMapper;
+
+    public ExportServiceImpl(BookingRepository bookingRepository,
+                             RideRepository rideRepository,
+                             EntityManager entityManager,
+                             JsonMapper jsonMapper) {
+        this.bookingRepository = bookingRepository;
+        this.rideRepository = rideRepository;
+        this.entityManager = entityManager;
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * All bookings for rides created by a driver
+     * Returns the number of rows written
+     */
+    @Override
+    public long exportBookingsForMyRides(Long driverId, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<Booking> bookings = bookingRepository.streamForDriverRides(driverId)) {
+            return writeBookings(bookings, format, out);
+        }
+    }
+
+    /**
+     * All bookings of a passenger
+     */
+    @Override
+    public long exportMyBookings(Long passengerId, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<Booking> bookings = bookingRepository.streamByPassengerId(passengerId)) {
+            return writeBookings(bookings, format, out);
+        }
+    }
+
+    /**
+     * All rides created by a driver
+     */
+    @Override
+    public long exportMyRides(Long driverId, ExportFormat format, OutputStream out) throws IOException {
+        ExportWriter<RideResponse> writer = ExportWriter.open(format, out, jsonMapper, RIDE_COLUMNS,
+                ride -> Arrays.asList(ride.getId(), ride.getSource(), ride.getDestination(), ride.getRideDate(),
+                        ride.getRideTime(), ride.getDurationMinutes(), ride.getTotalSeats(),
+                        ride.getAvailableSeats(), ride.getBookedSeats(), ride.getPricePerSeat()));
+
+        try (Stream<Ride> rides = rideRepository.streamByDriverId(driverId)) {
+            Iterator<Ride> iterator = rides.iterator();
+            while (iterator.hasNext()) {
+                Ride ride = iterator.next();
+                writer.write(new RideResponse(ride));
+                entityManager.detach(ride);
+                entityManager.detach(ride.getDriver());
+            }
+        }
+        return writer.finish();
+    }
+
+    private long writeBookings(Stream<Booking> bookings, ExportFormat format, OutputStream out) throws IOException {
+        ExportWriter<BookingResponse> writer = ExportWriter.open(format, out, jsonMapper, BOOKING_COLUMNS,
+                booking -> Arrays.asList(booking.getId(), booking.getRideId(), booking.getPassengerId(),
+                        booking.getPassengerUsername(), booking.getStatus(), booking.getBookedAt()));
+
+        Iterator<Booking> iterator = bookings.iterator();
+        while (iterator.hasNext()) {
+            Booking booking = iterator.next();
+            writer.write(new BookingResponse(booking));
+            // The ride is an uninitialized proxy (only its id is read); it is dropped as well
+            entityManager.detach(booking);
+            entityManager.detach(booking.getPassenger());
+            entityManager.detach(booking.getRide());
+        }
+        return writer.finish();
+    }
+}
@@ -0,0 +1,54 @@
+package com.carpooling.service.impl;
+
+import com.carpooling.concurrency.RideLockManager;
+import com.carpooling.dto.response.BookingResponse;
+import com.carpooling.dto.response.WaitlistResponse;
+import com.carpooling.service.WaitlistService;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * WaitlistService seen by the controllers and the WaitlistPromoter
+ * Joins take the per-ride lock before their transaction, like the booking writes that
+ * return seats. A join therefore either sees the returned seat and is refused, or commits
+ * its entry before the seat is returned, where the promotion that follows finds it.
+ */
+@Service
+@Primary
+public class LockingWaitlistService implements WaitlistService {
+
+    private final WaitlistServiceImpl delegate;
+    private final RideLockManager rideLockManager;
+
+    public LockingWaitlistService(WaitlistServiceImpl delegate, RideLockManager rideLockManager) {
+        this.delegate = delegate;
+        this.rideLockManager = rideLockManager;
+    }
+
+    @Override
+    public WaitlistResponse joinWaitlist(Long rideId, Long passengerId) {
+        return rideLockManager.withRideLock(rideId, () -> delegate.joinWaitlist(rideId, passengerId));
+    }
+
+    // Leaving needs no lock: promotion skips entries that are already gone
+
+    @Override
+    public void leaveWaitlist(Long rideId, Long passengerId) {
+        delegate.leaveWaitlist(rideId, passengerId);
+    }
+
+    @Override
+    public List<WaitlistResponse> getMyWaitlist(Long passengerId) {
+        return delegate.getMyWaitlist(passengerId);
+    }
+
+    /**
+     * Callers already hold the ride lock
+     */
+    @Override
+    public List<BookingResponse> promote(Long rideId, int seats) {
+        return delegate.promote(rideId, seats);
+    }
+}
@@ -0,0 +1,108 @@
+package com.carpooling.service.impl;
+
+import com.carpooling.concurrency.OptimisticLockRetry;
+import com.carpooling.concurrency.RideLockManager;
+import com.carpooling.dto.response.BookingBatchResponse;
+import com.carpooling.dto.response.BookingResponse;
+import com.carpooling.dto.response.CursorPage;
+import com.carpooling.exception.ResourceNotFoundException;
+import com.carpooling.repository.BookingRepository;
+import com.carpooling.service.BookingService;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * BookingService seen by the controllers
+ * Wraps the write methods of BookingServiceImpl in:
+ * 1. the per-ride lock, taken before any transaction or pooled connection
+ * 2. an optimistic lock retry; each attempt goes through the transactional proxy,
+ *    so a retry is a fresh transaction
+ */
+@Service
+@Primary
+public class RetryingBookingService implements BookingService {
+
+    private final BookingServiceImpl delegate;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final RideLockManager rideLockManager;
+    private final BookingRepository bookingRepository;
+
+    public RetryingBookingService(BookingServiceImpl delegate,
+                                  OptimisticLockRetry optimisticLockRetry,
+                                  RideLockManager rideLockManager,
+                                  BookingRepository bookingRepository) {
+        this.delegate = delegate;
+        this.optimisticLockRetry = optimisticLockRetry;
+        this.rideLockManager = rideLockManager;
+        this.bookingRepository = bookingRepository;
+    }
+
+    @Override
+    public BookingResponse bookRide(Long rideId, Long passengerId) {
+        return rideLockManager.withRideLock(rideId, () ->
+                optimisticLockRetry.execute(() -> delegate.bookRide(rideId, passengerId)));
+    }
+
+    @Override
+    public BookingResponse confirmBooking(Long bookingId, Long driverId) {
+        return rideLockManager.withRideLock(rideIdOf(bookingId), () ->
+                optimisticLockRetry.execute(() -> delegate.confirmBooking(bookingId, driverId)));
+    }
+
+    @Override
+    public BookingResponse cancelBooking(Long bookingId, Long userId) {
+        return rideLockManager.withRideLock(rideIdOf(bookingId), () ->
+                optimisticLockRetry.execute(() -> delegate.cancelBooking(bookingId, userId)));
+    }
+
+    @Override
+    public BookingBatchResponse decideBookings(Long rideId, String action, List<Long> bookingIds, Long driverId) {
+        return rideLockManager.withRideLock(rideId, () ->
+                optimisticLockRetry.execute(() -> delegate.decideBookings(rideId, action, bookingIds, driverId)));
+    }
+
+    /**
+     * A booking never moves to another ride, so this short read is safe to do before locking
+     */
+    private Long rideIdOf(Long bookingId) {
+        return bookingRepository.findRideIdById(bookingId)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking not found with ID: " + bookingId));
+    }
+
+    // Read methods are passed straight through
+
+    @Override
+    public BookingResponse getBookingById(Long bookingId) {
+        return delegate.getBookingById(bookingId);
+    }
+
+    @Override
+    public Page<BookingResponse> getMyBookings(Long passengerId, Pageable pageable) {
+        return delegate.getMyBookings(passengerId, pageable);
+    }
+
+    @Override
+    public CursorPage<BookingResponse> getMyBookings(Long passengerId, String cursor, int size) {
+        return delegate.getMyBookings(passengerId, cursor, size);
+    }
+
+    @Override
+    public Page<BookingResponse> getBookingsForMyRides(Long driverId, Pageable pageable) {
+        return delegate.getBookingsForMyRides(driverId, pageable);
+    }
+
+    @Override
+    public Slice<BookingResponse> getMyBookingsSlice(Long passengerId, Pageable pageable) {
+        return delegate.getMyBookingsSlice(passengerId, pageable);
+    }
+
+    @Override
+    public Slice<BookingResponse> getBookingsForMyRidesSlice(Long driverId, Pageable pageable) {
+        return delegate.getBookingsForMyRidesSlice(driverId, pageable);
+    }
+}
@@ -1,19 +1,49 @@
 package com.carpooling.service.impl;
 
+import com.carpooling.datasource.ReadYourWrites;
+import com.carpooling.dto.request.ConnectionSearchRequest;
+import com.carpooling.dto.request.NearbyRideSearchRequest;
 import com.carpooling.dto.request.RideCreateRequest;
+import com.carpooling.dto.request.RecurringRideRequest;
 import com.carpooling.dto.request.RideSearchRequest;
+import com.carpooling.dto.response.CursorPage;
+import com.carpooling.dto.response.ItineraryResponse;
+import com.carpooling.dto.response.NearbyRideResponse;
+import com.carpooling.dto.response.RecurringRideResponse;
 import com.carpooling.dto.response.RideResponse;
+import com.carpooling.dto.response.SeatAvailabilityEvent;
 import com.carpooling.entity.Ride;
 import com.carpooling.entity.User;
+import com.carpooling.exception.BookingException;
+import com.carpooling.exception.InvalidCursorException;
 import com.carpooling.exception.ResourceNotFoundException;
+import com.carpooling.pagination.SeekCursor;
 import com.carpooling.repository.RideRepository;
 import com.carpooling.repository.UserRepository;
+import com.carpooling.search.ConnectionPlanner;
+import com.carpooling.search.DepartureWindow;
+import com.carpooling.search.RideAvailabilityIndex;
+import com.carpooling.search.RideGeoIndex;
 import com.carpooling.service.RideService;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * Business logic for ride management
  */
@@ -23,10 +53,29 @@ public class RideServiceImpl implements RideService {
 
     private final RideRepository rideRepository;
     private final UserRepository userRepository;
+    private final RideAvailabilityIndex rideAvailabilityIndex;
+    private final RideGeoIndex rideGeoIndex;
+    private final ConnectionPlanner connectionPlanner;
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    // Longest date range a single recurring request may span
+    private static final long MAX_RECURRING_DAYS = 366;
 
-    public RideServiceImpl(RideRepository rideRepository, UserRepository userRepository) {
+    public RideServiceImpl(RideRepository rideRepository,
+                           UserRepository userRepository,
+                           RideAvailabilityIndex rideAvailabilityIndex,
+                           RideGeoIndex rideGeoIndex,
+                           ConnectionPlanner connectionPlanner,
+                           EntityManager entityManager,
+                           @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
         this.rideRepository = rideRepository;
         this.userRepository = userRepository;
+        this.rideAvailabilityIndex = rideAvailabilityIndex;
+        this.rideGeoIndex = rideGeoIndex;
+        this.connectionPlanner = connectionPlanner;
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
     }
 
     /**
@@ -47,35 +96,148 @@ public class RideServiceImpl implements RideService {
         ride.setDestination(request.getDestination());
         ride.setRideDate(request.getRideDate());
         ride.setRideTime(request.getRideTime());
+        ride.setDurationMinutes(request.getDurationMinutes());
         ride.setTotalSeats(request.getTotalSeats());
         ride.setAvailableSeats(request.getTotalSeats()); // Initially all seats available
         ride.setPricePerSeat(request.getPricePerSeat());
+        setCoordinates(ride, request.getSourceLatitude(), request.getSourceLongitude(),
+                request.getDestinationLatitude(), request.getDestinationLongitude());
 
         Ride savedRide = rideRepository.save(ride);
+        rideAvailabilityIndex.refresh(savedRide);
         return new RideResponse(savedRide);
     }
 
+    /**
+     * Create one ride per matching date in [startDate, endDate]
+     * Rides are flushed in chunks of the JDBC batch size, so Hibernate sends them as
+     * batched INSERTs, and the persistence context is cleared between chunks
+     */
+    @Override
+    public RecurringRideResponse createRecurringRides(RecurringRideRequest request, Long driverId) {
+
+        if (request.getEndDate().isBefore(request.getStartDate())) {
+            throw new BookingException("End date must not be before start date");
+        }
+        if (ChronoUnit.DAYS.between(request.getStartDate(), request.getEndDate()) >= MAX_RECURRING_DAYS) {
+            throw new BookingException("Recurring rides can span at most " + MAX_RECURRING_DAYS + " days");
+        }
+
+        User driver = userRepository.findById(driverId)
+                .orElseThrow(() -> new ResourceNotFoundException("Driver not found with ID: " + driverId));
+
+        Set<DayOfWeek> days = request.getDaysOfWeek() == null || request.getDaysOfWeek().isEmpty()
+                ? EnumSet.allOf(DayOfWeek.class)
+                : EnumSet.copyOf(request.getDaysOfWeek());
+
+        List<LocalDate> dates = request.getStartDate()
+                .datesUntil(request.getEndDate().plusDays(1))
+                .filter(date -> days.contains(date.getDayOfWeek()))
+                .toList();
+        if (dates.isEmpty()) {
+            throw new BookingException("No dates in the range match the selected days of week");
+        }
+
+        List<Long> rideIds = new ArrayList<>(dates.size());
+        List<Ride> chunk = new ArrayList<>(batchSize);
+        for (LocalDate date : dates) {
+            Ride ride = new Ride();
+            ride.setDriver(driver);
+            ride.setSource(request.getSource());
+            ride.setDestination(request.getDestination());
+            ride.setRideDate(date);
+            ride.setRideTime(request.getRideTime());
+            ride.setDurationMinutes(request.getDurationMinutes());
+            ride.setTotalSeats(request.getTotalSeats());
+            ride.setAvailableSeats(request.getTotalSeats());
+            ride.setPricePerSeat(request.getPricePerSeat());
+            setCoordinates(ride, request.getSourceLatitude(), request.getSourceLongitude(),
+                    request.getDestinationLatitude(), request.getDestinationLongitude());
+            chunk.add(ride);
+
+            if (chunk.size() == batchSize) {
+                flushChunk(chunk, rideIds);
+            }
+        }
+        flushChunk(chunk, rideIds);
+
+        return new RecurringRideResponse(dates.get(0), dates.get(dates.size() - 1), rideIds);
+    }
+
+    private static void setCoordinates(Ride ride, Double sourceLatitude, Double sourceLongitude,
+                                       Double destinationLatitude, Double destinationLongitude) {
+        ride.setSourceLatitude(sourceLatitude);
+        ride.setSourceLongitude(sourceLongitude);
+        ride.setDestinationLatitude(destinationLatitude);
+        ride.setDestinationLongitude(destinationLongitude);
+    }
+
+    private static DepartureWindow departureWindow(RideSearchRequest request) {
+        return DepartureWindow.of(request.getRideDate(), request.getEarliestDeparture(), request.getLatestDeparture());
+    }
+
+    private void flushChunk(List<Ride> chunk, List<Long> rideIds) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        rideRepository.saveAll(chunk);
+        entityManager.flush();
+        for (Ride ride : chunk) {
+            rideIds.add(ride.getId());
+            rideAvailabilityIndex.refresh(ride);
+        }
+        entityManager.clear();
+        chunk.clear();
+    }
+
     /**
      * Retrieve ride by ID
      */
     @Override
+    @Transactional(readOnly = true)
     public RideResponse getRideById(Long rideId) {
-        Ride ride = rideRepository.findById(rideId)
+        Ride ride = rideRepository.findWithDriverById(rideId)
                 .orElseThrow(() -> new ResourceNotFoundException("Ride not found with ID: " + rideId));
         return new RideResponse(ride);
     }
 
     /**
-     * Search rides by source, destination, and date
+     * Current seat counts of the given rides, for the first events of a seat availability stream
+     * Reads the primary, so the stream does not start from replica lag
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<SeatAvailabilityEvent> getSeatAvailability(Collection<Long> rideIds) {
+        // Primary when this is the transaction's first statement (connections are fetched lazily)
+        return ReadYourWrites.onPrimary(() -> rideRepository.findSeatAvailabilityByIdIn(rideIds));
+    }
+
+    /**
+     * Search rides by source, destination, date and optional departure window
      * Returns only rides with available seats (availableSeats > 0)
-     * Supports pagination
+     * Supports pagination; unsorted pages are ordered by departure
+     * Served from the in-memory availability index; custom sort orders go to the database
      */
     @Override
+    @Transactional(readOnly = true)
     public Page<RideResponse> searchRides(RideSearchRequest request, Pageable pageable) {
+        DepartureWindow window = departureWindow(request);
+        if (pageable.getSort().isUnsorted()) {
+            return rideAvailabilityIndex.search(
+                    request.getSource(),
+                    request.getDestination(),
+                    window,
+                    pageable
+            );
+        }
+
         Page<Ride> rides = rideRepository.findAvailableRides(
-                request.getSource(),
-                request.getDestination(),
-                request.getRideDate(),
+                Ride.normalizeLocation(request.getSource()),
+                Ride.normalizeLocation(request.getDestination()),
+                window.from().toLocalDate(),
+                window.from().toLocalTime(),
+                window.to().toLocalDate(),
+                window.to().toLocalTime(),
                 pageable
         );
         return rides.map(RideResponse::new);
@@ -85,8 +247,114 @@ public class RideServiceImpl implements RideService {
      * Retrieve all rides created by a specific driver
      */
     @Override
+    @Transactional(readOnly = true)
     public Page<RideResponse> getMyRides(Long driverId, Pageable pageable) {
         Page<Ride> rides = rideRepository.findByDriverId(driverId, pageable);
         return rides.map(RideResponse::new);
     }
+
+    /**
+     * Count-free variant of searchRides
+     * Neither the availability index nor the database path counts the matching rides
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<RideResponse> searchRidesSlice(RideSearchRequest request, Pageable pageable) {
+        DepartureWindow window = departureWindow(request);
+        if (pageable.getSort().isUnsorted()) {
+            return rideAvailabilityIndex.searchSlice(
+                    request.getSource(),
+                    request.getDestination(),
+                    window,
+                    pageable
+            );
+        }
+
+        Slice<Ride> rides = rideRepository.findAvailableRidesAsSlice(
+                Ride.normalizeLocation(request.getSource()),
+                Ride.normalizeLocation(request.getDestination()),
+                window.from().toLocalDate(),
+                window.from().toLocalTime(),
+                window.to().toLocalDate(),
+                window.to().toLocalTime(),
+                pageable
+        );
+        return rides.map(RideResponse::new);
+    }
+
+    /**
+     * Count-free variant of getMyRides
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<RideResponse> getMyRidesSlice(Long driverId, Pageable pageable) {
+        Slice<Ride> rides = rideRepository.findSliceByDriverId(driverId, pageable);
+        return rides.map(RideResponse::new);
+    }
+
+    /**
+     * Keyset variant of searchRides, ordered by departure date and time then id
+     * Seeks directly to the cursor position in the availability index
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<RideResponse> searchRides(RideSearchRequest request, String cursor, int size) {
+        SeekCursor after = SeekCursor.decode(cursor);
+        if (after != null && after.getRideTime() == null) {
+            throw new InvalidCursorException("Cursor does not belong to a ride search");
+        }
+
+        List<RideResponse> rides = rideAvailabilityIndex.seek(
+                request.getSource(),
+                request.getDestination(),
+                departureWindow(request),
+                after,
+                size + 1
+        );
+        return CursorPage.of(rides, size,
+                ride -> SeekCursor.after(ride.getRideDate(), ride.getRideTime(), ride.getId()).encode());
+    }
+
+    /**
+     * Keyset variant of getMyRides, newest ride first
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<RideResponse> getMyRides(Long driverId, String cursor, int size) {
+        SeekCursor after = SeekCursor.decode(cursor);
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<Ride> rides = after == null
+                ? rideRepository.findByDriverIdOrderByIdDesc(driverId, limit)
+                : rideRepository.findByDriverIdAndIdLessThanOrderByIdDesc(driverId, after.getId(), limit);
+        return CursorPage.of(rides.stream().map(RideResponse::new).toList(), size,
+                ride -> SeekCursor.afterId(ride.getId()).encode());
+    }
+
+    /**
+     * Rides whose pickup (and optionally dropoff) point is within the requested radius,
+     * nearest first; served from the in-memory grid index without touching the database
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<NearbyRideResponse> searchNearbyRides(NearbyRideSearchRequest request, int size) {
+        return rideGeoIndex.search(
+                request.getRideDate(),
+                request.getPickupLatitude(),
+                request.getPickupLongitude(),
+                request.getDropoffLatitude(),
+                request.getDropoffLongitude(),
+                request.getRadiusMeters(),
+                size
+        );
+    }
+
+    /**
+     * Itineraries of up to three rides from source to destination on one date
+     * Ranked by arrival time or by total price per seat
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItineraryResponse> planConnections(ConnectionSearchRequest request, int size) {
+        return connectionPlanner.plan(request, size);
+    }
 }
@@ -7,6 +7,7 @@ import com.carpooling.entity.enums.UserRole;
 import com.carpooling.exception.BookingException;
 import com.carpooling.exception.ResourceNotFoundException;
 import com.carpooling.repository.UserRepository;
+import com.carpooling.security.UserDetailsCache;
 import com.carpooling.service.UserService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -21,10 +22,13 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserDetailsCache userDetailsCache;
 
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                           UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userDetailsCache = userDetailsCache;
     }
 
     /**
@@ -60,6 +64,8 @@ public class UserServiceImpl implements UserService {
         user.setRole(role);
 
         User savedUser = userRepository.save(user);
+        // Drop anything cached under this username so authentication sees the new user
+        userDetailsCache.removeUserFromCache(savedUser.getUsername());
         return new UserResponse(savedUser);
     }
 
@@ -67,6 +73,7 @@ public class UserServiceImpl implements UserService {
      * Retrieve user by ID
      */
     @Override
+    @Transactional(readOnly = true)
     public UserResponse getUserById(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with ID: " + userId));
@@ -75,6 +82,7 @@ public class UserServiceImpl implements UserService {
 
     /**
      * Retrieve user by username (used by Spring Security)
+     * Not read-only: login runs right after registration and must not hit a lagging replica
      */
     @Override
     public User getUserByUsername(String username) {
@@ -0,0 +1,157 @@
+package com.carpooling.service.impl;
+
+import com.carpooling.dto.response.BookingResponse;
+import com.carpooling.dto.response.WaitlistResponse;
+import com.carpooling.entity.Booking;
+import com.carpooling.entity.BookingOutboxEvent;
+import com.carpooling.entity.Ride;
+import com.carpooling.entity.User;
+import com.carpooling.entity.WaitlistEntry;
+import com.carpooling.entity.enums.BookingStatus;
+import com.carpooling.exception.BookingException;
+import com.carpooling.exception.ResourceNotFoundException;
+import com.carpooling.repository.BookingOutboxRepository;
+import com.carpooling.repository.BookingRepository;
+import com.carpooling.repository.RideRepository;
+import com.carpooling.repository.UserRepository;
+import com.carpooling.repository.WaitlistRepository;
+import com.carpooling.service.WaitlistService;
+import com.carpooling.waitlist.RideWaitlist;
+import com.carpooling.waitlist.WaitlistSlot;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Waitlists for full rides
+ * Passengers queue once instead of retrying a full ride; when confirmed seats are given
+ * back, the WaitlistPromoter turns the front of the queue into REQUESTED bookings, which
+ * the driver confirms as usual.
+ */
+@Service
+@Transactional
+public class WaitlistServiceImpl implements WaitlistService {
+
+    private final WaitlistRepository waitlistRepository;
+    private final RideRepository rideRepository;
+    private final UserRepository userRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingOutboxRepository outboxRepository;
+    private final RideWaitlist rideWaitlist;
+
+    public WaitlistServiceImpl(WaitlistRepository waitlistRepository,
+                               RideRepository rideRepository,
+                               UserRepository userRepository,
+                               BookingRepository bookingRepository,
+                               BookingOutboxRepository outboxRepository,
+                               RideWaitlist rideWaitlist) {
+        this.waitlistRepository = waitlistRepository;
+        this.rideRepository = rideRepository;
+        this.userRepository = userRepository;
+        this.bookingRepository = bookingRepository;
+        this.outboxRepository = outboxRepository;
+        this.rideWaitlist = rideWaitlist;
+    }
+
+    /**
+     * Join the waitlist of a full ride
+     * The same rules as booking apply (not the driver, not already booked), and only
+     * rides without available seats can be joined
+     */
+    @Override
+    public WaitlistResponse joinWaitlist(Long rideId, Long passengerId) {
+
+        Ride ride = rideRepository.findById(rideId)
+                .orElseThrow(() -> new ResourceNotFoundException("Ride not found with ID: " + rideId));
+
+        User passenger = userRepository.findById(passengerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Passenger not found with ID: " + passengerId));
+
+        if (ride.getDriver().getId().equals(passengerId)) {
+            throw new BookingException("Driver cannot join the waitlist of their own ride");
+        }
+        if (bookingRepository.findByRideIdAndPassengerId(rideId, passengerId).isPresent()) {
+            throw new BookingException("Passenger has already booked this ride");
+        }
+        if (waitlistRepository.existsByRideIdAndPassengerId(rideId, passengerId)) {
+            throw new BookingException("Passenger is already on the waitlist for this ride");
+        }
+        if (ride.getAvailableSeats() > 0) {
+            throw new BookingException("Ride has available seats; book it directly");
+        }
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setRide(ride);
+        entry.setPassenger(passenger);
+        WaitlistEntry savedEntry = waitlistRepository.save(entry);
+        rideWaitlist.add(WaitlistSlot.of(savedEntry));
+
+        // The queue changes after commit; the new entry goes to the back
+        int waiting = rideWaitlist.size(rideId) + 1;
+        return new WaitlistResponse(savedEntry, waiting, waiting);
+    }
+
+    @Override
+    public void leaveWaitlist(Long rideId, Long passengerId) {
+        WaitlistEntry entry = waitlistRepository.findByRideIdAndPassengerId(rideId, passengerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Not on the waitlist for ride with ID: " + rideId));
+        waitlistRepository.delete(entry);
+        rideWaitlist.remove(WaitlistSlot.of(entry));
+    }
+
+    /**
+     * Waitlists the passenger is on, with current positions
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<WaitlistResponse> getMyWaitlist(Long passengerId) {
+        return waitlistRepository.findByPassengerIdWithRide(passengerId).stream()
+                .map(entry -> new WaitlistResponse(entry, rideWaitlist.position(WaitlistSlot.of(entry)),
+                        rideWaitlist.size(entry.getRide().getId())))
+                .toList();
+    }
+
+    /**
+     * Turn waiting passengers into REQUESTED bookings, front of the queue first, one per
+     * returned seat that is still available
+     * Callers hold the ride lock. Entries whose passenger has booked the ride in the
+     * meantime are dropped without using a seat.
+     * Like any booking request, a promoted one does not hold the seat: the seat is taken
+     * when the driver confirms, so a direct booking confirmed first can still take it and
+     * the promoted request is then refused on confirm.
+     */
+    @Override
+    public List<BookingResponse> promote(Long rideId, int seats) {
+        Ride ride = rideRepository.findById(rideId).orElse(null);
+        if (ride == null) {
+            return List.of();
+        }
+        int toPromote = Math.min(seats, rideRepository.findAvailableSeatsById(rideId));
+
+        List<BookingResponse> promoted = new ArrayList<>();
+        for (WaitlistSlot slot : rideWaitlist.queue(rideId)) {
+            if (promoted.size() >= toPromote) {
+                break;
+            }
+            rideWaitlist.remove(slot);
+            // Already gone: the passenger left in the meantime
+            if (waitlistRepository.deleteEntry(slot.entryId()) == 0) {
+                continue;
+            }
+            if (bookingRepository.findByRideIdAndPassengerId(rideId, slot.passengerId()).isPresent()) {
+                continue;
+            }
+
+            Booking booking = new Booking();
+            booking.setRide(ride);
+            booking.setPassenger(userRepository.getReferenceById(slot.passengerId()));
+            booking.setStatus(BookingStatus.REQUESTED);
+            Booking savedBooking = bookingRepository.save(booking);
+            outboxRepository.save(new BookingOutboxEvent(savedBooking, null, BookingStatus.REQUESTED));
+            promoted.add(new BookingResponse(savedBooking));
+        }
+        return promoted;
+    }
+}
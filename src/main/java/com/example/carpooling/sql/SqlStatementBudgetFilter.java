@@ -0,0 +1,90 @@
+package com.carpooling.sql;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Production guard against N+1 regressions
+ *
+ * Counts the SQL statements of a random sample of requests and logs those that issue more
+ * than the budget, with the fingerprint and repeat count of each statement. Requests that
+ * are not sampled only pay for the random draw.
+ * Its counts are published as carpooling.sql.guard.sampled and .over.budget.
+ */
+@Component
+public class SqlStatementBudgetFilter extends OncePerRequestFilter implements MeterBinder {
+
+    public static final String SAMPLED_NAME = "carpooling.sql.guard.sampled";
+    public static final String OVER_BUDGET_NAME = "carpooling.sql.guard.over.budget";
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatementBudgetFilter.class);
+
+    private final double sampleRate;
+    private final int statementBudget;
+
+    // Guard statistics
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder overBudget = new LongAdder();
+
+    public SqlStatementBudgetFilter(
+            @Value("${carpooling.sql.guard.sample-rate:0.01}") double sampleRate,
+            @Value("${carpooling.sql.guard.statement-budget:25}") int statementBudget) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("SQL guard sample rate must be between 0 and 1");
+        }
+        this.sampleRate = sampleRate;
+        this.statementBudget = statementBudget;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return sampleRate == 0;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        if (ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        sampled.increment();
+        try (StatementRecording recording = SqlStatementCounter.start()) {
+            filterChain.doFilter(request, response);
+
+            if (recording.getCount() > statementBudget) {
+                overBudget.increment();
+                log.warn("{} {} issued {} SQL statements (budget {}):\n{}", request.getMethod(),
+                        request.getRequestURI(), recording.getCount(), statementBudget, recording.describe());
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(SAMPLED_NAME, sampled, LongAdder::sum)
+                .description("Requests whose SQL statements were counted")
+                .register(registry);
+        FunctionCounter.builder(OVER_BUDGET_NAME, overBudget, LongAdder::sum)
+                .description("Sampled requests that issued more statements than the budget")
+                .register(registry);
+    }
+
+    public long getSampledCount() { return sampled.sum(); }
+    public long getOverBudgetCount() { return overBudget.sum(); }
+}
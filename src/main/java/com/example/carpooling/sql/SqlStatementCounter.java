@@ -0,0 +1,65 @@
+package com.carpooling.sql;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.regex.Pattern;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread
+ *
+ * Installed as Hibernate's statement inspector (see SqlStatementConfig), so every
+ * statement is seen once when it is prepared, whether it comes from JPQL, a derived query,
+ * a native query or a lazy load; a JDBC batch counts once. Counting happens only while a
+ * recording is open on the thread, so otherwise the cost is one thread-local lookup.
+ * Work handed to other threads (async listeners, streamed exports) is not counted.
+ *
+ * try (StatementRecording recording = SqlStatementCounter.start()) { ... }
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<StatementRecording> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Override
+    public String inspect(String sql) {
+        StatementRecording recording = CURRENT.get();
+        if (recording != null) {
+            recording.record(fingerprint(sql));
+        }
+        return sql;
+    }
+
+    /**
+     * Start counting the statements of the current thread; close the recording to stop
+     */
+    public static StatementRecording start() {
+        StatementRecording recording = new StatementRecording(CURRENT.get());
+        CURRENT.set(recording);
+        return recording;
+    }
+
+    static void stop(StatementRecording recording) {
+        if (CURRENT.get() == recording) {
+            if (recording.outer() != null) {
+                CURRENT.set(recording.outer());
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * The statement with literals replaced by ?, IN lists collapsed and whitespace
+     * normalised, so that the same query with different values has one fingerprint
+     */
+    public static String fingerprint(String sql) {
+        String fingerprint = STRING_LITERAL.matcher(sql).replaceAll("?");
+        fingerprint = NUMBER_LITERAL.matcher(fingerprint).replaceAll("?");
+        fingerprint = IN_LIST.matcher(fingerprint).replaceAll("in (?)");
+        return WHITESPACE.matcher(fingerprint).replaceAll(" ").trim();
+    }
+}
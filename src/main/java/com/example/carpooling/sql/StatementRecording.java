@@ -0,0 +1,69 @@
+package com.carpooling.sql;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * SQL statements prepared on one thread between start and close, by fingerprint
+ * Created by SqlStatementCounter.start(); recordings nest, and an inner recording's
+ * statements also count towards the outer one.
+ */
+public final class StatementRecording implements AutoCloseable {
+
+    // Distinct fingerprints kept; statements beyond that are counted but not listed
+    private static final int MAX_FINGERPRINTS = 100;
+
+    private final StatementRecording outer;
+    private final Map<String, Integer> fingerprints = new LinkedHashMap<>();
+    private int count;
+    private boolean closed;
+
+    StatementRecording(StatementRecording outer) {
+        this.outer = outer;
+    }
+
+    void record(String fingerprint) {
+        count++;
+        if (fingerprints.size() < MAX_FINGERPRINTS || fingerprints.containsKey(fingerprint)) {
+            fingerprints.merge(fingerprint, 1, Integer::sum);
+        }
+        if (outer != null) {
+            outer.record(fingerprint);
+        }
+    }
+
+    StatementRecording outer() {
+        return outer;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Statements by fingerprint, in first-seen order
+     */
+    public Map<String, Integer> getFingerprints() {
+        return Collections.unmodifiableMap(fingerprints);
+    }
+
+    /**
+     * One line per fingerprint with its repeat count; a repeated fingerprint is the usual
+     * sign of an N+1 query
+     */
+    public String describe() {
+        return fingerprints.entrySet().stream()
+                .map(entry -> entry.getValue() + " x " + entry.getKey())
+                .collect(Collectors.joining("\n"));
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            SqlStatementCounter.stop(this);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.carpooling.waitlist;
+
+import com.carpooling.datasource.ReadYourWrites;
+import com.carpooling.repository.WaitlistRepository;
+import com.carpooling.transaction.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory waitlists, one FIFO queue per ride
+ *
+ * The ride_waitlist table is the durable copy: queues are rebuilt from it at startup and
+ * changed only after the transaction that wrote the table commits. Joins and leaves that
+ * commit while the queues are rebuilt are replayed on top of what was read, as the web
+ * server takes requests before the rebuild runs. Queue heads, lengths and positions are
+ * answered from memory. Single-node, like the ride lock.
+ */
+@Component
+public class RideWaitlist {
+
+    private static final Logger log = LoggerFactory.getLogger(RideWaitlist.class);
+
+    private static final Comparator<WaitlistSlot> QUEUE_ORDER = Comparator.comparing(WaitlistSlot::entryId);
+
+    private final WaitlistRepository waitlistRepository;
+
+    private volatile ConcurrentMap<Long, ConcurrentSkipListSet<WaitlistSlot>> queues = new ConcurrentHashMap<>();
+
+    // Changes are applied under the read lock; a rebuild swaps the queues under the write lock
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    // Changes applied while a rebuild reads the database, replayed onto the rebuilt queues
+    private Queue<Change> rebuildLog;
+
+    public RideWaitlist(WaitlistRepository waitlistRepository) {
+        this.waitlistRepository = waitlistRepository;
+    }
+
+    /**
+     * Rebuild the queues of rides from today onwards from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        Queue<Change> changes = new ConcurrentLinkedQueue<>();
+        setRebuildLog(changes);
+        try {
+            ConcurrentMap<Long, ConcurrentSkipListSet<WaitlistSlot>> rebuilt = new ConcurrentHashMap<>();
+            List<WaitlistSlot> slots = ReadYourWrites.onPrimary(() -> waitlistRepository.findSlotsFrom(LocalDate.now()));
+            for (WaitlistSlot slot : slots) {
+                rebuilt.computeIfAbsent(slot.rideId(), rideId -> new ConcurrentSkipListSet<>(QUEUE_ORDER)).add(slot);
+            }
+
+            rebuildLock.writeLock().lock();
+            try {
+                for (Change change : changes) {
+                    applyTo(rebuilt, change);
+                }
+                this.queues = rebuilt;
+            } finally {
+                rebuildLock.writeLock().unlock();
+            }
+            log.info("Waitlists rebuilt: {} passengers waiting on {} rides, {} changes replayed",
+                    slots.size(), rebuilt.size(), changes.size());
+        } finally {
+            setRebuildLog(null);
+        }
+    }
+
+    private void setRebuildLog(Queue<Change> changes) {
+        rebuildLock.writeLock().lock();
+        try {
+            rebuildLog = changes;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Queue a passenger; inside a transaction this happens after commit
+     */
+    public void add(WaitlistSlot slot) {
+        Change change = new Change(slot, true);
+        AfterCommit.run(() -> apply(change));
+    }
+
+    /**
+     * Remove a passenger from a queue; inside a transaction this happens after commit
+     */
+    public void remove(WaitlistSlot slot) {
+        Change change = new Change(slot, false);
+        AfterCommit.run(() -> apply(change));
+    }
+
+    /**
+     * A ride's queue, front first; the view is live and never fails on concurrent changes
+     */
+    public Iterable<WaitlistSlot> queue(Long rideId) {
+        ConcurrentSkipListSet<WaitlistSlot> queue = queues.get(rideId);
+        return queue != null ? queue : List.of();
+    }
+
+    /**
+     * 1-based position of an entry in its queue, or 0 if it is not queued
+     */
+    public int position(WaitlistSlot slot) {
+        ConcurrentSkipListSet<WaitlistSlot> queue = queues.get(slot.rideId());
+        if (queue == null || !queue.contains(slot)) {
+            return 0;
+        }
+        return queue.headSet(slot).size() + 1;
+    }
+
+    public int size(Long rideId) {
+        ConcurrentSkipListSet<WaitlistSlot> queue = queues.get(rideId);
+        return queue == null ? 0 : queue.size();
+    }
+
+    private void apply(Change change) {
+        rebuildLock.readLock().lock();
+        try {
+            Queue<Change> changes = rebuildLog;
+            if (changes != null) {
+                changes.add(change);
+            }
+            applyTo(queues, change);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private static void applyTo(ConcurrentMap<Long, ConcurrentSkipListSet<WaitlistSlot>> target, Change change) {
+        WaitlistSlot slot = change.slot();
+        if (change.queued()) {
+            // Added inside compute so a concurrent remove cannot drop the queue being added to
+            target.compute(slot.rideId(), (rideId, queue) -> {
+                ConcurrentSkipListSet<WaitlistSlot> updated = queue != null ? queue : new ConcurrentSkipListSet<>(QUEUE_ORDER);
+                updated.add(slot);
+                return updated;
+            });
+        } else {
+            target.computeIfPresent(slot.rideId(), (rideId, queue) -> {
+                queue.remove(slot);
+                return queue.isEmpty() ? null : queue;
+            });
+        }
+    }
+
+    /**
+     * A committed join (queued) or leave of one passenger
+     */
+    private record Change(WaitlistSlot slot, boolean queued) {
+    }
+}
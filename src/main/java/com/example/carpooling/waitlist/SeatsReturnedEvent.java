@@ -0,0 +1,7 @@
+package com.carpooling.waitlist;
+
+/**
+ * Published when confirmed seats of a ride are given back (cancellation or rejection)
+ */
+public record SeatsReturnedEvent(Long rideId, int seats) {
+}
@@ -0,0 +1,57 @@
+package com.carpooling.waitlist;
+
+import com.carpooling.concurrency.RideLockManager;
+import com.carpooling.dto.response.BookingResponse;
+import com.carpooling.service.WaitlistService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Promotes waitlisted passengers when confirmed seats are given back
+ *
+ * Runs after the returning transaction has committed, on the async executor, so a
+ * cancellation never waits for promotion. Promotion takes the ride lock like any other
+ * booking write of the ride. Promoted passengers get a REQUESTED booking, which competes
+ * for the seat with direct bookings until the driver confirms one of them.
+ */
+@Component
+public class WaitlistPromoter {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistPromoter.class);
+
+    private final WaitlistService waitlistService;
+    private final RideWaitlist rideWaitlist;
+    private final RideLockManager rideLockManager;
+
+    public WaitlistPromoter(WaitlistService waitlistService, RideWaitlist rideWaitlist,
+                            RideLockManager rideLockManager) {
+        this.waitlistService = waitlistService;
+        this.rideWaitlist = rideWaitlist;
+        this.rideLockManager = rideLockManager;
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSeatsReturned(SeatsReturnedEvent event) {
+        // Most rides have nobody waiting; skip the lock and the transaction for them
+        if (rideWaitlist.size(event.rideId()) == 0) {
+            return;
+        }
+        try {
+            List<BookingResponse> promoted = rideLockManager.withRideLock(event.rideId(),
+                    () -> waitlistService.promote(event.rideId(), event.seats()));
+            if (!promoted.isEmpty()) {
+                log.info("Promoted {} waitlisted passengers to bookings on ride {}", promoted.size(), event.rideId());
+            }
+        } catch (RuntimeException e) {
+            // Passengers stay queued and are promoted on the next returned seat
+            log.warn("Waitlist promotion for ride {} failed: {}", event.rideId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.carpooling.waitlist;
+
+import com.carpooling.entity.WaitlistEntry;
+
+/**
+ * In-memory form of a waitlist entry; entry ids give the queue order
+ */
+public record WaitlistSlot(Long entryId, Long rideId, Long passengerId) {
+
+    public static WaitlistSlot of(WaitlistEntry entry) {
+        return new WaitlistSlot(entry.getId(), entry.getRide().getId(), entry.getPassenger().getId());
+    }
+}
@@ -23,30 +23,33 @@ INSERT INTO users (username, email, password, role, created_at, updated_at) VALU
 -- Insert sample rides
 
 -- Ride 1: Bangalore to Udupi (4 seats available)
-INSERT INTO rides (driver_id, source, destination, ride_date, ride_time, total_seats, available_seats, price_per_seat, created_at, updated_at) VALUES
-(1, 'Bangalore', 'Udupi', CURRENT_DATE + INTERVAL 1 DAY, '06:00', 4, 4, 300.00, NOW(), NOW());
+INSERT INTO rides (id, driver_id, source, destination, source_key, destination_key, ride_date, ride_time, total_seats, available_seats, price_per_seat, version, created_at, updated_at) VALUES
+(1, 1, 'Bangalore', 'Udupi', 'bangalore', 'udupi', CURRENT_DATE + INTERVAL 1 DAY, '06:00', 4, 4, 300.00, 0, NOW(), NOW());
 
 -- Ride 2: Bangalore to Manipal (3 seats available)
-INSERT INTO rides (driver_id, source, destination, ride_date, ride_time, total_seats, available_seats, price_per_seat, created_at, updated_at) VALUES
-(1, 'Bangalore', 'Manipal', CURRENT_DATE + INTERVAL 2 DAY, '07:30', 5, 5, 350.00, NOW(), NOW());
+INSERT INTO rides (id, driver_id, source, destination, source_key, destination_key, ride_date, ride_time, total_seats, available_seats, price_per_seat, version, created_at, updated_at) VALUES
+(2, 1, 'Bangalore', 'Manipal', 'bangalore', 'manipal', CURRENT_DATE + INTERVAL 2 DAY, '07:30', 5, 5, 350.00, 0, NOW(), NOW());
 
 -- Ride 3: Bangalore to Udupi (2 seats available after 1 confirmed)
-INSERT INTO rides (driver_id, source, destination, ride_date, ride_time, total_seats, available_seats, price_per_seat, created_at, updated_at) VALUES
-(2, 'Bangalore', 'Udupi', CURRENT_DATE + INTERVAL 1 DAY, '08:00', 3, 2, 280.00, NOW(), NOW());
+INSERT INTO rides (id, driver_id, source, destination, source_key, destination_key, ride_date, ride_time, total_seats, available_seats, price_per_seat, version, created_at, updated_at) VALUES
+(3, 2, 'Bangalore', 'Udupi', 'bangalore', 'udupi', CURRENT_DATE + INTERVAL 1 DAY, '08:00', 3, 2, 280.00, 0, NOW(), NOW());
+
+-- Ride ids come from the pooled rides_seq generator; move it past the sample rows
+UPDATE rides_seq SET next_val = 100;
 
 -- Insert sample bookings
 
 -- Booking 1: Passenger 1 -> Ride 1 (REQUESTED)
-INSERT INTO bookings (ride_id, passenger_id, status, booked_at, updated_at) VALUES
-(1, 3, 'REQUESTED', NOW(), NOW());
+INSERT INTO bookings (ride_id, passenger_id, status, version, booked_at, updated_at) VALUES
+(1, 3, 'REQUESTED', 0, NOW(), NOW());
 
 -- Booking 2: Passenger 2 -> Ride 1 (CONFIRMED - seat taken)
-INSERT INTO bookings (ride_id, passenger_id, status, booked_at, updated_at) VALUES
-(1, 4, 'CONFIRMED', NOW(), NOW());
+INSERT INTO bookings (ride_id, passenger_id, status, version, booked_at, updated_at) VALUES
+(1, 4, 'CONFIRMED', 0, NOW(), NOW());
 
 -- Booking 3: Passenger 3 -> Ride 3 (CONFIRMED - seat taken)
-INSERT INTO bookings (ride_id, passenger_id, status, booked_at, updated_at) VALUES
-(3, 5, 'CONFIRMED', NOW(), NOW());
+INSERT INTO bookings (ride_id, passenger_id, status, version, booked_at, updated_at) VALUES
+(3, 5, 'CONFIRMED', 0, NOW(), NOW());
 
 -- Note: The password hash above is BCrypt for 'password123'
 -- To generate your own: Use BCryptPasswordEncoder in Java or https://www.bcryptcalculator.com/
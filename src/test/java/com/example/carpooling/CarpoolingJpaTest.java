@@ -0,0 +1,33 @@
+package com.carpooling;
+
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Data JPA slice on an in-memory H2 database with the service layer (ServiceTestConfiguration)
+ * The services keep in-memory indexes that are not reset between tests, so every test class
+ * gets a fresh context. Add test-specific properties with @TestPropertySource and extra
+ * beans with @Import.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never"
+})
+@Import(ServiceTestConfiguration.class)
+@DirtiesContext
+public @interface CarpoolingJpaTest {
+}
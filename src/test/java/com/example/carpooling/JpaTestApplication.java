@@ -0,0 +1,13 @@
+package com.carpooling;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+
+/**
+ * Test bootstrap for slice tests under com.carpooling
+ * Lets @DataJpaTest find entities and repositories in this package tree
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+public class JpaTestApplication {
+}
@@ -0,0 +1,30 @@
+package com.carpooling;
+
+import com.carpooling.concurrency.OptimisticLockRetry;
+import com.carpooling.concurrency.RideLockManager;
+import com.carpooling.config.AsyncConfig;
+import com.carpooling.live.SeatAvailabilityFeed;
+import com.carpooling.search.ConnectionPlanner;
+import com.carpooling.search.RideAvailabilityIndex;
+import com.carpooling.search.RideGeoIndex;
+import com.carpooling.service.impl.BookingServiceImpl;
+import com.carpooling.service.impl.LockingWaitlistService;
+import com.carpooling.service.impl.RetryingBookingService;
+import com.carpooling.service.impl.RideServiceImpl;
+import com.carpooling.service.impl.WaitlistServiceImpl;
+import com.carpooling.waitlist.RideWaitlist;
+import com.carpooling.waitlist.WaitlistPromoter;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Ride, booking and waitlist services with the indexes and locks they depend on
+ * New service-layer beans are registered here once, for every @CarpoolingJpaTest.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+@Import({BookingServiceImpl.class, RetryingBookingService.class, RideServiceImpl.class,
+        WaitlistServiceImpl.class, LockingWaitlistService.class, RideWaitlist.class, WaitlistPromoter.class,
+        OptimisticLockRetry.class, RideLockManager.class, AsyncConfig.class,
+        RideAvailabilityIndex.class, RideGeoIndex.class, ConnectionPlanner.class, SeatAvailabilityFeed.class})
+public class ServiceTestConfiguration {
+}
@@ -0,0 +1,22 @@
+package com.carpooling;
+
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.UserRole;
+
+/**
+ * Unsaved users for test fixtures
+ */
+public final class TestUsers {
+
+    private TestUsers() {
+    }
+
+    public static User user(String username, UserRole role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@carpooling.com");
+        user.setPassword("secret");
+        user.setRole(role);
+        return user;
+    }
+}
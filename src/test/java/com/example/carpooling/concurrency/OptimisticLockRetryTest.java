@@ -0,0 +1,78 @@
+package com.carpooling.concurrency;
+
+import com.carpooling.exception.BookingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the optimistic lock retry and its contention counters
+ */
+class OptimisticLockRetryTest {
+
+    private final OptimisticLockRetry retry = new OptimisticLockRetry(2, Duration.ofMillis(1), Duration.ZERO,
+            Duration.ofMillis(5));
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @BeforeEach
+    void bind() {
+        retry.bindTo(registry);
+    }
+
+    @Test
+    void retriesConflictsUntilTheWorkSucceeds() {
+        String result = retry.execute(() -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw conflict();
+            }
+            return "booked";
+        });
+
+        assertThat(result).isEqualTo("booked");
+        assertThat(attempts.get()).isEqualTo(3);
+        assertCounts(2, 2, 0);
+    }
+
+    @Test
+    void givesUpWithTheLastConflictOnceRetriesAreUsedUp() {
+        assertThatThrownBy(() -> retry.execute(() -> {
+            attempts.incrementAndGet();
+            throw conflict();
+        })).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        assertThat(attempts.get()).isEqualTo(3);
+        assertCounts(3, 2, 1);
+    }
+
+    @Test
+    void otherFailuresAreNotRetried() {
+        assertThatThrownBy(() -> retry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new BookingException("No available seats for this ride");
+        })).isInstanceOf(BookingException.class);
+
+        assertThat(attempts.get()).isEqualTo(1);
+        assertCounts(0, 0, 0);
+    }
+
+    private void assertCounts(long conflicts, long retries, long exhausted) {
+        assertThat(retry.getConflictCount()).isEqualTo(conflicts);
+        assertThat(retry.getRetryCount()).isEqualTo(retries);
+        assertThat(retry.getExhaustedCount()).isEqualTo(exhausted);
+        assertThat(registry.get(OptimisticLockRetry.CONFLICTS_NAME).functionCounter().count()).isEqualTo(conflicts);
+        assertThat(registry.get(OptimisticLockRetry.RETRIES_NAME).functionCounter().count()).isEqualTo(retries);
+        assertThat(registry.get(OptimisticLockRetry.EXHAUSTED_NAME).functionCounter().count()).isEqualTo(exhausted);
+    }
+
+    private static ObjectOptimisticLockingFailureException conflict() {
+        return new ObjectOptimisticLockingFailureException("Ride", 1L);
+    }
+}
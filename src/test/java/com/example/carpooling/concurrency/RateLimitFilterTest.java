@@ -0,0 +1,148 @@
+package com.carpooling.concurrency;
+
+import com.carpooling.concurrency.RateLimitFilter.EndpointClass;
+import com.carpooling.entity.enums.UserRole;
+import com.carpooling.security.CustomUserDetails;
+import com.carpooling.security.TokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the token bucket limiter and the rate limit filter
+ */
+class RateLimitFilterTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void bucketAdmitsItsCapacityThenRefillsOneTokenPerPeriod() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, Duration.ofSeconds(1), now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire(1L)).isZero();
+        }
+        assertThat(limiter.tryAcquire(1L)).isEqualTo(Duration.ofSeconds(1).toNanos());
+
+        now.addAndGet(Duration.ofMillis(400).toNanos());
+        assertThat(limiter.tryAcquire(1L)).isEqualTo(Duration.ofMillis(600).toNanos());
+        now.addAndGet(Duration.ofMillis(600).toNanos());
+        assertThat(limiter.tryAcquire(1L)).isZero();
+        assertThat(limiter.tryAcquire(1L)).isPositive();
+
+        // Other keys have their own bucket
+        assertThat(limiter.tryAcquire(2L)).isZero();
+    }
+
+    @Test
+    void idleBucketsRefillToCapacityAndArePruned() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, Duration.ofSeconds(1), now::get);
+        limiter.tryAcquire(1L);
+        limiter.tryAcquire(1L);
+        limiter.tryAcquire(2L);
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        limiter.prune();
+        assertThat(limiter.getSize()).isEqualTo(1);
+
+        now.addAndGet(Duration.ofHours(1).toNanos());
+        // Not more than the capacity, however long the bucket was idle
+        assertThat(limiter.tryAcquire(1L)).isZero();
+        assertThat(limiter.tryAcquire(1L)).isZero();
+        assertThat(limiter.tryAcquire(1L)).isPositive();
+        limiter.prune();
+        assertThat(limiter.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentRequestsNeverTakeMoreThanTheCapacity() throws InterruptedException {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(100, Duration.ofDays(1), now::get);
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            clients.execute(() -> {
+                if (limiter.tryAcquire(1L) == 0) {
+                    admitted.incrementAndGet();
+                }
+            });
+        }
+        clients.shutdown();
+        assertThat(clients.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(admitted).hasValue(100);
+    }
+
+    @Test
+    void filterRejectsPerUserAndEndpointClassWithRetryAfter() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(Map.of(
+                EndpointClass.SEARCH, new TokenBucketLimiter(2, Duration.ofSeconds(5), now::get),
+                EndpointClass.BOOKING_WRITE, new TokenBucketLimiter(1, Duration.ofSeconds(5), now::get),
+                EndpointClass.AUTH, new TokenBucketLimiter(1, Duration.ofSeconds(5), now::get)));
+
+        authenticate(7L);
+        assertThat(send(filter, "POST", "/rides/search").getStatus()).isEqualTo(200);
+        assertThat(send(filter, "POST", "/rides/search/nearby").getStatus()).isEqualTo(200);
+        MockHttpServletResponse limited = send(filter, "POST", "/rides/search");
+        assertThat(limited.getStatus()).isEqualTo(429);
+        assertThat(limited.getHeader("Retry-After")).isEqualTo("5");
+
+        // Booking writes have their own bucket; reads and other endpoints are not limited
+        assertThat(send(filter, "POST", "/bookings").getStatus()).isEqualTo(200);
+        assertThat(send(filter, "GET", "/bookings/my-bookings").getStatus()).isEqualTo(200);
+        assertThat(send(filter, "GET", "/rides/42").getStatus()).isEqualTo(200);
+
+        authenticate(8L);
+        assertThat(send(filter, "POST", "/rides/search").getStatus()).isEqualTo(200);
+
+        SecurityContextHolder.clearContext();
+        assertThat(send(filter, "POST", "/auth/login").getStatus()).isEqualTo(200);
+        assertThat(send(filter, "POST", "/auth/login").getStatus()).isEqualTo(429);
+        assertThat(filter.getRejectedCount()).isEqualTo(2);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        filter.bindTo(registry);
+        assertThat(registry.get(RateLimitFilter.REJECTED_NAME).functionCounter().count()).isEqualTo(2.0);
+        assertThat(registry.get(RateLimitFilter.ADMITTED_NAME).functionCounter().count())
+                .isEqualTo(filter.getAdmittedCount());
+        assertThat(registry.get(RateLimitFilter.TRACKED_KEYS_NAME).gauge().value()).isEqualTo(filter.getTrackedKeys());
+    }
+
+    private static MockHttpServletResponse send(RateLimitFilter filter, String method, String path)
+            throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api" + path);
+        request.setContextPath("/api");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static void authenticate(Long userId) {
+        CustomUserDetails user = new CustomUserDetails(new TokenService.TokenClaims(
+                userId, "user" + userId, UserRole.PASSENGER, Instant.now().plusSeconds(60)));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
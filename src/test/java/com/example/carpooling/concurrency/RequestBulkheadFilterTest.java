@@ -0,0 +1,39 @@
+package com.carpooling.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Admission, rejection and published statistics of the request bulkhead
+ */
+class RequestBulkheadFilterTest {
+
+    @Test
+    void rejectsOverflowWith503AndPublishesCounts() throws Exception {
+        RequestBulkheadFilter bulkhead = new RequestBulkheadFilter(1, Duration.ZERO);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bulkhead.bindTo(registry);
+        MockHttpServletResponse overflow = new MockHttpServletResponse();
+        double[] inFlightDuringRequest = new double[1];
+
+        // The first request still holds the only permit when the second arrives
+        bulkhead.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), (request, response) -> {
+            inFlightDuringRequest[0] = registry.get(RequestBulkheadFilter.IN_FLIGHT_NAME).gauge().value();
+            bulkhead.doFilter(new MockHttpServletRequest(), overflow, new MockFilterChain());
+        });
+
+        assertThat(overflow.getStatus()).isEqualTo(503);
+        assertThat(overflow.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(inFlightDuringRequest[0]).isEqualTo(1.0);
+        assertThat(registry.get(RequestBulkheadFilter.ADMITTED_NAME).functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get(RequestBulkheadFilter.REJECTED_NAME).functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get(RequestBulkheadFilter.IN_FLIGHT_NAME).gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,98 @@
+package com.carpooling.concurrency;
+
+import com.carpooling.exception.RideBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for per-ride write serialization, lock timeouts and the lock wait meters
+ */
+class RideLockManagerTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void writesToOneRideNeverOverlap() throws Exception {
+        RideLockManager locks = new RideLockManager(16, Duration.ofSeconds(10));
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> writes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            writes.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < 50; j++) {
+                    locks.withRideLock(42L, () -> {
+                        maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                        Thread.yield();
+                        return inside.decrementAndGet();
+                    });
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> write : writes) {
+            write.get(30, TimeUnit.SECONDS);
+        }
+
+        assertThat(maxInside.get()).isEqualTo(1);
+        assertThat(locks.getAcquisitionCount()).isEqualTo(400);
+        assertThat(locks.getTimeoutCount()).isZero();
+    }
+
+    @Test
+    void busyRideTimesOutWithRideBusyException() throws Exception {
+        RideLockManager locks = new RideLockManager(1, Duration.ofMillis(50));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        locks.bindTo(registry);
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<?> holder = executor.submit(() -> locks.withRideLock(1L, () -> {
+            held.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        assertThat(held.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // One stripe, so another ride waits on the same lock
+        assertThatThrownBy(() -> locks.withRideLock(2L, () -> "never"))
+                .isInstanceOf(RideBusyException.class)
+                .hasMessageContaining("Ride 2 is busy");
+
+        release.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+        assertThat(locks.withRideLock(2L, () -> "written")).isEqualTo("written");
+
+        assertThat(locks.getTimeoutCount()).isEqualTo(1);
+        assertThat(registry.get(RideLockManager.TIMEOUTS_NAME).functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get(RideLockManager.WAIT_NAME).functionTimer().count()).isEqualTo(3);
+        assertThat(registry.get(RideLockManager.WAIT_PEAK_NAME).timeGauge().value(TimeUnit.MILLISECONDS))
+                .isGreaterThanOrEqualTo(50);
+        assertThat(registry.get(RideLockManager.QUEUED_NAME).gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,29 @@
+package com.carpooling.config;
+
+import com.carpooling.service.impl.BookingServiceImpl;
+import com.carpooling.service.impl.RetryingBookingService;
+import com.carpooling.service.impl.RideServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Which service beans get the service method timers
+ */
+class MetricsConfigTest {
+
+    @Test
+    void timesImplementationsButNotTheirDecorators() {
+        Advisor advisor = MetricsConfig.serviceMetricsAdvisor(
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+
+        assertThat(AopUtils.canApply(advisor, BookingServiceImpl.class)).isTrue();
+        assertThat(AopUtils.canApply(advisor, RideServiceImpl.class)).isTrue();
+        // Its calls reach BookingServiceImpl, so timing both would count every booking twice
+        assertThat(AopUtils.canApply(advisor, RetryingBookingService.class)).isFalse();
+    }
+}
@@ -0,0 +1,19 @@
+package com.carpooling.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * The virtual-thread setting is refused on JVMs that would silently ignore it
+ */
+class VirtualThreadsGuardTest {
+
+    @Test
+    void refusesJvmsWithoutVirtualThreads() {
+        assertThatIllegalStateException().isThrownBy(() -> new VirtualThreadsGuard(17))
+                .withMessageContaining("Java 21");
+        assertThatCode(() -> new VirtualThreadsGuard(21)).doesNotThrowAnyException();
+    }
+}
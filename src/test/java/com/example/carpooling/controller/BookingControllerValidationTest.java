@@ -0,0 +1,77 @@
+package com.carpooling.controller;
+
+import com.carpooling.TestUsers;
+import com.carpooling.entity.enums.UserRole;
+import com.carpooling.repository.UserRepository;
+import com.carpooling.security.TokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Out-of-range request parameters of the booking endpoints are answered with 400
+ * Same context as RideControllerValidationTest, so it is built only once
+ */
+@SpringBootTest(classes = RequestThreadingLoadTest.LoadTestApplication.class,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:${random.uuid};DB_CLOSE_DELAY=-1",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "spring.jpa.show-sql=false",
+                "spring.sql.init.mode=never",
+                "carpooling.ratelimit.enabled=false",
+                "carpooling.outbox.relay.enabled=false",
+                "carpooling.outbox.sink=memory",
+                "carpooling.sql.guard.sample-rate=0"
+        })
+@AutoConfigureMockMvc
+class BookingControllerValidationTest {
+
+    private static final AtomicInteger FIXTURES = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenService tokenService;
+
+    private String passengerToken;
+
+    @BeforeEach
+    void setUp() {
+        int fixture = FIXTURES.incrementAndGet();
+        passengerToken = tokenService.issue(userRepository.save(
+                TestUsers.user("booking-validation" + fixture, UserRole.PASSENGER))).token();
+    }
+
+    @Test
+    void cursorPageSizeOutOfRange() throws Exception {
+        for (String size : new String[] {"0", "-1", "101", String.valueOf(Integer.MAX_VALUE)}) {
+            assertStatus(get("/bookings/my-bookings").param("cursor", "").param("size", size), 400);
+        }
+        assertStatus(get("/bookings/my-bookings").param("cursor", "").param("size", "100"), 200);
+        assertStatus(get("/bookings/my-bookings").param("cursor", "").param("size", "1"), 200);
+    }
+
+    private void assertStatus(MockHttpServletRequestBuilder request, int expected) throws Exception {
+        request.header("Authorization", "Bearer " + passengerToken);
+        MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+        assertThat(response.getStatus()).as(response.getContentAsString()).isEqualTo(expected);
+    }
+}
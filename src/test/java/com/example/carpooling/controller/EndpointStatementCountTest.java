@@ -0,0 +1,308 @@
+package com.carpooling.controller;
+
+import com.carpooling.TestUsers;
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.UserRole;
+import com.carpooling.repository.UserRepository;
+import com.carpooling.security.TokenService;
+import com.carpooling.sql.SqlStatementCounter;
+import com.carpooling.sql.StatementRecording;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Exact SQL statement counts of the ride and booking endpoints
+ *
+ * Each test sends one request over its own rides and bookings (several drivers, rides and
+ * passengers, so a per-row lazy load shows up as a higher count) and asserts how many
+ * statements it issued. A failing count prints the statements by fingerprint. If a change
+ * legitimately adds or removes a query, update the expected count.
+ * The CSV exports and the seat availability stream run on other threads and are not covered.
+ */
+@SpringBootTest(classes = RequestThreadingLoadTest.LoadTestApplication.class,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:${random.uuid};DB_CLOSE_DELAY=-1",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "spring.jpa.show-sql=false",
+                "spring.sql.init.mode=never",
+                "carpooling.ratelimit.enabled=false",
+                "carpooling.outbox.relay.enabled=false",
+                "carpooling.outbox.sink=memory",
+                "carpooling.sql.guard.sample-rate=0"
+        })
+@AutoConfigureMockMvc
+class EndpointStatementCountTest {
+
+    private static final LocalDate RIDE_DATE = LocalDate.now().plusDays(7);
+    private static final int DRIVERS = 2;
+    private static final int RIDES_PER_DRIVER = 3;
+    private static final int PASSENGERS = 3;
+
+    // Every test gets its own route and users; the in-memory search indexes are never reset
+    private static final AtomicInteger FIXTURES = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenService tokenService;
+
+    private String source;
+    private String destination;
+    private final List<String> driverTokens = new ArrayList<>();
+    private final List<String> passengerTokens = new ArrayList<>();
+    private final List<Long> rideIds = new ArrayList<>();
+    // Bookings of the first driver's rides, all passengers
+    private final List<Long> bookingIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        int fixture = FIXTURES.incrementAndGet();
+        source = "Source" + fixture;
+        destination = "Destination" + fixture;
+
+        for (int d = 0; d < DRIVERS; d++) {
+            driverTokens.add(token(user(fixture + "driver" + d, UserRole.DRIVER)));
+        }
+        for (int p = 0; p < PASSENGERS; p++) {
+            passengerTokens.add(token(user(fixture + "passenger" + p, UserRole.PASSENGER)));
+        }
+        for (int d = 0; d < DRIVERS; d++) {
+            for (int r = 0; r < RIDES_PER_DRIVER; r++) {
+                rideIds.add(createRide(driverTokens.get(d), 8 + r, 4));
+            }
+        }
+        for (String passenger : passengerTokens) {
+            for (Long rideId : rideIds) {
+                Long bookingId = id(send(post("/bookings"), passenger, "{\"rideId\":" + rideId + "}"));
+                if (rideIds.indexOf(rideId) < RIDES_PER_DRIVER) {
+                    bookingIds.add(bookingId);
+                }
+            }
+        }
+    }
+
+    // Rides
+
+    @Test
+    void createRide() throws Exception {
+        assertStatements(post("/rides"), driverTokens.get(0), rideBody(15, 4), 2);
+    }
+
+    @Test
+    void createRecurringRides() throws Exception {
+        String body = "{\"source\":\"" + source + "\",\"destination\":\"" + destination + "\","
+                + "\"rideTime\":\"07:30\",\"totalSeats\":3,\"pricePerSeat\":250.0,"
+                + "\"startDate\":\"" + RIDE_DATE + "\",\"endDate\":\"" + RIDE_DATE.plusDays(6) + "\"}";
+        assertStatements(post("/rides/recurring"), driverTokens.get(0), body, 3);
+    }
+
+    @Test
+    void getRide() throws Exception {
+        assertStatements(get("/rides/" + rideIds.get(0)), passengerTokens.get(0), null, 1);
+    }
+
+    @Test
+    void searchRides() throws Exception {
+        warmRouteDay();
+        String response = assertStatements(post("/rides/search"), passengerTokens.get(0), searchBody(), 0);
+        assertThat((Integer) JsonPath.read(response, "$.data.content.length()")).isEqualTo(DRIVERS * RIDES_PER_DRIVER);
+    }
+
+    @Test
+    void searchRidesWithoutCount() throws Exception {
+        warmRouteDay();
+        String response = assertStatements(post("/rides/search?count=false"), passengerTokens.get(0), searchBody(), 0);
+        assertThat((Integer) JsonPath.read(response, "$.data.content.length()")).isEqualTo(DRIVERS * RIDES_PER_DRIVER);
+    }
+
+    @Test
+    void searchRidesByCursor() throws Exception {
+        warmRouteDay();
+        String response = assertStatements(post("/rides/search?cursor="), passengerTokens.get(0), searchBody(), 0);
+        assertThat((Integer) JsonPath.read(response, "$.data.content.length()")).isEqualTo(DRIVERS * RIDES_PER_DRIVER);
+    }
+
+    @Test
+    void searchNearbyRides() throws Exception {
+        String body = "{\"pickupLatitude\":12.9716,\"pickupLongitude\":77.5946,\"radiusMeters\":2000,"
+                + "\"rideDate\":\"" + RIDE_DATE + "\"}";
+        String response = assertStatements(post("/rides/search/nearby"), passengerTokens.get(0), body, 0);
+        // Earlier tests' rides share the pickup point, so only check that rides were found
+        assertThat((Integer) JsonPath.read(response, "$.data.length()")).isPositive();
+    }
+
+    @Test
+    void planConnections() throws Exception {
+        assertStatements(post("/rides/search/connections"), passengerTokens.get(0), searchBody(), 1);
+    }
+
+    @Test
+    void getMyRides() throws Exception {
+        assertStatements(get("/rides/my-rides"), driverTokens.get(0), null, 1);
+    }
+
+    @Test
+    void getMyRidesByCursor() throws Exception {
+        assertStatements(get("/rides/my-rides?cursor="), driverTokens.get(0), null, 1);
+    }
+
+    // Bookings
+
+    @Test
+    void bookRide() throws Exception {
+        Long rideId = createRide(driverTokens.get(0), 16, 4);
+        assertStatements(post("/bookings"), passengerTokens.get(0), "{\"rideId\":" + rideId + "}", 5);
+    }
+
+    @Test
+    void getBooking() throws Exception {
+        assertStatements(get("/bookings/" + bookingIds.get(0)), passengerTokens.get(0), null, 2);
+    }
+
+    @Test
+    void getMyBookings() throws Exception {
+        assertStatements(get("/bookings/my-bookings"), passengerTokens.get(0), null, 1);
+    }
+
+    @Test
+    void getMyBookingsByCursor() throws Exception {
+        assertStatements(get("/bookings/my-bookings?cursor="), passengerTokens.get(0), null, 1);
+    }
+
+    @Test
+    void getBookingsForMyRides() throws Exception {
+        assertStatements(get("/bookings/ride-bookings"), driverTokens.get(0), null, 1);
+    }
+
+    @Test
+    void confirmBooking() throws Exception {
+        assertStatements(put("/bookings/" + bookingIds.get(0) + "/confirm"), driverTokens.get(0), null, 9);
+    }
+
+    @Test
+    void decideBookings() throws Exception {
+        String body = "{\"action\":\"CONFIRM\",\"bookingIds\":" + bookingIds.subList(0, PASSENGERS) + "}";
+        // The first PASSENGERS booking ids are the first ride's, one per passenger
+        assertStatements(put("/bookings/rides/" + rideIds.get(0) + "/batch"), driverTokens.get(0), body, 8);
+    }
+
+    @Test
+    void cancelBooking() throws Exception {
+        assertStatements(delete("/bookings/" + bookingIds.get(0)), passengerTokens.get(0), null, 6);
+    }
+
+    @Test
+    void joinWaitlist() throws Exception {
+        Long rideId = fullRide();
+        assertStatements(post("/bookings/waitlist"), passengerTokens.get(1), "{\"rideId\":" + rideId + "}", 5);
+    }
+
+    @Test
+    void getMyWaitlist() throws Exception {
+        Long rideId = fullRide();
+        send(post("/bookings/waitlist"), passengerTokens.get(1), "{\"rideId\":" + rideId + "}");
+        assertStatements(get("/bookings/my-waitlist"), passengerTokens.get(1), null, 1);
+    }
+
+    @Test
+    void leaveWaitlist() throws Exception {
+        Long rideId = fullRide();
+        send(post("/bookings/waitlist"), passengerTokens.get(1), "{\"rideId\":" + rideId + "}");
+        assertStatements(delete("/bookings/waitlist/" + rideId), passengerTokens.get(1), null, 2);
+    }
+
+    /**
+     * Sends the request and asserts it succeeded with exactly the expected statements
+     * Returns the response body
+     */
+    private String assertStatements(MockHttpServletRequestBuilder request, String token, String body,
+                                    int expected) throws Exception {
+        try (StatementRecording recording = SqlStatementCounter.start()) {
+            MvcResult result = send(request, token, body);
+            assertThat(recording.getCount()).as(recording::describe).isEqualTo(expected);
+            return result.getResponse().getContentAsString();
+        }
+    }
+
+    private MvcResult send(MockHttpServletRequestBuilder request, String token, String body) throws Exception {
+        request.header("Authorization", "Bearer " + token);
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).content(body);
+        }
+        MvcResult result = mockMvc.perform(request).andReturn();
+        String content = result.getResponse().getContentAsString();
+        assertThat(result.getResponse().getStatus() / 100).as(content).isEqualTo(2);
+        return result;
+    }
+
+    private Long createRide(String driverToken, int hour, int seats) throws Exception {
+        return id(send(post("/rides"), driverToken, rideBody(hour, seats)));
+    }
+
+    /**
+     * A one-seat ride whose seat the first passenger has booked and the driver confirmed
+     */
+    private Long fullRide() throws Exception {
+        Long rideId = createRide(driverTokens.get(0), 18, 1);
+        Long bookingId = id(send(post("/bookings"), passengerTokens.get(0), "{\"rideId\":" + rideId + "}"));
+        send(put("/bookings/" + bookingId + "/confirm"), driverTokens.get(0), null);
+        return rideId;
+    }
+
+    private String rideBody(int hour, int seats) {
+        return "{\"source\":\"" + source + "\",\"destination\":\"" + destination + "\","
+                + "\"sourceLatitude\":12.9716,\"sourceLongitude\":77.5946,"
+                + "\"destinationLatitude\":13.0827,\"destinationLongitude\":80.2707,"
+                + "\"rideDate\":\"" + RIDE_DATE + "\",\"rideTime\":\"" + String.format("%02d:00", hour) + "\","
+                + "\"totalSeats\":" + seats + ",\"pricePerSeat\":300.0}";
+    }
+
+    // The first search of a route-day reads it into the availability index
+    private void warmRouteDay() throws Exception {
+        send(post("/rides/search"), passengerTokens.get(0), searchBody());
+    }
+
+    private String searchBody() {
+        return "{\"source\":\"" + source + "\",\"destination\":\"" + destination + "\","
+                + "\"rideDate\":\"" + RIDE_DATE + "\"}";
+    }
+
+    private String token(User user) {
+        return tokenService.issue(user).token();
+    }
+
+    private User user(String username, UserRole role) {
+        return userRepository.save(TestUsers.user(username, role));
+    }
+
+    private static Long id(MvcResult result) throws Exception {
+        return ((Number) JsonPath.read(result.getResponse().getContentAsString(), "$.data.id")).longValue();
+    }
+}
@@ -0,0 +1,266 @@
+package com.carpooling.controller;
+
+import com.carpooling.entity.Ride;
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.UserRole;
+import com.carpooling.repository.BookingRepository;
+import com.carpooling.repository.RideRepository;
+import com.carpooling.repository.UserRepository;
+import com.carpooling.security.TokenService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.persistence.autoconfigure.EntityScan;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static com.carpooling.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load comparison of platform-thread and virtual-thread request execution
+ *
+ * Drives the search and booking endpoints through a real Tomcat with many concurrent
+ * clients and logs throughput and latency for each mode. The platform run uses a small
+ * Tomcat pool so the thread cap is visible; the virtual run relies on the Hikari pool and
+ * request bulkhead instead, and is skipped on JVMs without virtual threads. When both run,
+ * virtual-thread search throughput must stay within 20% of the capped platform pool.
+ * Tagged "load" and left out of the default build (see excludedTestGroups in the pom).
+ * The build targets Java 17, so only the platform run has been executed so far; the
+ * virtual run and the comparison need a Java 21 JVM:
+ * mvn test -Dtest=RequestThreadingLoadTest -Dgroups=load -DexcludedTestGroups=
+ */
+@Tag("load")
+@SpringBootTest(classes = RequestThreadingLoadTest.LoadTestApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:${random.uuid};DB_CLOSE_DELAY=-1",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.datasource.hikari.maximum-pool-size=10",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "spring.jpa.show-sql=false",
+                "spring.sql.init.mode=never",
+                "carpooling.outbox.sink=memory",
+                "logging.level.org.hibernate.SQL=INFO",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+                "logging.level.com.carpooling=INFO"
+        })
+class RequestThreadingLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestThreadingLoadTest.class);
+
+    private static final int CLIENTS = 200;
+    private static final int SEARCHES = 2000;
+    private static final int PASSENGERS = 600;
+    private static final int RIDES = 30;
+    private static final LocalDate RIDE_DATE = LocalDate.now().plusDays(7);
+
+    private static final String PLATFORM = "platform threads (tomcat max 16)";
+    private static final String VIRTUAL = "virtual threads (bulkhead 10)";
+
+    // Search results per mode, compared once both nested runs are done
+    private static final Map<String, Result> SEARCH_RESULTS = new ConcurrentHashMap<>();
+
+    @SpringBootApplication(scanBasePackages = "com.carpooling")
+    @EntityScan("com.carpooling.entity")
+    @EnableJpaRepositories("com.carpooling.repository")
+    static class LoadTestApplication {
+    }
+
+    @Nested
+    @TestPropertySource(properties = "server.tomcat.threads.max=16")
+    class PlatformThreads {
+
+        @Test
+        void searchAndBookingLoad() throws Exception {
+            runLoad(PLATFORM);
+        }
+    }
+
+    @Nested
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    @TestPropertySource(properties = {
+            "spring.threads.virtual.enabled=true",
+            "carpooling.bulkhead.enabled=true",
+            "carpooling.bulkhead.max-concurrent=10",
+            "carpooling.bulkhead.max-wait=2s"
+    })
+    class VirtualThreads {
+
+        @Test
+        void searchAndBookingLoad() throws Exception {
+            runLoad(VIRTUAL);
+        }
+    }
+
+    @AfterAll
+    static void virtualThreadsKeepUpWithThePlatformPool() {
+        Result platform = SEARCH_RESULTS.get(PLATFORM);
+        Result virtual = SEARCH_RESULTS.get(VIRTUAL);
+        if (platform != null && virtual != null) {
+            assertThat(virtual.throughput()).as("virtual-thread search req/s")
+                    .isGreaterThanOrEqualTo(platform.throughput() * 8 / 10);
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TokenService tokenService;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private final List<String> passengerTokens = new ArrayList<>();
+    private final List<Long> rideIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        User driver = userRepository.save(user("driver", UserRole.DRIVER));
+        List<Ride> rides = new ArrayList<>();
+        for (int i = 0; i < RIDES; i++) {
+            Ride ride = new Ride();
+            ride.setDriver(driver);
+            ride.setSource("Bangalore");
+            ride.setDestination("Chennai");
+            ride.setRideDate(RIDE_DATE);
+            ride.setRideTime(LocalTime.of(5, 0).plusMinutes(20L * i));
+            ride.setTotalSeats(PASSENGERS);
+            ride.setAvailableSeats(PASSENGERS);
+            ride.setPricePerSeat(600.0);
+            rides.add(ride);
+        }
+        rideRepository.saveAll(rides).forEach(ride -> rideIds.add(ride.getId()));
+
+        List<User> passengers = new ArrayList<>();
+        for (int i = 0; i < PASSENGERS; i++) {
+            passengers.add(user("passenger" + i, UserRole.PASSENGER));
+        }
+        userRepository.saveAll(passengers)
+                .forEach(passenger -> passengerTokens.add(tokenService.issue(passenger).token()));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        bookingRepository.deleteAllInBatch();
+        rideRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    private void runLoad(String mode) throws Exception {
+        String searchBody = "{\"source\":\"Bangalore\",\"destination\":\"Chennai\",\"rideDate\":\"" + RIDE_DATE + "\"}";
+        Result search = drive(SEARCHES, i -> post("/rides/search?page=0&size=10",
+                passengerTokens.get(i % PASSENGERS), searchBody));
+        Result booking = drive(PASSENGERS, i -> post("/bookings",
+                passengerTokens.get(i), "{\"rideId\":" + rideIds.get(i % RIDES) + "}"));
+
+        log.info("{} | search: {} | booking: {}", mode, search, booking);
+        SEARCH_RESULTS.put(mode, search);
+
+        assertThat(search.failed).as("failed searches").isZero();
+        assertThat(booking.failed).as("failed bookings").isZero();
+        assertThat(bookingRepository.count()).isEqualTo(booking.succeeded);
+    }
+
+    private HttpRequest post(String path, String token, String body) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api" + path))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    /**
+     * Send the requests from a fixed set of concurrent clients
+     * 503 from the bulkhead counts as shed load; anything else outside 2xx is a failure
+     */
+    private Result drive(int requests, IntFunction<HttpRequest> requestFor) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        List<Future<long[]>> futures = new ArrayList<>(requests);
+        long started = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            HttpRequest request = requestFor.apply(i);
+            futures.add(clients.submit(() -> {
+                long sent = System.nanoTime();
+                int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                return new long[]{status, System.nanoTime() - sent};
+            }));
+        }
+
+        long[] latencies = new long[requests];
+        int succeeded = 0;
+        int shed = 0;
+        int failed = 0;
+        for (int i = 0; i < requests; i++) {
+            long[] outcome = futures.get(i).get();
+            latencies[i] = outcome[1];
+            if (outcome[0] / 100 == 2) {
+                succeeded++;
+            } else if (outcome[0] == 503) {
+                shed++;
+            } else {
+                failed++;
+            }
+        }
+        long elapsedMillis = Math.max((System.nanoTime() - started) / 1_000_000, 1);
+        clients.shutdown();
+
+        Arrays.sort(latencies);
+        return new Result(requests, succeeded, shed, failed, elapsedMillis,
+                latencies[requests / 2] / 1_000_000, latencies[requests * 99 / 100] / 1_000_000);
+    }
+
+    private record Result(int requests, int succeeded, int shed, int failed,
+                          long elapsedMillis, long p50Millis, long p99Millis) {
+
+        long throughput() {
+            return requests * 1000L / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return requests + " requests in " + elapsedMillis + " ms (" + throughput()
+                    + " req/s), p50 " + p50Millis + " ms, p99 " + p99Millis + " ms, "
+                    + shed + " shed, " + failed + " failed";
+        }
+    }
+}
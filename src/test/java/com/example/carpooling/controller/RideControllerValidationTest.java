@@ -0,0 +1,132 @@
+package com.carpooling.controller;
+
+import com.carpooling.TestUsers;
+import com.carpooling.entity.enums.UserRole;
+import com.carpooling.repository.UserRepository;
+import com.carpooling.security.TokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Out-of-range and malformed request parameters of the ride endpoints are answered with 400
+ * Same context as EndpointStatementCountTest, so it is built only once
+ */
+@SpringBootTest(classes = RequestThreadingLoadTest.LoadTestApplication.class,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:${random.uuid};DB_CLOSE_DELAY=-1",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "spring.jpa.show-sql=false",
+                "spring.sql.init.mode=never",
+                "carpooling.ratelimit.enabled=false",
+                "carpooling.outbox.relay.enabled=false",
+                "carpooling.outbox.sink=memory",
+                "carpooling.sql.guard.sample-rate=0"
+        })
+@AutoConfigureMockMvc
+class RideControllerValidationTest {
+
+    private static final AtomicInteger FIXTURES = new AtomicInteger();
+
+    private static final String SEARCH_BODY = "{\"source\":\"Bangalore\",\"destination\":\"Mysore\","
+            + "\"rideDate\":\"" + LocalDate.now().plusDays(3) + "\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenService tokenService;
+
+    private String driverToken;
+
+    @BeforeEach
+    void setUp() {
+        int fixture = FIXTURES.incrementAndGet();
+        driverToken = tokenService.issue(userRepository.save(
+                TestUsers.user("validation" + fixture, UserRole.DRIVER))).token();
+    }
+
+    @Test
+    void cursorPageSizeOutOfRange() throws Exception {
+        for (String size : new String[] {"0", "-1", "101", String.valueOf(Integer.MAX_VALUE)}) {
+            assertStatus(post("/rides/search").param("cursor", "").param("size", size), SEARCH_BODY, 400);
+            assertStatus(get("/rides/my-rides").param("cursor", "").param("size", size), null, 400);
+        }
+        assertStatus(post("/rides/search").param("cursor", "").param("size", "100"), SEARCH_BODY, 200);
+        assertStatus(get("/rides/my-rides").param("cursor", "").param("size", "1"), null, 200);
+    }
+
+    @Test
+    void nearbyAndConnectionSearchInputErrors() throws Exception {
+        String date = LocalDate.now().plusDays(3).toString();
+        String nearby = "{\"pickupLatitude\":12.97,\"pickupLongitude\":77.59,\"rideDate\":\"" + date + "\"";
+        String connections = "{\"source\":\"Bangalore\",\"rideDate\":\"" + date + "\",\"destination\":";
+
+        for (String size : new String[] {"0", "101"}) {
+            assertStatus(post("/rides/search/nearby").param("size", size), nearby + "}", 400);
+        }
+        assertStatus(post("/rides/search/nearby"), nearby + ",\"dropoffLatitude\":12.3}", 400);
+        assertStatus(post("/rides/search/nearby").param("size", "100"), nearby + "}", 200);
+
+        for (String size : new String[] {"0", "51"}) {
+            assertStatus(post("/rides/search/connections").param("size", size), connections + "\"Mysore\"}", 400);
+        }
+        assertStatus(post("/rides/search/connections"), connections + "\" bangalore \"}", 400);
+        assertStatus(post("/rides/search/connections").param("size", "50"), connections + "\"Mysore\"}", 200);
+    }
+
+    @Test
+    void rideCoordinatesComeInPairs() throws Exception {
+        String ride = "{\"source\":\"Hassan\",\"destination\":\"Udupi\",\"rideDate\":\""
+                + LocalDate.now().plusDays(3) + "\",\"rideTime\":\"08:00\",\"totalSeats\":3,"
+                + "\"pricePerSeat\":200.0,\"sourceLatitude\":12.97";
+
+        assertStatus(post("/rides"), ride + "}", 400);
+        assertStatus(post("/rides"), ride + ",\"sourceLongitude\":77.59}", 201);
+    }
+
+    @Test
+    void seatStreamRideListOutOfRange() throws Exception {
+        String tooMany = LongStream.rangeClosed(1, 51).mapToObj(Long::toString).collect(Collectors.joining(","));
+
+        assertStatus(get("/rides/availability/stream").param("rideIds", tooMany), null, 400);
+        assertStatus(get("/rides/availability/stream").param("rideIds", ","), null, 400);
+    }
+
+    @Test
+    void malformedCursor() throws Exception {
+        assertStatus(post("/rides/search").param("cursor", "%%%"), SEARCH_BODY, 400);
+        assertStatus(get("/rides/my-rides").param("cursor", "bm90LWEtY3Vyc29y"), null, 400);
+    }
+
+    private void assertStatus(MockHttpServletRequestBuilder request, String body, int expected) throws Exception {
+        request.header("Authorization", "Bearer " + driverToken);
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).content(body);
+        }
+        MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+        assertThat(response.getStatus()).as(response.getContentAsString()).isEqualTo(expected);
+    }
+}
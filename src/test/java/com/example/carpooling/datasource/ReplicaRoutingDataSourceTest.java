@@ -0,0 +1,182 @@
+package com.carpooling.datasource;
+
+import com.carpooling.config.ReplicaDataSourceConfig;
+import com.carpooling.entity.Ride;
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.UserRole;
+import com.carpooling.exception.ResourceNotFoundException;
+import com.carpooling.repository.RideRepository;
+import com.carpooling.repository.UserRepository;
+import com.carpooling.search.ConnectionPlanner;
+import com.carpooling.search.RideAvailabilityIndex;
+import com.carpooling.search.RideGeoIndex;
+import com.carpooling.security.CustomUserDetails;
+import com.carpooling.security.TokenService;
+import com.carpooling.service.impl.RideServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Replica routing against two embedded H2 databases
+ * The replica is a snapshot of the primary, so later primary writes show up as replica lag
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "carpooling.datasource.replica.url=" + ReplicaRoutingDataSourceTest.REPLICA_URL,
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ReplicaDataSourceConfig.class, RideServiceImpl.class, RideAvailabilityIndex.class, RideGeoIndex.class,
+        ConnectionPlanner.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReplicaRoutingDataSourceTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private RideServiceImpl rideService;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @AfterEach
+    void cleanUp() {
+        rideRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        replica.execute("DROP ALL OBJECTS");
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsReadTheReplica() {
+        Long rideId = createRide(4);
+        replicate();
+
+        // Write on the primary that the replica has not caught up with yet
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                rideRepository.takeSeats(rideId, 3));
+
+        Integer primarySeats = new TransactionTemplate(transactionManager).execute(status ->
+                rideRepository.findAvailableSeatsById(rideId));
+
+        assertThat(rideService.getRideById(rideId).getAvailableSeats()).isEqualTo(4);
+        assertThat(primarySeats).isEqualTo(1);
+    }
+
+    @Test
+    void pinnedReadsSeeTheirOwnWrites() {
+        replicate();
+        Long rideId = createRide(4);
+
+        assertThatThrownBy(() -> rideService.getRideById(rideId)).isInstanceOf(ResourceNotFoundException.class);
+        assertThat(ReadYourWrites.onPrimary(() -> rideService.getRideById(rideId)).getAvailableSeats()).isEqualTo(4);
+    }
+
+    @Test
+    void filterPinsReadsAfterAWriteByTheSameUser() throws Exception {
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5));
+        List<Boolean> pinned = new ArrayList<>();
+
+        authenticate(7L);
+        filter.doFilter(request("GET"), new MockHttpServletResponse(), recording(pinned));
+        filter.doFilter(request("POST"), new MockHttpServletResponse(), recording(pinned));
+        filter.doFilter(request("GET"), new MockHttpServletResponse(), recording(pinned));
+        authenticate(8L);
+        filter.doFilter(request("GET"), new MockHttpServletResponse(), recording(pinned));
+
+        assertThat(pinned).containsExactly(false, false, true, false);
+        assertThat(ReadYourWrites.isPinnedToPrimary()).isFalse();
+    }
+
+    private Long createRide(int seats) {
+        User driver = new User();
+        driver.setUsername("driver");
+        driver.setEmail("driver@carpooling.com");
+        driver.setPassword("secret");
+        driver.setRole(UserRole.DRIVER);
+        driver = userRepository.save(driver);
+
+        Ride ride = new Ride();
+        ride.setDriver(driver);
+        ride.setSource("Pune");
+        ride.setDestination("Mumbai");
+        ride.setRideDate(LocalDate.now().plusDays(2));
+        ride.setRideTime(LocalTime.of(7, 30));
+        ride.setTotalSeats(seats);
+        ride.setAvailableSeats(seats);
+        ride.setPricePerSeat(400.0);
+        return rideRepository.save(ride).getId();
+    }
+
+    /**
+     * Copy schema and data from the primary to the replica
+     */
+    private void replicate() {
+        replica.execute("DROP ALL OBJECTS");
+        for (String statement : jdbcTemplate.queryForList("SCRIPT", String.class)) {
+            replica.execute(statement);
+        }
+    }
+
+    private static void authenticate(Long userId) {
+        CustomUserDetails principal = new CustomUserDetails(new TokenService.TokenClaims(
+                userId, "user" + userId, UserRole.PASSENGER, Instant.now().plusSeconds(60)));
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
+    }
+
+    private static MockHttpServletRequest request(String method) {
+        return new MockHttpServletRequest(method, "/bookings");
+    }
+
+    private static MockFilterChain recording(List<Boolean> pinned) {
+        return new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse response) {
+                pinned.add(ReadYourWrites.isPinnedToPrimary());
+            }
+        };
+    }
+}
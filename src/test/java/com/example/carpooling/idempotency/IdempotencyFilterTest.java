@@ -0,0 +1,172 @@
+package com.carpooling.idempotency;
+
+import com.carpooling.entity.enums.UserRole;
+import com.carpooling.security.CustomUserDetails;
+import com.carpooling.security.TokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for Idempotency-Key handling and the in-memory store
+ */
+class IdempotencyFilterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(Duration.ofHours(1), 100, now::get);
+    private final IdempotencyFilter filter = new IdempotencyFilter(store, List.of("/bookings", "/rides"));
+    private final AtomicInteger executions = new AtomicInteger();
+
+    // Stands in for the controller: creates a booking and echoes the request body
+    private final FilterChain createBooking = (request, response) -> {
+        int id = executions.incrementAndGet();
+        String body = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        ((HttpServletResponse) response).setStatus(201);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"id\":" + id + ",\"request\":" + body + "}");
+    };
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void repeatIsAnsweredFromTheStore() throws Exception {
+        authenticate(7L);
+        MockHttpServletResponse first = send("key-1", "{\"rideId\":3}", createBooking);
+        MockHttpServletResponse repeat = send("key-1", "{\"rideId\":3}", createBooking);
+
+        assertThat(executions).hasValue(1);
+        assertThat(repeat.getStatus()).isEqualTo(201);
+        assertThat(repeat.getContentAsString()).isEqualTo(first.getContentAsString())
+                .isEqualTo("{\"id\":1,\"request\":{\"rideId\":3}}");
+        assertThat(repeat.getContentType()).startsWith("application/json");
+        assertThat(repeat.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(first.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+        assertThat(filter.getReplayedCount()).isEqualTo(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        filter.bindTo(registry);
+        assertThat(registry.get(IdempotencyFilter.REPLAYED_NAME).functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void sameKeyForADifferentRequestIsRejected() throws Exception {
+        authenticate(7L);
+        send("key-1", "{\"rideId\":3}", createBooking);
+        MockHttpServletResponse other = send("key-1", "{\"rideId\":4}", createBooking);
+
+        assertThat(other.getStatus()).isEqualTo(422);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void repeatWhileTheFirstIsRunningIsAskedToRetry() throws Exception {
+        authenticate(7L);
+        AtomicReference<MockHttpServletResponse> concurrent = new AtomicReference<>();
+        FilterChain slowBooking = (request, response) -> {
+            concurrent.set(send("key-1", "{\"rideId\":3}", createBooking));
+            createBooking.doFilter(request, response);
+        };
+
+        MockHttpServletResponse first = send("key-1", "{\"rideId\":3}", slowBooking);
+
+        assertThat(first.getStatus()).isEqualTo(201);
+        assertThat(concurrent.get().getStatus()).isEqualTo(409);
+        assertThat(concurrent.get().getHeader("Retry-After")).isEqualTo("1");
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void failedRequestCanBeRetriedWithTheSameKey() throws Exception {
+        authenticate(7L);
+        FilterChain rideFull = (request, response) -> ((HttpServletResponse) response).setStatus(409);
+
+        assertThat(send("key-1", "{\"rideId\":3}", rideFull).getStatus()).isEqualTo(409);
+        assertThat(send("key-1", "{\"rideId\":3}", createBooking).getStatus()).isEqualTo(201);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void keysAreScopedToTheUser() throws Exception {
+        authenticate(7L);
+        send("key-1", "{\"rideId\":3}", createBooking);
+        authenticate(8L);
+        MockHttpServletResponse otherUser = send("key-1", "{\"rideId\":3}", createBooking);
+
+        assertThat(otherUser.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void requestsWithoutAKeyAreNotTracked() throws Exception {
+        authenticate(7L);
+        send(null, "{\"rideId\":3}", createBooking);
+        send(null, "{\"rideId\":3}", createBooking);
+
+        assertThat(executions).hasValue(2);
+        assertThat(store.getSize()).isZero();
+    }
+
+    @Test
+    void storeForgetsKeysAfterTtlAndWhenFull() {
+        InMemoryIdempotencyStore small = new InMemoryIdempotencyStore(Duration.ofMinutes(10), 2, now::get);
+        StoredResponse created = new StoredResponse(201, "application/json", new byte[0]);
+        small.claim("a", "fp");
+        small.complete("a", created);
+        now.incrementAndGet();
+        small.claim("b", "fp");
+        now.incrementAndGet();
+        small.claim("c", "fp");
+
+        // The key closest to expiry made room for the new one
+        assertThat(small.getSize()).isEqualTo(2);
+        assertThat(small.claim("a", "fp")).isEmpty();
+        assertThat(small.getEvictionCount()).isEqualTo(2);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        small.bindTo(registry);
+        assertThat(registry.get(InMemoryIdempotencyStore.SIZE_NAME).gauge().value()).isEqualTo(2.0);
+        assertThat(registry.get(InMemoryIdempotencyStore.EVICTIONS_NAME).functionCounter().count()).isEqualTo(2.0);
+
+        now.addAndGet(Duration.ofMinutes(10).toNanos());
+        assertThat(small.claim("c", "fp")).isEmpty();
+    }
+
+    private MockHttpServletResponse send(String key, String body, FilterChain chain) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/bookings");
+        request.setContextPath("/api");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.HEADER, key);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static void authenticate(Long userId) {
+        CustomUserDetails user = new CustomUserDetails(new TokenService.TokenClaims(
+                userId, "user" + userId, UserRole.PASSENGER, Instant.now().plusSeconds(60)));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
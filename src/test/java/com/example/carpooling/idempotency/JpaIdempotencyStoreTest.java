@@ -0,0 +1,112 @@
+package com.carpooling.idempotency;
+
+import com.carpooling.CarpoolingJpaTest;
+import com.carpooling.repository.IdempotentRequestRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Database-backed idempotency store: claims are inserts, so the table decides between
+ * concurrent requests
+ * Runs without a test transaction so that a failed claim does not roll back the test
+ */
+@CarpoolingJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JpaIdempotencyStoreTest {
+
+    private static final Instant START = Instant.parse("2026-03-01T08:00:00Z");
+
+    @Autowired
+    private IdempotentRequestRepository repository;
+
+    @AfterEach
+    void cleanUp() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    void secondClaimSeesTheFirstUntilItCompletes() {
+        JpaIdempotencyStore store = store(Clock.fixed(START, ZoneOffset.UTC), 10);
+
+        assertThat(store.claim("7:/bookings:key-1", "fp")).isEmpty();
+        assertThat(store.claim("7:/bookings:key-1", "fp")).hasValueSatisfying(record ->
+                assertThat(record.isCompleted()).isFalse());
+
+        store.complete("7:/bookings:key-1",
+                new StoredResponse(201, "application/json", "{\"id\":1}".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(store.claim("7:/bookings:key-1", "fp")).hasValueSatisfying(record -> {
+            assertThat(record.fingerprint()).isEqualTo("fp");
+            assertThat(record.response().status()).isEqualTo(201);
+            assertThat(new String(record.response().body(), StandardCharsets.UTF_8)).isEqualTo("{\"id\":1}");
+        });
+    }
+
+    @Test
+    void releasedAndExpiredKeysCanBeClaimedAgain() {
+        MutableClock clock = new MutableClock();
+        JpaIdempotencyStore store = store(clock, 10);
+
+        store.claim("released", "fp");
+        store.release("released");
+        assertThat(store.claim("released", "fp")).isEmpty();
+
+        store.claim("expired", "fp");
+        store.complete("expired", new StoredResponse(201, "application/json", new byte[0]));
+        clock.now = clock.now.plus(Duration.ofHours(2));
+        assertThat(store.claim("expired", "fp")).isEmpty();
+    }
+
+    @Test
+    void purgeDropsExpiredKeysAndTrimsToMaxSize() {
+        MutableClock clock = new MutableClock();
+        JpaIdempotencyStore store = store(clock, 2);
+        store.claim("old", "fp");
+        clock.now = clock.now.plus(Duration.ofMinutes(90));
+        store.claim("a", "fp");
+        clock.now = clock.now.plus(Duration.ofMinutes(1));
+        store.claim("b", "fp");
+        clock.now = clock.now.plus(Duration.ofMinutes(1));
+        store.claim("c", "fp");
+
+        store.purge();
+
+        assertThat(repository.findAll()).extracting(request -> request.getId()).containsExactlyInAnyOrder("b", "c");
+    }
+
+    private JpaIdempotencyStore store(Clock clock, int maxSize) {
+        return new JpaIdempotencyStore(repository, Duration.ofHours(1), maxSize, clock);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = START;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.carpooling.live;
+
+import com.carpooling.dto.response.SeatAvailabilityEvent;
+import com.carpooling.exception.InvalidRequestException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the seat availability feed: snapshot plus live changes, after-commit
+ * publishing, coalescing for slow consumers and fan-out to many idle subscribers
+ */
+class SeatAvailabilityFeedTest {
+
+    private static final int DISPATCH_THREADS = 2;
+
+    private final ScheduledThreadPoolExecutor dispatcher = new ScheduledThreadPoolExecutor(DISPATCH_THREADS);
+    private final SeatAvailabilityFeed feed = new SeatAvailabilityFeed(dispatcher, Duration.ofMinutes(30),
+            Duration.ZERO, 50);
+
+    @AfterEach
+    void tearDown() {
+        feed.shutdown();
+    }
+
+    @Test
+    void sendsSnapshotThenChangesOfSubscribedRidesOnly() {
+        RecordingSink sink = new RecordingSink();
+        RecordingSink otherRide = new RecordingSink();
+        feed.register(List.of(1L, 2L), sink, ids -> List.of(event(1L, 3), event(2L, 4)));
+        feed.register(List.of(3L), otherRide, ids -> List.of());
+        await(() -> sink.events.size() == 2);
+
+        feed.publish(1L, 2);
+
+        await(() -> sink.events.size() == 3);
+        assertThat(sink.latest()).isEqualTo(Map.of(1L, 2, 2L, 4));
+        assertThat(otherRide.events).isEmpty();
+    }
+
+    @Test
+    void liveValueIsNotOverwrittenBySnapshot() {
+        RecordingSink sink = new RecordingSink();
+
+        // The change commits while the snapshot is being read
+        feed.register(List.of(1L), sink, ids -> {
+            feed.publish(1L, 1);
+            return List.of(event(1L, 2));
+        });
+
+        await(() -> !sink.events.isEmpty());
+        assertThat(sink.latest()).isEqualTo(Map.of(1L, 1));
+    }
+
+    @Test
+    void publishInsideTransactionWaitsForCommit() {
+        RecordingSink sink = new RecordingSink();
+        feed.register(List.of(1L), sink, ids -> List.of());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            feed.publish(1L, 3);
+            assertThat(dispatcher.getTaskCount()).isZero();
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        await(() -> !sink.events.isEmpty());
+        assertThat(sink.latest()).isEqualTo(Map.of(1L, 3));
+    }
+
+    @Test
+    void slowConsumerReceivesOnlyTheLatestCount() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink slow = new RecordingSink(release);
+        RecordingSink fast = new RecordingSink();
+        feed.register(List.of(1L), slow, ids -> List.of());
+        feed.register(List.of(1L), fast, ids -> List.of());
+
+        feed.publish(1L, 3);
+        await(() -> slow.blocked);
+        // The slow client is stuck writing; publishing and the fast client carry on
+        for (int seats = 2; seats >= 0; seats--) {
+            feed.publish(1L, seats);
+        }
+        await(() -> fast.latest().equals(Map.of(1L, 0)));
+        release.countDown();
+
+        await(() -> slow.events.size() == 2);
+        assertThat(slow.events).extracting(SeatAvailabilityEvent::getAvailableSeats).containsExactly(3, 0);
+    }
+
+    @Test
+    void failedWriteRemovesSubscriber() {
+        RecordingSink broken = new RecordingSink();
+        broken.failing = true;
+        feed.register(List.of(1L), broken, ids -> List.of());
+
+        feed.publish(1L, 2);
+
+        await(() -> broken.closed);
+        assertThat(feed.getSubscriberCount()).isZero();
+    }
+
+    @Test
+    void rejectsEmptyAndOversizedSubscriptions() {
+        List<Long> tooMany = LongStream.rangeClosed(1, 51).boxed().toList();
+
+        assertThatThrownBy(() -> feed.register(List.of(), new RecordingSink(), ids -> List.of()))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> feed.register(tooMany, new RecordingSink(), ids -> List.of()))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThat(feed.getSubscriberCount()).isZero();
+    }
+
+    @Test
+    void fansOutToManyIdleSubscribersOnTheDispatcherPool() {
+        int rides = 2_000;
+        int subscribersPerRide = 10;
+        List<RecordingSink> sinks = new ArrayList<>();
+        for (long rideId = 1; rideId <= rides; rideId++) {
+            for (int i = 0; i < subscribersPerRide; i++) {
+                RecordingSink sink = new RecordingSink();
+                sinks.add(sink);
+                feed.register(List.of(rideId), sink, ids -> List.of());
+            }
+        }
+        assertThat(feed.getSubscriberCount()).isEqualTo(rides * subscribersPerRide);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        feed.bindTo(registry);
+        assertThat(registry.get(SeatAvailabilityFeed.SUBSCRIBERS_NAME).gauge().value()).isEqualTo(rides * subscribersPerRide);
+
+        for (long rideId = 1; rideId <= rides; rideId++) {
+            feed.publish(rideId, 1);
+        }
+
+        await(() -> sinks.stream().allMatch(sink -> sink.events.size() == 1));
+        assertThat(dispatcher.getLargestPoolSize()).isLessThanOrEqualTo(DISPATCH_THREADS);
+    }
+
+    private static SeatAvailabilityEvent event(Long rideId, int seats) {
+        return new SeatAvailabilityEvent(rideId, seats);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Records what the feed writes; optionally blocks on the first write like a client with a full socket buffer
+     */
+    private static final class RecordingSink implements SeatAvailabilityFeed.EventSink {
+
+        private final List<SeatAvailabilityEvent> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+        private volatile boolean blocked;
+        private volatile boolean failing;
+        private volatile boolean closed;
+
+        RecordingSink() {
+            this(new CountDownLatch(0));
+        }
+
+        RecordingSink(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SeatAvailabilityEvent event) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            blocked = true;
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            events.add(event);
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        Map<Long, Integer> latest() {
+            Map<Long, Integer> latest = new ConcurrentHashMap<>();
+            events.forEach(event -> latest.put(event.getRideId(), event.getAvailableSeats()));
+            return latest;
+        }
+    }
+}
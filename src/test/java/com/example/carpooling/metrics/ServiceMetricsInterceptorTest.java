@@ -0,0 +1,76 @@
+package com.carpooling.metrics;
+
+import com.carpooling.exception.BookingException;
+import com.carpooling.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the service method timers and rejection counters
+ */
+class ServiceMetricsInterceptorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void timesCallsByClassMethodAndOutcome() {
+        Seats seats = proxy(new SeatService(), Object.class);
+
+        seats.book(1);
+        seats.book(2);
+        assertThatThrownBy(() -> seats.book(0)).isInstanceOf(BookingException.class);
+
+        assertThat(registry.get(ServiceMetricsInterceptor.TIMER_NAME)
+                .tags("class", "SeatService", "method", "book", "exception", "none").timer().count()).isEqualTo(2);
+        assertThat(registry.get(ServiceMetricsInterceptor.TIMER_NAME)
+                .tags("exception", "BookingException").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void countsRejectionsOfTheRejectionSourceOnly() {
+        Seats source = proxy(new SeatService(), SeatService.class);
+        Seats other = proxy(new SeatService(), Object.class);
+
+        assertThatThrownBy(() -> source.book(0)).isInstanceOf(BookingException.class);
+        assertThatThrownBy(() -> source.book(-2)).isInstanceOf(BookingException.class);
+        assertThatThrownBy(() -> source.book(-1)).isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> other.book(0)).isInstanceOf(BookingException.class);
+
+        // Rejections with different messages share one series
+        assertThat(registry.get(ServiceMetricsInterceptor.REJECTIONS_NAME)
+                .tags("method", "book", "exception", "BookingException")
+                .counter().count()).isEqualTo(2);
+        assertThat(registry.find(ServiceMetricsInterceptor.REJECTIONS_NAME).counters()).hasSize(1);
+    }
+
+    private Seats proxy(SeatService target, Class<?> rejectionSource) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.addAdvice(new ServiceMetricsInterceptor(() -> registry, rejectionSource));
+        return (Seats) factory.getProxy();
+    }
+
+    interface Seats {
+        int book(int seats);
+    }
+
+    static class SeatService implements Seats {
+
+        @Override
+        public int book(int seats) {
+            if (seats == -1) {
+                throw new ResourceNotFoundException("Ride not found with ID: " + seats);
+            }
+            if (seats < 0) {
+                throw new BookingException("Cannot book " + seats + " seats");
+            }
+            if (seats == 0) {
+                throw new BookingException("No available seats for this ride");
+            }
+            return seats;
+        }
+    }
+}
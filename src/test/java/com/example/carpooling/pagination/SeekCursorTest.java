@@ -0,0 +1,68 @@
+package com.carpooling.pagination;
+
+import com.carpooling.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for encoding and decoding keyset continuation tokens
+ */
+class SeekCursorTest {
+
+    @Test
+    void roundTripsEveryCursorShape() {
+        SeekCursor byId = SeekCursor.decode(SeekCursor.afterId(42L).encode());
+        assertThat(byId.getId()).isEqualTo(42L);
+        assertThat(byId.getRideTime()).isNull();
+        assertThat(byId.getRideDate()).isNull();
+
+        SeekCursor byTime = SeekCursor.decode(SeekCursor.after(LocalTime.of(7, 30), 7L).encode());
+        assertThat(byTime.getRideTime()).isEqualTo(LocalTime.of(7, 30));
+        assertThat(byTime.getRideDate()).isNull();
+        assertThat(byTime.getId()).isEqualTo(7L);
+
+        LocalDate date = LocalDate.of(2026, 3, 1);
+        SeekCursor byDeparture = SeekCursor.decode(SeekCursor.after(date, LocalTime.of(23, 59, 59), 9L).encode());
+        assertThat(byDeparture.getRideDate()).isEqualTo(date);
+        assertThat(byDeparture.getRideTime()).isEqualTo(LocalTime.of(23, 59, 59));
+        assertThat(byDeparture.getId()).isEqualTo(9L);
+    }
+
+    @Test
+    void tokensAreUrlSafe() {
+        assertThat(SeekCursor.after(LocalDate.of(2026, 3, 1), LocalTime.of(6, 0), Long.MAX_VALUE).encode())
+                .matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void missingTokenStartsFromTheFirstRow() {
+        assertThat(SeekCursor.decode(null)).isNull();
+        assertThat(SeekCursor.decode("")).isNull();
+        assertThat(SeekCursor.decode("  ")).isNull();
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThatThrownBy(() -> SeekCursor.decode("not a cursor!"))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> SeekCursor.decode(token("42")))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> SeekCursor.decode(token("07:30|abc")))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> SeekCursor.decode(token("25:00|1")))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> SeekCursor.decode(token("2026-02-30T07:30|1")))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
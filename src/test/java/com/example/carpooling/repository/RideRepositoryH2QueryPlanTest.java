@@ -0,0 +1,137 @@
+package com.carpooling.repository;
+
+import com.carpooling.CarpoolingJpaTest;
+import com.carpooling.entity.Ride;
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.UserRole;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the ride search query against losing its index, on H2
+ * Runs the SQL that Hibernate generates for findAvailableRides through H2's EXPLAIN, which
+ * only shows that the predicate still matches idx_route_departure's columns. It says
+ * nothing about the plan MySQL picks; check that with EXPLAIN against a MySQL database.
+ */
+@CarpoolingJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.carpooling.repository.RideRepositoryH2QueryPlanTest$CapturingInspector"
+})
+class RideRepositoryH2QueryPlanTest {
+
+    private static final LocalDate RIDE_DATE = LocalDate.now().plusDays(1);
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        User driver = new User();
+        driver.setUsername("driver");
+        driver.setEmail("driver@carpooling.com");
+        driver.setPassword("secret");
+        driver.setRole(UserRole.DRIVER);
+        userRepository.save(driver);
+
+        String[][] routes = {{"Bangalore", "Udupi"}, {"Bangalore", "Manipal"}, {"Mysore", "Udupi"}};
+        for (int i = 0; i < 30; i++) {
+            String[] route = routes[i % routes.length];
+            Ride ride = new Ride();
+            ride.setDriver(driver);
+            ride.setSource(route[0]);
+            ride.setDestination(route[1]);
+            ride.setRideDate(RIDE_DATE.plusDays(i % 5));
+            ride.setRideTime(LocalTime.of(6, 0).plusMinutes(i));
+            ride.setTotalSeats(4);
+            ride.setAvailableSeats(1 + i % 4);
+            ride.setPricePerSeat(300.0);
+            rideRepository.save(ride);
+        }
+        rideRepository.flush();
+    }
+
+    @Test
+    void storesCanonicalLocationKeys() {
+        Ride ride = new Ride();
+        ride.setSource("  BanGalore ");
+        ride.setDestination("Udupi ");
+
+        assertThat(ride.getSourceKey()).isEqualTo("bangalore");
+        assertThat(ride.getDestinationKey()).isEqualTo("udupi");
+    }
+
+    @Test
+    void findAvailableRidesUsesRouteDepartureIndex() throws SQLException {
+        CapturingInspector.STATEMENTS.clear();
+
+        rideRepository.findAvailableRides("bangalore", "udupi", RIDE_DATE, LocalTime.of(6, 10),
+                RIDE_DATE, LocalTime.of(6, 20), PageRequest.of(0, 10));
+
+        String sql = CapturingInspector.STATEMENTS.stream()
+                .filter(statement -> statement.toLowerCase().startsWith("select"))
+                .reduce((first, second) -> second)
+                .orElseThrow();
+
+        assertThat(explain(sql, List.of("bangalore", "udupi", RIDE_DATE, RIDE_DATE,
+                RIDE_DATE, LocalTime.of(6, 10), RIDE_DATE, LocalTime.of(6, 20), 10)))
+                .containsIgnoringCase("idx_route_departure")
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    private String explain(String sql, List<Object> parameters) throws SQLException {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            int count = statement.getParameterMetaData().getParameterCount();
+            for (int i = 0; i < count; i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Records every SQL statement Hibernate prepares
+     */
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
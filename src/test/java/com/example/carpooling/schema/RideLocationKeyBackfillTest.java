@@ -0,0 +1,73 @@
+package com.carpooling.schema;
+
+import com.carpooling.CarpoolingJpaTest;
+import com.carpooling.entity.Ride;
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.UserRole;
+import com.carpooling.repository.RideRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static com.carpooling.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rides written before the location key columns existed become searchable again
+ */
+@CarpoolingJpaTest
+@Import(RideLocationKeyBackfill.class)
+class RideLocationKeyBackfillTest {
+
+    private static final LocalDate RIDE_DATE = LocalDate.now().plusDays(1);
+
+    @Autowired
+    private RideLocationKeyBackfill backfill;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void fillsInMissingKeysOnlyOnce() {
+        User driver = entityManager.persist(user("driver", UserRole.DRIVER));
+        Ride legacy = entityManager.persist(ride(driver, " Bangalore ", "UDUPI"));
+        Ride current = entityManager.persist(ride(driver, "Mysore", "Udupi"));
+        entityManager.flush();
+        // As left by ddl-auto=update adding the NOT NULL columns to existing rows
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE rides SET source_key = '', destination_key = '' WHERE id = :id")
+                .setParameter("id", legacy.getId())
+                .executeUpdate();
+        entityManager.clear();
+        assertThat(rideRepository.findAllAvailableRides("bangalore", "udupi", RIDE_DATE)).isEmpty();
+
+        assertThat(backfill.backfill()).isEqualTo(1);
+        entityManager.clear();
+
+        assertThat(rideRepository.findAllAvailableRides("bangalore", "udupi", RIDE_DATE))
+                .extracting(Ride::getId).containsExactly(legacy.getId());
+        assertThat(rideRepository.findAllAvailableRides("mysore", "udupi", RIDE_DATE))
+                .extracting(Ride::getId).containsExactly(current.getId());
+        assertThat(backfill.backfill()).isZero();
+    }
+
+    private Ride ride(User driver, String source, String destination) {
+        Ride ride = new Ride();
+        ride.setDriver(driver);
+        ride.setSource(source);
+        ride.setDestination(destination);
+        ride.setRideDate(RIDE_DATE);
+        ride.setRideTime(LocalTime.of(8, 0));
+        ride.setTotalSeats(3);
+        ride.setAvailableSeats(3);
+        ride.setPricePerSeat(200.0);
+        return ride;
+    }
+}
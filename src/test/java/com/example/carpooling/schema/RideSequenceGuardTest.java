@@ -0,0 +1,81 @@
+package com.carpooling.schema;
+
+import com.carpooling.CarpoolingJpaTest;
+import com.carpooling.entity.Ride;
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.UserRole;
+import com.carpooling.repository.RideRepository;
+import com.carpooling.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static com.carpooling.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * New rides never reuse an id handed out before the switch to the pooled sequence
+ * Runs without a test transaction: restarting a sequence is DDL, which commits
+ */
+@CarpoolingJpaTest
+@Import(RideSequenceGuard.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RideSequenceGuardTest {
+
+    private static final long LEGACY_ID = 1_000L;
+
+    @Autowired
+    private RideSequenceGuard guard;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @AfterEach
+    void cleanUp() {
+        rideRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void movesTheSequencePastExistingIdsOnlyOnce() {
+        User driver = userRepository.save(user("driver", UserRole.DRIVER));
+        // A ride created under IDENTITY, far ahead of the sequence, before anything drew from it
+        new JdbcTemplate(dataSource).update("INSERT INTO rides (id, driver_id, source, destination, source_key, "
+                + "destination_key, ride_date, ride_time, total_seats, available_seats, price_per_seat, version, "
+                + "created_at, updated_at) VALUES (?, ?, 'Bangalore', 'Mysore', 'bangalore', 'mysore', "
+                + "CURRENT_DATE, '08:00', 3, 3, 200.0, 0, NOW(), NOW())", LEGACY_ID, driver.getId());
+
+        assertThat(guard.advance()).isTrue();
+        assertThat(guard.advance()).isFalse();
+
+        Ride created = rideRepository.save(ride(driver));
+        assertThat(created.getId()).isGreaterThan(LEGACY_ID);
+    }
+
+    private static Ride ride(User driver) {
+        Ride ride = new Ride();
+        ride.setDriver(driver);
+        ride.setSource("Bangalore");
+        ride.setDestination("Mysore");
+        ride.setRideDate(LocalDate.now().plusDays(1));
+        ride.setRideTime(LocalTime.of(8, 0));
+        ride.setTotalSeats(3);
+        ride.setAvailableSeats(3);
+        ride.setPricePerSeat(200.0);
+        return ride;
+    }
+}
@@ -0,0 +1,179 @@
+package com.carpooling.search;
+
+import com.carpooling.CarpoolingJpaTest;
+import com.carpooling.dto.response.RideResponse;
+import com.carpooling.entity.Ride;
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.UserRole;
+import com.carpooling.repository.RideRepository;
+import com.carpooling.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.carpooling.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Loading, change tracking, paging and eviction of the ride availability index
+ * Runs without a test transaction so that refreshes are applied as they are after a commit
+ */
+@CarpoolingJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RideAvailabilityIndexTest {
+
+    // The index outlives each test's rows, so every test gets its own ride dates
+    private static final AtomicInteger FIXTURES = new AtomicInteger();
+
+    @Autowired
+    private RideAvailabilityIndex index;
+
+    @Autowired
+    private RideGeoIndex geoIndex;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User driver;
+    private LocalDate rideDate;
+
+    @BeforeEach
+    void setUp() {
+        driver = userRepository.save(user("driver", UserRole.DRIVER));
+        rideDate = LocalDate.now().plusDays(10L * FIXTURES.incrementAndGet());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        rideRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void changeToARouteDayNotYetLoadedDoesNotHideItsOtherRides() {
+        save(ride(rideDate, LocalTime.of(8, 0)));
+        Ride created = save(ride(rideDate, LocalTime.of(9, 0)));
+        index.refresh(created);
+
+        assertThat(search(rideDate, 10).getContent()).hasSize(2);
+    }
+
+    @Test
+    void loadedRouteDayFollowsChangesAndCountsWithoutWalking() {
+        save(ride(rideDate, LocalTime.of(8, 0)));
+        save(ride(rideDate, LocalTime.of(9, 0)));
+        assertThat(search(rideDate, 2).getTotalElements()).isEqualTo(2);
+
+        Ride added = save(ride(rideDate, LocalTime.of(7, 0)));
+        index.refresh(added);
+        Page<RideResponse> page = search(rideDate, 2);
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(RideResponse::getId).first().isEqualTo(added.getId());
+
+        index.refresh(added, 0);
+        assertThat(search(rideDate, 2).getTotalElements()).isEqualTo(2);
+        // Removing a ride that is no longer indexed leaves the count alone
+        index.refresh(added, 0);
+        assertThat(search(rideDate, 2).getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void routeDaysWithoutRidesAreNotKept() {
+        int routeDays = index.getRouteDayCount();
+        for (int day = 0; day < 50; day++) {
+            assertThat(index.search("Nowhere", "Elsewhere", DepartureWindow.of(rideDate.plusDays(day), null, null),
+                    PageRequest.of(0, 10)).getContent()).isEmpty();
+        }
+        assertThat(index.getRouteDayCount()).isEqualTo(routeDays);
+
+        Ride ride = save(ride(rideDate, LocalTime.of(8, 0)));
+        assertThat(search(rideDate, 10).getContent()).hasSize(1);
+        assertThat(index.getRouteDayCount()).isEqualTo(routeDays + 1);
+
+        // Booked out: the route-day is dropped and the next search reads the database again
+        index.refresh(ride, 0);
+        assertThat(index.getRouteDayCount()).isEqualTo(routeDays);
+        assertThat(search(rideDate, 10).getContent()).extracting(RideResponse::getId).containsExactly(ride.getId());
+    }
+
+    @Test
+    void sliceTellsWhetherMoreRidesFollowWithoutCounting() {
+        for (int hour = 6; hour < 9; hour++) {
+            save(ride(rideDate, LocalTime.of(hour, 0)));
+        }
+        DepartureWindow window = DepartureWindow.of(rideDate, null, null);
+
+        Slice<RideResponse> first = index.searchSlice("Bangalore", "Mysore", window, PageRequest.of(0, 2));
+        Slice<RideResponse> last = index.searchSlice("Bangalore", "Mysore", window, PageRequest.of(1, 2));
+
+        assertThat(first.getContent()).hasSize(2);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getContent()).hasSize(1);
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    void rebuildKeepsNewRidesAndEvictionDropsPastDates() {
+        save(ride(rideDate, LocalTime.of(8, 0)));
+        index.rebuild();
+        Ride created = save(ride(rideDate, LocalTime.of(9, 0)));
+        index.refresh(created);
+        assertThat(search(rideDate, 10).getContent()).hasSize(2);
+
+        index.refresh(save(ride(rideDate.plusDays(1), LocalTime.of(8, 0))));
+        assertThat(search(rideDate.plusDays(1), 10).getContent()).hasSize(1);
+        int routeDays = index.getRouteDayCount();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        index.bindTo(registry);
+        geoIndex.bindTo(registry);
+        assertThat(registry.get(RideAvailabilityIndex.ROUTE_DAYS_NAME).gauge().value()).isEqualTo(routeDays);
+        double geoRides = registry.get(RideGeoIndex.SIZE_NAME).gauge().value();
+
+        index.evictBefore(rideDate.plusDays(1));
+
+        assertThat(index.getRouteDayCount()).isLessThan(routeDays);
+        assertThat(registry.get(RideAvailabilityIndex.ROUTE_DAYS_NAME).gauge().value()).isLessThan(routeDays);
+        assertThat(registry.get(RideGeoIndex.SIZE_NAME).gauge().value()).isLessThan(geoRides);
+        assertThat(geoIndex.search(rideDate, 12.9716, 77.5946, null, null, 1000, 10)).isEmpty();
+        assertThat(geoIndex.search(rideDate.plusDays(1), 12.9716, 77.5946, null, null, 1000, 10)).hasSize(1);
+        // An evicted route-day is read again from the database when searched
+        assertThat(search(rideDate, 10).getContent()).hasSize(2);
+    }
+
+    private Page<RideResponse> search(LocalDate date, int size) {
+        return index.search("Bangalore", "Mysore", DepartureWindow.of(date, null, null), PageRequest.of(0, size));
+    }
+
+    private Ride save(Ride ride) {
+        return rideRepository.save(ride);
+    }
+
+    private Ride ride(LocalDate date, LocalTime time) {
+        Ride ride = new Ride();
+        ride.setDriver(driver);
+        ride.setSource("Bangalore");
+        ride.setDestination("Mysore");
+        ride.setSourceLatitude(12.9716);
+        ride.setSourceLongitude(77.5946);
+        ride.setRideDate(date);
+        ride.setRideTime(time);
+        ride.setTotalSeats(3);
+        ride.setAvailableSeats(3);
+        ride.setPricePerSeat(200.0);
+        return ride;
+    }
+}
@@ -0,0 +1,103 @@
+package com.carpooling.search;
+
+import com.carpooling.dto.response.NearbyRideResponse;
+import com.carpooling.dto.response.RideResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the grid-based nearby ride index
+ */
+class RideGeoIndexTest {
+
+    private static final LocalDate DATE = LocalDate.of(2026, 6, 1);
+
+    // Central Bangalore
+    private static final double LAT = 12.9716;
+    private static final double LON = 77.5946;
+
+    private final RideGeoIndex index = new RideGeoIndex(1000);
+
+    @Test
+    void ranksByPickupPlusDropoffDistance() {
+        index.put(ride(1L, DATE, LAT + 0.004, LON, LAT + 0.5, LON));
+        index.put(ride(2L, DATE, LAT + 0.001, LON, LAT + 0.5, LON + 0.006));
+        index.put(ride(3L, DATE, LAT + 0.002, LON, LAT + 0.5, LON));
+        // Outside the radius at pickup, at dropoff, other date, no dropoff point
+        index.put(ride(4L, DATE, LAT + 0.02, LON, LAT + 0.5, LON));
+        index.put(ride(5L, DATE, LAT, LON, LAT + 0.6, LON));
+        index.put(ride(6L, DATE.plusDays(1), LAT, LON, LAT + 0.5, LON));
+        index.put(ride(7L, DATE, LAT, LON, null, null));
+
+        List<NearbyRideResponse> withDropoff = index.search(DATE, LAT, LON, LAT + 0.5, LON, 1000, 10);
+        List<NearbyRideResponse> pickupOnly = index.search(DATE, LAT, LON, null, null, 1000, 10);
+
+        assertThat(withDropoff).extracting(nearby -> nearby.getRide().getId()).containsExactly(3L, 1L, 2L);
+        assertThat(withDropoff.get(0).getPickupDistanceMeters()).isBetween(220, 225);
+        assertThat(pickupOnly).extracting(nearby -> nearby.getRide().getId()).containsExactly(5L, 7L, 2L, 3L, 1L);
+        assertThat(pickupOnly.get(0).getDropoffDistanceMeters()).isNull();
+    }
+
+    @Test
+    void putMovesAndRemoveDrops() {
+        index.put(ride(1L, DATE, LAT, LON, null, null));
+        index.put(ride(1L, DATE, LAT + 0.1, LON, null, null));
+
+        assertThat(index.search(DATE, LAT, LON, null, null, 1000, 10)).isEmpty();
+        assertThat(index.search(DATE, LAT + 0.1, LON, null, null, 1000, 10)).hasSize(1);
+
+        index.remove(1L);
+        assertThat(index.search(DATE, LAT + 0.1, LON, null, null, 1000, 10)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void matchesBruteForceAtScale() {
+        Random random = new Random(42);
+        List<RideResponse> rides = new ArrayList<>();
+        // 50k rides with pickups spread over roughly 45 x 45 km
+        for (long id = 1; id <= 50_000; id++) {
+            rides.add(ride(id, DATE, LAT + random.nextDouble(-0.2, 0.2), LON + random.nextDouble(-0.2, 0.2),
+                    null, null));
+        }
+        index.replaceAll(rides);
+
+        for (int i = 0; i < 50; i++) {
+            double lat = LAT + random.nextDouble(-0.2, 0.2);
+            double lon = LON + random.nextDouble(-0.2, 0.2);
+            List<Long> expected = rides.stream()
+                    .filter(ride -> RideGeoIndex.distanceMeters(lat, lon,
+                            ride.getSourceLatitude(), ride.getSourceLongitude()) <= 1500)
+                    .map(RideResponse::getId)
+                    .sorted()
+                    .toList();
+            List<Long> actual = index.search(DATE, lat, lon, null, null, 1500, 1000).stream()
+                    .map(nearby -> nearby.getRide().getId())
+                    .sorted()
+                    .toList();
+            assertThat(actual).isEqualTo(expected);
+        }
+
+    }
+
+    private static RideResponse ride(Long id, LocalDate date, double latitude, double longitude,
+                                     Double dropoffLatitude, Double dropoffLongitude) {
+        RideResponse ride = new RideResponse();
+        ride.setId(id);
+        ride.setRideDate(date);
+        ride.setRideTime(LocalTime.of(8, 0));
+        ride.setSourceLatitude(latitude);
+        ride.setSourceLongitude(longitude);
+        ride.setDestinationLatitude(dropoffLatitude);
+        ride.setDestinationLongitude(dropoffLongitude);
+        ride.setAvailableSeats(3);
+        return ride;
+    }
+}
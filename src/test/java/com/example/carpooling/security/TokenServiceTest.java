@@ -0,0 +1,74 @@
+package com.carpooling.security;
+
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.UserRole;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for signed access token issue/verify
+ */
+class TokenServiceTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+    private static final Instant NOW = Instant.parse("2026-03-01T08:00:00Z");
+
+    private final TokenService tokenService =
+            new TokenService(SECRET, Duration.ofMinutes(30), Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void verifiesIssuedToken() {
+        TokenService.IssuedToken issued = tokenService.issue(user(42L, "a|b", UserRole.DRIVER));
+
+        TokenService.TokenClaims claims = tokenService.verify(issued.token()).orElseThrow();
+
+        assertThat(claims.userId()).isEqualTo(42L);
+        assertThat(claims.username()).isEqualTo("a|b");
+        assertThat(claims.role()).isEqualTo(UserRole.DRIVER);
+        assertThat(claims.expiresAt()).isEqualTo(NOW.plus(Duration.ofMinutes(30)));
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        String token = tokenService.issue(user(42L, "alice", UserRole.PASSENGER)).token();
+        TokenService later = new TokenService(SECRET, Duration.ofMinutes(30),
+                Clock.fixed(NOW.plus(Duration.ofMinutes(30)), ZoneOffset.UTC));
+
+        assertThat(later.verify(token)).isEmpty();
+    }
+
+    @Test
+    void rejectsTamperedOrForeignTokens() {
+        String token = tokenService.issue(user(42L, "alice", UserRole.PASSENGER)).token();
+        String forged = tokenService.issue(user(1L, "alice", UserRole.DRIVER)).token();
+        String swapped = forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.'));
+        TokenService otherKey = new TokenService("fedcba9876543210fedcba9876543210",
+                Duration.ofMinutes(30), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        assertThat(tokenService.verify(swapped)).isEmpty();
+        assertThat(otherKey.verify(token)).isEmpty();
+        assertThat(tokenService.verify("not-a-token")).isEmpty();
+        assertThat(tokenService.verify("%%%.%%%")).isEmpty();
+    }
+
+    @Test
+    void rejectsShortSecret() {
+        assertThatThrownBy(() -> new TokenService("short", Duration.ofMinutes(30), Clock.systemUTC()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static User user(Long id, String username, UserRole role) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setRole(role);
+        return user;
+    }
+}
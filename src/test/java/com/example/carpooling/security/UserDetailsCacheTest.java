@@ -0,0 +1,143 @@
+package com.carpooling.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the TTL/size bounded user details cache
+ */
+class UserDetailsCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void countsHitsAndMisses() {
+        UserDetailsCache cache = new UserDetailsCache(Duration.ofMinutes(5), 10, now::get);
+
+        assertThat(cache.getUserFromCache("alice")).isNull();
+        cache.putUserInCache(user("alice"));
+
+        assertThat(cache.getUserFromCache("alice").getPassword()).isEqualTo("hash-alice");
+        assertThat(cache.getUserFromCache("ALICE")).isNotNull();
+        assertThat(cache.getHitCount()).isEqualTo(2);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void expiresEntriesAfterTtl() {
+        UserDetailsCache cache = new UserDetailsCache(Duration.ofSeconds(30), 10, now::get);
+        cache.putUserInCache(user("alice"));
+
+        now.addAndGet(Duration.ofSeconds(29).toNanos());
+        assertThat(cache.getUserFromCache("alice")).isNotNull();
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(cache.getUserFromCache("alice")).isNull();
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        assertThat(cache.getSize()).isZero();
+    }
+
+    @Test
+    void evictsOldestEntryWhenFull() {
+        UserDetailsCache cache = new UserDetailsCache(Duration.ofMinutes(5), 2, now::get);
+        cache.putUserInCache(user("alice"));
+        now.incrementAndGet();
+        cache.putUserInCache(user("bob"));
+        now.incrementAndGet();
+        cache.putUserInCache(user("carol"));
+
+        assertThat(cache.getSize()).isEqualTo(2);
+        assertThat(cache.getUserFromCache("alice")).isNull();
+        assertThat(cache.getUserFromCache("bob")).isNotNull();
+        assertThat(cache.getUserFromCache("carol")).isNotNull();
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void removeInvalidatesEntry() {
+        UserDetailsCache cache = new UserDetailsCache(Duration.ofMinutes(5), 10, now::get);
+        cache.putUserInCache(user("alice"));
+
+        cache.removeUserFromCache("Alice");
+
+        assertThat(cache.getUserFromCache("alice")).isNull();
+    }
+
+    @Test
+    void erasingReturnedCredentialsDoesNotReachCachedEntry() {
+        UserDetailsCache cache = new UserDetailsCache(Duration.ofMinutes(5), 10, now::get);
+        cache.putUserInCache(user("alice"));
+
+        ((User) cache.getUserFromCache("alice")).eraseCredentials();
+
+        assertThat(cache.getUserFromCache("alice").getPassword()).isEqualTo("hash-alice");
+    }
+
+    @Test
+    void concurrentInsertsNeverExceedMaxSize() throws Exception {
+        UserDetailsCache cache = new UserDetailsCache(Duration.ofMinutes(5), 8, now::get);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger largest = new AtomicInteger();
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 2_000; i++) {
+                        cache.putUserInCache(user("user" + thread + "-" + i));
+                        largest.accumulateAndGet(cache.getSize(), Math::max);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(largest.get()).isLessThanOrEqualTo(8);
+        assertThat(cache.getSize()).isEqualTo(8);
+    }
+
+    @Test
+    void publishesStatisticsAsCacheMeters() {
+        UserDetailsCache cache = new UserDetailsCache(Duration.ofMinutes(5), 1, now::get);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.getUserFromCache("alice");
+        cache.putUserInCache(user("alice"));
+        cache.getUserFromCache("alice");
+        cache.putUserInCache(user("bob"));
+
+        assertThat(registry.get("cache.gets").tags("cache", "users", "result", "hit").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("cache.gets").tags("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.evictions").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.size").gauge().value()).isEqualTo(1);
+    }
+
+    private static UserDetails user(String username) {
+        return User.withUsername(username).password("hash-" + username).roles("PASSENGER").build();
+    }
+}
@@ -0,0 +1,182 @@
+package com.carpooling.service.impl;
+
+import com.carpooling.CarpoolingJpaTest;
+import com.carpooling.dto.request.BookingBatchRequest;
+import com.carpooling.dto.response.BookingBatchItemResult;
+import com.carpooling.dto.response.BookingBatchResponse;
+import com.carpooling.entity.Booking;
+import com.carpooling.entity.Ride;
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.BookingStatus;
+import com.carpooling.entity.enums.UserRole;
+import com.carpooling.exception.BookingException;
+import com.carpooling.exception.UnauthorizedException;
+import com.carpooling.repository.RideRepository;
+import com.carpooling.waitlist.SeatsReturnedEvent;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static com.carpooling.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Confirming and rejecting several bookings of a ride at once
+ */
+@CarpoolingJpaTest
+@RecordApplicationEvents
+class BookingBatchTest {
+
+    private static final long UNKNOWN_BOOKING = 999_999L;
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    private User driver;
+    private final List<User> passengers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        driver = entityManager.persist(user("driver", UserRole.DRIVER));
+        for (int i = 0; i < 5; i++) {
+            passengers.add(entityManager.persist(user("passenger" + i, UserRole.PASSENGER)));
+        }
+    }
+
+    @Test
+    void confirmGrantsSeatsInRequestOrderAndReportsEveryOtherBooking() {
+        Ride ride = ride(2, 2);
+        Long first = booking(ride, 0, BookingStatus.REQUESTED);
+        Long second = booking(ride, 1, BookingStatus.REQUESTED);
+        Long third = booking(ride, 2, BookingStatus.REQUESTED);
+        Long cancelled = booking(ride, 3, BookingStatus.CANCELLED);
+
+        BookingBatchResponse response = bookingService.decideBookings(ride.getId(), "confirm",
+                List.of(second, first, third, cancelled, UNKNOWN_BOOKING), driver.getId());
+
+        assertThat(response.getAction()).isEqualTo("CONFIRM");
+        assertThat(response.getAvailableSeats()).isZero();
+        assertThat(response.getSucceeded()).isEqualTo(2);
+        assertThat(response.getFailed()).isEqualTo(3);
+        assertThat(response.getResults()).extracting(BookingBatchItemResult::getBookingId)
+                .containsExactly(second, first, third, cancelled, UNKNOWN_BOOKING);
+        assertThat(response.getResults()).extracting(BookingBatchItemResult::getMessage).containsExactly(
+                "Booking confirmed", "Booking confirmed", "No available seats for this ride",
+                "Only REQUESTED bookings can be confirmed", "Booking not found for this ride");
+        assertThat(status(first)).isEqualTo(BookingStatus.CONFIRMED);
+        assertThat(status(third)).isEqualTo(BookingStatus.REQUESTED);
+    }
+
+    @Test
+    void rejectCancelsBookingsAndReturnsTheConfirmedSeats() {
+        Ride ride = ride(3, 1);
+        Long confirmed = booking(ride, 0, BookingStatus.CONFIRMED);
+        Long otherConfirmed = booking(ride, 1, BookingStatus.CONFIRMED);
+        Long requested = booking(ride, 2, BookingStatus.REQUESTED);
+        Long cancelled = booking(ride, 3, BookingStatus.CANCELLED);
+
+        BookingBatchResponse response = bookingService.decideBookings(ride.getId(), "REJECT",
+                List.of(confirmed, requested, cancelled, otherConfirmed), driver.getId());
+
+        assertThat(response.getAvailableSeats()).isEqualTo(3);
+        assertThat(response.getSucceeded()).isEqualTo(3);
+        assertThat(response.getResults()).filteredOn(result -> !result.isSuccess())
+                .extracting(BookingBatchItemResult::getBookingId).containsExactly(cancelled);
+        assertThat(status(requested)).isEqualTo(BookingStatus.CANCELLED);
+        assertThat(events.stream(SeatsReturnedEvent.class)).containsExactly(new SeatsReturnedEvent(ride.getId(), 2));
+    }
+
+    @Test
+    void rejectReportsOnlyTheSeatsTheRideWasMissing() {
+        // Two confirmed bookings, but the ride already shows all but one seat free
+        Ride ride = ride(3, 2);
+        Long confirmed = booking(ride, 0, BookingStatus.CONFIRMED);
+        Long otherConfirmed = booking(ride, 1, BookingStatus.CONFIRMED);
+
+        BookingBatchResponse response = bookingService.decideBookings(ride.getId(), "REJECT",
+                List.of(confirmed, otherConfirmed), driver.getId());
+
+        assertThat(response.getSucceeded()).isEqualTo(2);
+        assertThat(response.getAvailableSeats()).isEqualTo(3);
+        assertThat(events.stream(SeatsReturnedEvent.class)).containsExactly(new SeatsReturnedEvent(ride.getId(), 1));
+    }
+
+    @Test
+    void rejectsUnknownActionsAndOtherDrivers() {
+        Ride ride = ride(2, 2);
+        Long requested = booking(ride, 0, BookingStatus.REQUESTED);
+
+        assertThatThrownBy(() -> bookingService.decideBookings(ride.getId(), "approve", List.of(requested),
+                driver.getId())).isInstanceOf(BookingException.class);
+        assertThatThrownBy(() -> bookingService.decideBookings(ride.getId(), "CONFIRM", List.of(requested),
+                passengers.get(0).getId())).isInstanceOf(UnauthorizedException.class);
+        assertThat(status(requested)).isEqualTo(BookingStatus.REQUESTED);
+    }
+
+    @Test
+    void batchesAreCappedAtOneHundredBookings() {
+        try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+            Validator validator = factory.getValidator();
+
+            assertThat(validator.validate(request(100))).isEmpty();
+            assertThat(validator.validate(request(101))).singleElement()
+                    .satisfies(violation -> assertThat(violation.getMessage())
+                            .isEqualTo("At most 100 bookings can be processed at once"));
+        }
+    }
+
+    private static BookingBatchRequest request(int bookings) {
+        BookingBatchRequest request = new BookingBatchRequest();
+        request.setAction("CONFIRM");
+        request.setBookingIds(LongStream.rangeClosed(1, bookings).boxed().toList());
+        return request;
+    }
+
+    private BookingStatus status(Long bookingId) {
+        entityManager.clear();
+        return entityManager.find(Booking.class, bookingId).getStatus();
+    }
+
+    private Ride ride(int totalSeats, int availableSeats) {
+        Ride ride = new Ride();
+        ride.setDriver(driver);
+        ride.setSource("Pune");
+        ride.setDestination("Nashik");
+        ride.setRideDate(LocalDate.now().plusDays(4));
+        ride.setRideTime(LocalTime.of(7, 0));
+        ride.setTotalSeats(totalSeats);
+        ride.setAvailableSeats(availableSeats);
+        ride.setPricePerSeat(250.0);
+        return rideRepository.save(ride);
+    }
+
+    private Long booking(Ride ride, int passenger, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setRide(ride);
+        booking.setPassenger(passengers.get(passenger));
+        booking.setStatus(status);
+        return entityManager.persistAndFlush(booking).getId();
+    }
+}
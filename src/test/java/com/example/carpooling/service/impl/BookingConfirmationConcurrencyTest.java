@@ -0,0 +1,193 @@
+package com.carpooling.service.impl;
+
+import com.carpooling.CarpoolingJpaTest;
+import com.carpooling.entity.Booking;
+import com.carpooling.entity.Ride;
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.BookingStatus;
+import com.carpooling.entity.enums.UserRole;
+import com.carpooling.exception.BookingException;
+import com.carpooling.repository.BookingRepository;
+import com.carpooling.repository.RideRepository;
+import com.carpooling.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.carpooling.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stress test for concurrent booking confirmations on a single ride
+ * Proves the conditional seat UPDATE never oversells, and logs its throughput
+ * next to the previous read-modify-write implementation, which the ride's @Version
+ * now fails on conflicting writes instead of losing seat updates
+ */
+@CarpoolingJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingConfirmationConcurrencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingConfirmationConcurrencyTest.class);
+
+    private static final int PASSENGERS = 300;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        bookingRepository.deleteAllInBatch();
+        rideRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void concurrentConfirmationsNeverOversell() throws InterruptedException {
+        int seats = 40;
+        Fixture fixture = createFixture(seats);
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        long elapsed = runConcurrently(fixture.bookingIds, bookingId -> {
+            try {
+                bookingService.confirmBooking(bookingId, fixture.driverId);
+                confirmed.incrementAndGet();
+            } catch (BookingException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        log.info("Conditional UPDATE: {} confirmations in {} ms ({} ops/s)",
+                PASSENGERS, elapsed, PASSENGERS * 1000L / Math.max(elapsed, 1));
+
+        assertThat(confirmed.get()).isEqualTo(seats);
+        assertThat(rejected.get()).isEqualTo(PASSENGERS - seats);
+        assertThat(rideRepository.findAvailableSeatsById(fixture.rideId)).isZero();
+        assertThat(bookingRepository.countByRideIdAndStatus(fixture.rideId, BookingStatus.CONFIRMED))
+                .isEqualTo(seats);
+    }
+
+    @Test
+    void readModifyWriteBaselineFailsOnVersionConflicts() throws InterruptedException {
+        // Enough seats that the previous implementation never hits zero (which it could not save)
+        int seats = PASSENGERS * 2;
+        Fixture fixture = createFixture(seats);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        AtomicInteger committed = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        long elapsed = runConcurrently(fixture.bookingIds, bookingId -> {
+            try {
+                transaction.executeWithoutResult(status -> {
+                    Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+                    booking.setStatus(BookingStatus.CONFIRMED);
+                    Ride ride = booking.getRide();
+                    ride.setAvailableSeats(ride.getAvailableSeats() - 1);
+                    rideRepository.save(ride);
+                    bookingRepository.save(booking);
+                });
+                committed.incrementAndGet();
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.incrementAndGet();
+            }
+        });
+
+        log.info("Read-modify-write: {} confirmations in {} ms ({} ops/s), {} failed on a version conflict",
+                PASSENGERS, elapsed, PASSENGERS * 1000L / Math.max(elapsed, 1), conflicts.get());
+
+        // @Version turns what used to be lost seat updates into failed transactions
+        assertThat(conflicts.get()).isPositive();
+        assertThat(committed.get() + conflicts.get()).isEqualTo(PASSENGERS);
+        assertThat(rideRepository.findAvailableSeatsById(fixture.rideId)).isEqualTo(seats - committed.get());
+    }
+
+    private long runConcurrently(List<Long> bookingIds, Consumer<Long> task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(bookingIds.size());
+        for (Long bookingId : bookingIds) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    task.accept(bookingId);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        assertThat(done.await(2, TimeUnit.MINUTES)).isTrue();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        executor.shutdown();
+        return elapsed;
+    }
+
+    private Fixture createFixture(int seats) {
+        User driver = userRepository.save(user("driver", UserRole.DRIVER));
+
+        Ride ride = new Ride();
+        ride.setDriver(driver);
+        ride.setSource("Bangalore");
+        ride.setDestination("Udupi");
+        ride.setRideDate(LocalDate.now().plusDays(1));
+        ride.setRideTime(LocalTime.of(6, 0));
+        ride.setTotalSeats(seats);
+        ride.setAvailableSeats(seats);
+        ride.setPricePerSeat(300.0);
+        ride = rideRepository.save(ride);
+
+        List<User> passengers = new ArrayList<>();
+        for (int i = 0; i < PASSENGERS; i++) {
+            passengers.add(user("passenger" + i, UserRole.PASSENGER));
+        }
+        userRepository.saveAll(passengers);
+
+        List<Booking> bookings = new ArrayList<>();
+        for (User passenger : passengers) {
+            Booking booking = new Booking();
+            booking.setRide(ride);
+            booking.setPassenger(passenger);
+            bookings.add(booking);
+        }
+        List<Long> bookingIds = bookingRepository.saveAll(bookings).stream().map(Booking::getId).toList();
+
+        return new Fixture(driver.getId(), ride.getId(), bookingIds);
+    }
+
+    private record Fixture(Long driverId, Long rideId, List<Long> bookingIds) {
+    }
+}
@@ -0,0 +1,276 @@
+package com.carpooling.service.impl;
+
+import com.carpooling.CarpoolingJpaTest;
+import com.carpooling.entity.BookingOutboxEvent;
+import com.carpooling.entity.Ride;
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.BookingStatus;
+import com.carpooling.entity.enums.UserRole;
+import com.carpooling.exception.BookingException;
+import com.carpooling.outbox.BookingStatusChange;
+import com.carpooling.outbox.FileOutboxSink;
+import com.carpooling.outbox.InMemoryOutboxSink;
+import com.carpooling.outbox.OutboxRelay;
+import com.carpooling.outbox.OutboxSink;
+import com.carpooling.repository.BookingOutboxRepository;
+import com.carpooling.repository.BookingRepository;
+import com.carpooling.repository.RideRepository;
+import com.carpooling.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.carpooling.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Booking status changes written to the outbox with the change, and relayed from it
+ * Runs without a test transaction so that every service call commits (or rolls back) on its own
+ */
+@CarpoolingJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingOutboxTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+
+    @Autowired
+    private BookingOutboxRepository outboxRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User driver;
+    private Ride ride;
+    private final List<User> passengers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAllInBatch();
+        driver = userRepository.save(user("driver", UserRole.DRIVER));
+        for (int i = 0; i < 3; i++) {
+            passengers.add(userRepository.save(user("passenger" + i, UserRole.PASSENGER)));
+        }
+        ride = new Ride();
+        ride.setDriver(driver);
+        ride.setSource("Pune");
+        ride.setDestination("Mumbai");
+        ride.setRideDate(LocalDate.now().plusDays(2));
+        ride.setRideTime(LocalTime.of(6, 30));
+        ride.setTotalSeats(1);
+        ride.setAvailableSeats(1);
+        ride.setPricePerSeat(400.0);
+        ride = rideRepository.save(ride);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        outboxRepository.deleteAllInBatch();
+        bookingRepository.deleteAllInBatch();
+        rideRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void everyStatusChangeIsWrittenAndRolledBackWithIt() {
+        Long first = bookingService.bookRide(ride.getId(), passengers.get(0).getId()).getId();
+        Long second = bookingService.bookRide(ride.getId(), passengers.get(1).getId()).getId();
+        bookingService.confirmBooking(first, driver.getId());
+        // The only seat is taken: the failed confirmation leaves no event behind
+        assertThatThrownBy(() -> bookingService.confirmBooking(second, driver.getId()))
+                .isInstanceOf(BookingException.class);
+        bookingService.cancelBooking(first, passengers.get(0).getId());
+        bookingService.decideBookings(ride.getId(), "reject", List.of(second), driver.getId());
+
+        List<BookingOutboxEvent> events = outboxRepository.findAll().stream()
+                .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                .toList();
+
+        assertThat(events).extracting(BookingOutboxEvent::getBookingId)
+                .containsExactly(first, second, first, first, second);
+        assertThat(events).extracting(BookingOutboxEvent::getPreviousStatus)
+                .containsExactly(null, null, BookingStatus.REQUESTED, BookingStatus.CONFIRMED, BookingStatus.REQUESTED);
+        assertThat(events).extracting(BookingOutboxEvent::getStatus)
+                .containsExactly(BookingStatus.REQUESTED, BookingStatus.REQUESTED, BookingStatus.CONFIRMED,
+                        BookingStatus.CANCELLED, BookingStatus.CANCELLED);
+        assertThat(events).allSatisfy(event -> assertThat(event.getRideId()).isEqualTo(ride.getId()));
+    }
+
+    @Test
+    void relayDeliversInOrderInBatchesAndEmptiesTheOutbox() {
+        List<Long> bookingIds = bookAll();
+        InMemoryOutboxSink sink = new InMemoryOutboxSink(100);
+        OutboxRelay relay = new OutboxRelay(outboxRepository, sink, 2, MAX_ATTEMPTS);
+
+        relay.relay();
+
+        assertThat(sink.getChanges()).extracting(BookingStatusChange::bookingId)
+                .containsExactlyElementsOf(bookingIds);
+        assertThat(outboxRepository.count()).isZero();
+        assertThat(relay.getDeliveredCount()).isEqualTo(bookingIds.size());
+    }
+
+    @Test
+    void failedDeliveryIsRetriedWithoutReordering() {
+        List<Long> bookingIds = bookAll();
+        InMemoryOutboxSink delivered = new InMemoryOutboxSink(100);
+        FlakySink sink = new FlakySink(delivered, 1);
+        OutboxRelay relay = new OutboxRelay(outboxRepository, sink, 10, MAX_ATTEMPTS);
+
+        relay.relay();
+
+        // The change before the failure is delivered; the failed one and everything after it wait
+        assertThat(delivered.getChanges()).extracting(BookingStatusChange::bookingId)
+                .containsExactly(bookingIds.get(0));
+        assertThat(outboxRepository.count()).isEqualTo(bookingIds.size() - 1);
+        assertThat(outboxRepository.findAll()).filteredOn(event -> event.getAttempts() == 1)
+                .extracting(BookingOutboxEvent::getBookingId).containsExactly(bookingIds.get(1));
+
+        relay.relay();
+
+        assertThat(delivered.getChanges()).extracting(BookingStatusChange::bookingId)
+                .containsExactlyElementsOf(bookingIds);
+        assertThat(outboxRepository.count()).isZero();
+        assertThat(relay.getFailureCount()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectedEventIsDeadLetteredAndStopsBlockingTheRelay() {
+        List<Long> bookingIds = bookAll();
+        InMemoryOutboxSink delivered = new InMemoryOutboxSink(100);
+        RejectingSink sink = new RejectingSink(delivered, bookingIds.get(1), new IllegalArgumentException("Bad payload"));
+        OutboxRelay relay = new OutboxRelay(outboxRepository, sink, 10, MAX_ATTEMPTS);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        relay.bindTo(registry);
+
+        for (int run = 0; run < MAX_ATTEMPTS; run++) {
+            relay.relay();
+        }
+        assertThat(relay.getDeadLetteredCount()).isEqualTo(1);
+        relay.relay();
+
+        assertThat(delivered.getChanges()).extracting(BookingStatusChange::bookingId)
+                .containsExactly(bookingIds.get(0), bookingIds.get(2));
+        assertThat(outboxRepository.findAll()).singleElement().satisfies(event -> {
+            assertThat(event.getBookingId()).isEqualTo(bookingIds.get(1));
+            assertThat(event.isDeadLettered()).isTrue();
+            assertThat(event.getAttempts()).isEqualTo(MAX_ATTEMPTS);
+            assertThat(event.getLastError()).contains("Bad payload");
+        });
+        assertThat(outboxRepository.countByDeadLetteredTrue()).isEqualTo(1);
+        assertThat(registry.get(OutboxRelay.DELIVERED_NAME).functionCounter().count()).isEqualTo(2.0);
+        assertThat(registry.get(OutboxRelay.FAILURES_NAME).functionCounter().count()).isEqualTo(MAX_ATTEMPTS);
+        assertThat(registry.get(OutboxRelay.DEAD_LETTERED_NAME).functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void unreachableSinkIsRetriedWithoutDeadLettering() {
+        List<Long> bookingIds = bookAll();
+        InMemoryOutboxSink delivered = new InMemoryOutboxSink(100);
+        RejectingSink sink = new RejectingSink(delivered, bookingIds.get(0), new IOException("Connection refused"));
+        OutboxRelay relay = new OutboxRelay(outboxRepository, sink, 10, MAX_ATTEMPTS);
+
+        for (int run = 0; run <= MAX_ATTEMPTS; run++) {
+            relay.relay();
+        }
+
+        assertThat(delivered.getChanges()).isEmpty();
+        assertThat(relay.getDeadLetteredCount()).isZero();
+        assertThat(outboxRepository.count()).isEqualTo(bookingIds.size());
+        assertThat(outboxRepository.countByDeadLetteredTrue()).isZero();
+    }
+
+    @Test
+    void fileSinkAppendsOneJsonLinePerChange(@TempDir Path dir) throws IOException {
+        List<Long> bookingIds = bookAll();
+        Path file = dir.resolve("outbox/booking-events.ndjson");
+
+        try (FileOutboxSink sink = new FileOutboxSink(file, JsonMapper.builder().build())) {
+            new OutboxRelay(outboxRepository, sink, 100, MAX_ATTEMPTS).relay();
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(bookingIds.size());
+        assertThat(lines.get(0)).contains("\"bookingId\":" + bookingIds.get(0), "\"status\":\"REQUESTED\"");
+    }
+
+    private List<Long> bookAll() {
+        return passengers.stream()
+                .map(passenger -> bookingService.bookRide(ride.getId(), passenger.getId()).getId())
+                .toList();
+    }
+
+    /**
+     * Always fails on one booking's change: a rejected payload, or with IOException an unreachable broker
+     */
+    private static final class RejectingSink implements OutboxSink {
+
+        private final OutboxSink target;
+        private final Long rejectedBookingId;
+        private final Exception failure;
+
+        RejectingSink(OutboxSink target, Long rejectedBookingId, Exception failure) {
+            this.target = target;
+            this.rejectedBookingId = rejectedBookingId;
+            this.failure = failure;
+        }
+
+        @Override
+        public void send(BookingStatusChange change) throws IOException {
+            if (change.bookingId().equals(rejectedBookingId)) {
+                if (failure instanceof IOException io) {
+                    throw io;
+                }
+                throw (RuntimeException) failure;
+            }
+            target.send(change);
+        }
+    }
+
+    /**
+     * Fails once on the n-th change (0-based) it is given, like a broker that drops a connection
+     */
+    private static final class FlakySink implements OutboxSink {
+
+        private final OutboxSink target;
+        private int failAt;
+        private int seen;
+
+        FlakySink(OutboxSink target, int failAt) {
+            this.target = target;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public void send(BookingStatusChange change) throws IOException {
+            if (seen++ == failAt) {
+                failAt = -1;
+                throw new IOException("Connection reset");
+            }
+            target.send(change);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.carpooling.service.impl;
+
+import com.carpooling.CarpoolingJpaTest;
+import com.carpooling.dto.request.ConnectionSearchRequest;
+import com.carpooling.dto.request.ConnectionSearchRequest.SortBy;
+import com.carpooling.dto.request.RideCreateRequest;
+import com.carpooling.dto.response.ItineraryResponse;
+import com.carpooling.dto.response.RideResponse;
+import com.carpooling.entity.Ride;
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.UserRole;
+import com.carpooling.repository.RideRepository;
+import com.carpooling.repository.UserRepository;
+import com.carpooling.search.RideAvailabilityIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Multi-hop planning over one day's rides, including updates made after the graph was built
+ * Runs without a test transaction so that after-commit index updates fire
+ */
+@CarpoolingJpaTest
+@TestPropertySource(properties = "carpooling.planner.min-connection=15m")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ConnectionPlanningTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(4);
+
+    @Autowired
+    private RideServiceImpl rideService;
+
+    @Autowired
+    private RideAvailabilityIndex rideAvailabilityIndex;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User driver;
+    private Ride airportToHub;
+    private Ride hubToCampus;
+
+    @BeforeEach
+    void setUp() {
+        driver = new User();
+        driver.setUsername("driver");
+        driver.setEmail("driver@carpooling.com");
+        driver.setPassword("secret");
+        driver.setRole(UserRole.DRIVER);
+        driver = userRepository.save(driver);
+
+        airportToHub = save("Airport", "Hub", LocalTime.of(8, 0), 60, 100.0, 3);
+        // Leaves before the 15 minute connection time after 09:00 is up
+        save("Hub", "Campus", LocalTime.of(9, 10), 60, 10.0, 3);
+        hubToCampus = save("Hub", "Campus", LocalTime.of(9, 30), 60, 80.0, 3);
+        save("Hub", "Depot", LocalTime.of(9, 20), 30, 20.0, 3);
+        save("Depot", "Campus", LocalTime.of(10, 10), 30, 30.0, 1);
+        save("Airport", "Campus", LocalTime.of(9, 0), 180, 300.0, 3);
+
+        rideAvailabilityIndex.rebuild();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        rideRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void ranksByArrival() {
+        List<ItineraryResponse> itineraries = rideService.planConnections(request(2, 1, SortBy.ARRIVAL), 10);
+
+        assertThat(itineraries).extracting(ConnectionPlanningTest::route)
+                .containsExactly("Airport>Hub>Campus", "Airport>Hub>Depot>Campus", "Airport>Campus");
+        assertThat(itineraries.get(0).getArrivalTime()).isEqualTo(DAY.atTime(10, 30));
+        assertThat(itineraries.get(0).getTotalPricePerSeat()).isEqualTo(180.0);
+        assertThat(itineraries.get(1).getTransfers()).isEqualTo(2);
+    }
+
+    @Test
+    void ranksByPriceAndHonoursLimits() {
+        List<ItineraryResponse> byPrice = rideService.planConnections(request(2, 1, SortBy.PRICE), 2);
+        List<ItineraryResponse> oneTransfer = rideService.planConnections(request(1, 1, SortBy.PRICE), 10);
+        List<ItineraryResponse> twoSeats = rideService.planConnections(request(2, 2, SortBy.PRICE), 10);
+
+        assertThat(byPrice).extracting(ConnectionPlanningTest::route)
+                .containsExactly("Airport>Hub>Depot>Campus", "Airport>Hub>Campus");
+        assertThat(oneTransfer).extracting(ConnectionPlanningTest::route)
+                .containsExactly("Airport>Hub>Campus", "Airport>Campus");
+        assertThat(twoSeats).extracting(ConnectionPlanningTest::route)
+                .containsExactly("Airport>Hub>Campus", "Airport>Campus");
+    }
+
+    @Test
+    void cachedGraphFollowsSeatChangesAndNewRides() {
+        rideService.planConnections(request(2, 1, SortBy.ARRIVAL), 10);
+
+        rideAvailabilityIndex.refresh(hubToCampus, 0);
+        rideAvailabilityIndex.refresh(airportToHub, 0);
+        RideCreateRequest create = new RideCreateRequest();
+        create.setSource("Airport");
+        create.setDestination("Depot");
+        create.setRideDate(DAY);
+        create.setRideTime(LocalTime.of(8, 30));
+        create.setDurationMinutes(45);
+        create.setTotalSeats(2);
+        create.setPricePerSeat(40.0);
+        rideService.createRide(create, driver.getId());
+
+        List<ItineraryResponse> itineraries = rideService.planConnections(request(2, 1, SortBy.ARRIVAL), 10);
+
+        assertThat(itineraries).extracting(ConnectionPlanningTest::route)
+                .containsExactly("Airport>Depot>Campus", "Airport>Campus");
+    }
+
+    private static ConnectionSearchRequest request(int maxTransfers, int seats, SortBy sortBy) {
+        ConnectionSearchRequest request = new ConnectionSearchRequest();
+        request.setSource("airport");
+        request.setDestination("Campus ");
+        request.setRideDate(DAY);
+        request.setMaxTransfers(maxTransfers);
+        request.setSeats(seats);
+        request.setSortBy(sortBy);
+        return request;
+    }
+
+    private static String route(ItineraryResponse itinerary) {
+        return itinerary.getLegs().get(0).getSource() + ">" + itinerary.getLegs().stream()
+                .map(RideResponse::getDestination)
+                .collect(Collectors.joining(">"));
+    }
+
+    private Ride save(String source, String destination, LocalTime time, int minutes, double price, int seats) {
+        Ride ride = new Ride();
+        ride.setDriver(driver);
+        ride.setSource(source);
+        ride.setDestination(destination);
+        ride.setRideDate(DAY);
+        ride.setRideTime(time);
+        ride.setDurationMinutes(minutes);
+        ride.setTotalSeats(3);
+        ride.setAvailableSeats(seats);
+        ride.setPricePerSeat(price);
+        return rideRepository.save(ride);
+    }
+}
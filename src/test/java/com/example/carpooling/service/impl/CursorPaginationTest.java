@@ -0,0 +1,136 @@
+package com.carpooling.service.impl;
+
+import com.carpooling.CarpoolingJpaTest;
+import com.carpooling.dto.request.RideSearchRequest;
+import com.carpooling.dto.response.CursorPage;
+import com.carpooling.dto.response.RideResponse;
+import com.carpooling.entity.Ride;
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.UserRole;
+import com.carpooling.exception.InvalidCursorException;
+import com.carpooling.pagination.SeekCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.carpooling.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Keyset (seek) pages of the ride search and of a driver's rides
+ */
+@CarpoolingJpaTest
+class CursorPaginationTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(6);
+
+    @Autowired
+    private RideServiceImpl rideService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User driver;
+    private final List<Long> rideIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        driver = entityManager.persist(user("driver", UserRole.DRIVER));
+        User other = entityManager.persist(user("other", UserRole.DRIVER));
+
+        // Two rides share a departure time, so the id breaks the tie
+        for (LocalTime time : List.of(LocalTime.of(9, 0), LocalTime.of(7, 0), LocalTime.of(8, 0),
+                LocalTime.of(8, 0), LocalTime.of(6, 0))) {
+            rideIds.add(entityManager.persist(ride(driver, time)).getId());
+        }
+        entityManager.persist(ride(other, LocalTime.of(10, 0)));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void searchPagesFollowDepartureThenId() {
+        List<RideResponse> seen = new ArrayList<>();
+        List<String> cursors = new ArrayList<>();
+
+        String cursor = "";
+        do {
+            CursorPage<RideResponse> page = rideService.searchRides(request(), cursor, 2);
+            assertThat(page.getContent()).hasSizeLessThanOrEqualTo(2);
+            seen.addAll(page.getContent());
+            cursor = page.getNextCursor();
+            cursors.add(cursor);
+        } while (cursor != null);
+
+        assertThat(seen).extracting(ride -> ride.getRideTime().toString())
+                .containsExactly("06:00", "07:00", "08:00", "08:00", "09:00", "10:00");
+        assertThat(seen.get(2).getId()).isLessThan(seen.get(3).getId());
+        assertThat(cursors).hasSize(3);
+    }
+
+    @Test
+    void searchResumesBetweenRidesWithTheSameDeparture() {
+        Long first = Math.min(rideIds.get(2), rideIds.get(3));
+        Long second = Math.max(rideIds.get(2), rideIds.get(3));
+
+        CursorPage<RideResponse> page = rideService.searchRides(request(),
+                SeekCursor.after(DAY, LocalTime.of(8, 0), first).encode(), 1);
+
+        assertThat(page.getContent()).extracting(RideResponse::getId).containsExactly(second);
+        assertThat(page.isHasNext()).isTrue();
+    }
+
+    @Test
+    void driverPagesRunNewestFirstAndStopAtTheLastRide() {
+        Long driverId = driver.getId();
+
+        CursorPage<RideResponse> first = rideService.getMyRides(driverId, "", 3);
+        CursorPage<RideResponse> second = rideService.getMyRides(driverId, first.getNextCursor(), 3);
+
+        assertThat(first.getContent()).extracting(RideResponse::getId)
+                .containsExactly(rideIds.get(4), rideIds.get(3), rideIds.get(2));
+        assertThat(second.getContent()).extracting(RideResponse::getId)
+                .containsExactly(rideIds.get(1), rideIds.get(0));
+        assertThat(second.getNextCursor()).isNull();
+        assertThat(second.isHasNext()).isFalse();
+    }
+
+    @Test
+    void rejectsCursorsThatDoNotFitTheListing() {
+        // A driver listing cursor carries no departure time
+        String driverCursor = SeekCursor.afterId(rideIds.get(0)).encode();
+
+        assertThatThrownBy(() -> rideService.searchRides(request(), driverCursor, 2))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> rideService.getMyRides(driver.getId(), "%%%", 2))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    private static RideSearchRequest request() {
+        RideSearchRequest request = new RideSearchRequest();
+        request.setSource("Madurai");
+        request.setDestination("Trichy");
+        request.setRideDate(DAY);
+        return request;
+    }
+
+    private static Ride ride(User driver, LocalTime time) {
+        Ride ride = new Ride();
+        ride.setDriver(driver);
+        ride.setSource("Madurai");
+        ride.setDestination("Trichy");
+        ride.setRideDate(DAY);
+        ride.setRideTime(time);
+        ride.setTotalSeats(3);
+        ride.setAvailableSeats(3);
+        ride.setPricePerSeat(150.0);
+        return ride;
+    }
+}
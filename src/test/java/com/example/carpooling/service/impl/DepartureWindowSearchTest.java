@@ -0,0 +1,138 @@
+package com.carpooling.service.impl;
+
+import com.carpooling.CarpoolingJpaTest;
+import com.carpooling.dto.request.RideSearchRequest;
+import com.carpooling.dto.response.CursorPage;
+import com.carpooling.dto.response.RideResponse;
+import com.carpooling.entity.Ride;
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.UserRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Departure-window search through the availability index, the database and keyset pages
+ */
+@CarpoolingJpaTest
+class DepartureWindowSearchTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(5);
+
+    @Autowired
+    private RideServiceImpl rideService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        User driver = new User();
+        driver.setUsername("driver");
+        driver.setEmail("driver@carpooling.com");
+        driver.setPassword("secret");
+        driver.setRole(UserRole.DRIVER);
+        entityManager.persist(driver);
+
+        entityManager.persist(ride(driver, DAY, LocalTime.of(5, 0)));
+        entityManager.persist(ride(driver, DAY, LocalTime.of(21, 0)));
+        entityManager.persist(ride(driver, DAY, LocalTime.of(22, 30)));
+        entityManager.persist(ride(driver, DAY, LocalTime.of(23, 59, 59)));
+        entityManager.persist(ride(driver, DAY.plusDays(1), LocalTime.of(0, 30)));
+        entityManager.persist(ride(driver, DAY.plusDays(1), LocalTime.of(1, 30)));
+        entityManager.persist(ride(driver, DAY.plusDays(2), LocalTime.of(0, 15)));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void windowWithinOneDay() {
+        Page<RideResponse> page = rideService.searchRides(request(LocalTime.of(21, 0), LocalTime.of(23, 0)),
+                PageRequest.of(0, 10));
+
+        assertThat(departures(page.getContent())).containsExactly("21:00", "22:30");
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void openEndedWindowRunsToEndOfDay() {
+        Page<RideResponse> page = rideService.searchRides(request(LocalTime.of(22, 0), null), PageRequest.of(0, 10));
+
+        assertThat(departures(page.getContent())).containsExactly("22:30", "23:59:59");
+    }
+
+    @Test
+    void windowCrossingMidnightFromIndex() {
+        RideSearchRequest request = request(LocalTime.of(22, 0), LocalTime.of(1, 0));
+
+        Page<RideResponse> first = rideService.searchRides(request, PageRequest.of(0, 2));
+        Page<RideResponse> second = rideService.searchRides(request, PageRequest.of(1, 2));
+
+        assertThat(departures(first.getContent())).containsExactly("22:30", "23:59:59");
+        assertThat(departures(second.getContent())).containsExactly("00:30");
+        assertThat(second.getContent().get(0).getRideDate()).isEqualTo(DAY.plusDays(1));
+        assertThat(first.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void windowCrossingMidnightFromDatabase() {
+        Page<RideResponse> page = rideService.searchRides(request(LocalTime.of(22, 0), LocalTime.of(1, 0)),
+                PageRequest.of(0, 10, Sort.by("rideDate", "rideTime")));
+
+        assertThat(departures(page.getContent())).containsExactly("22:30", "23:59:59", "00:30");
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void cursorPagesCrossMidnight() {
+        RideSearchRequest request = request(LocalTime.of(22, 0), LocalTime.of(1, 0));
+        List<RideResponse> seen = new ArrayList<>();
+
+        String cursor = null;
+        do {
+            CursorPage<RideResponse> page = rideService.searchRides(request, cursor, 1);
+            seen.addAll(page.getContent());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(departures(seen)).containsExactly("22:30", "23:59:59", "00:30");
+    }
+
+    private static RideSearchRequest request(LocalTime earliest, LocalTime latest) {
+        RideSearchRequest request = new RideSearchRequest();
+        request.setSource("Chennai");
+        request.setDestination("Pondicherry");
+        request.setRideDate(DAY);
+        request.setEarliestDeparture(earliest);
+        request.setLatestDeparture(latest);
+        return request;
+    }
+
+    private static List<String> departures(List<RideResponse> rides) {
+        return rides.stream().map(ride -> ride.getRideTime().toString()).toList();
+    }
+
+    private static Ride ride(User driver, LocalDate date, LocalTime time) {
+        Ride ride = new Ride();
+        ride.setDriver(driver);
+        ride.setSource("Chennai");
+        ride.setDestination("Pondicherry");
+        ride.setRideDate(date);
+        ride.setRideTime(time);
+        ride.setTotalSeats(3);
+        ride.setAvailableSeats(3);
+        ride.setPricePerSeat(200.0);
+        return ride;
+    }
+}
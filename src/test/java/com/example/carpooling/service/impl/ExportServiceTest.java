@@ -0,0 +1,157 @@
+package com.carpooling.service.impl;
+
+import com.carpooling.CarpoolingJpaTest;
+import com.carpooling.entity.Booking;
+import com.carpooling.entity.Ride;
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.UserRole;
+import com.carpooling.export.ExportFormat;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.carpooling.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Streaming exports: output formats, and a persistence context that stays small however
+ * many rows are exported
+ */
+@CarpoolingJpaTest
+@Import({ExportServiceImpl.class, ExportServiceTest.JacksonConfig.class})
+class ExportServiceTest {
+
+    private static final int RIDES = 30;
+    private static final int PASSENGERS = 100;
+
+    @Autowired
+    private ExportServiceImpl exportService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    private User driver;
+    private User passenger;
+
+    @BeforeEach
+    void setUp() {
+        driver = entityManager.persist(user("driver", UserRole.DRIVER));
+        List<User> passengers = new ArrayList<>();
+        for (int i = 0; i < PASSENGERS; i++) {
+            passengers.add(entityManager.persist(user("passenger" + i, UserRole.PASSENGER)));
+        }
+        passenger = passengers.get(0);
+
+        for (int r = 0; r < RIDES; r++) {
+            Ride ride = new Ride();
+            ride.setDriver(driver);
+            ride.setSource(r == 0 ? "Bangalore, \"KA\"" : "Bangalore");
+            ride.setDestination("Mysore");
+            ride.setRideDate(LocalDate.now().plusDays(1 + r));
+            ride.setRideTime(LocalTime.of(7, 0));
+            ride.setTotalSeats(4);
+            ride.setAvailableSeats(4);
+            ride.setPricePerSeat(250.0);
+            entityManager.persist(ride);
+            for (User booker : passengers) {
+                Booking booking = new Booking();
+                booking.setRide(ride);
+                booking.setPassenger(booker);
+                entityManager.persist(booking);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void bookingsForMyRidesStreamAsNdjsonWithFlatPersistenceContext() throws Exception {
+        ContextSamplingStream out = new ContextSamplingStream(entityManager.getEntityManager().unwrap(SessionImplementor.class));
+
+        long rows = exportService.exportBookingsForMyRides(driver.getId(), ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(rows).isEqualTo(RIDES * PASSENGERS);
+        assertThat(lines).hasSize(RIDES * PASSENGERS);
+        JsonNode first = jsonMapper.readTree(lines[0]);
+        assertThat(first.get("passengerUsername").asString()).isEqualTo("passenger0");
+        assertThat(first.get("status").asString()).isEqualTo("REQUESTED");
+        // Without detaching, every booking, passenger and ride would still be managed here
+        assertThat(out.samples).isGreaterThan(1);
+        assertThat(out.maxManagedEntities).isLessThan(10);
+    }
+
+    @Test
+    void myBookingsOnlyContainThePassengersOwn() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.exportMyBookings(passenger.getId(), ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(rows).isEqualTo(RIDES);
+        assertThat(lines[0]).isEqualTo("id,rideId,passengerId,passengerUsername,status,bookedAt");
+        assertThat(lines).hasSize(RIDES + 1);
+        assertThat(lines[1]).contains(",passenger0,REQUESTED,");
+    }
+
+    @Test
+    void myRidesAsCsvQuoteAwkwardValues() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportMyRides(driver.getId(), ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(lines).hasSize(RIDES + 1);
+        assertThat(lines[1]).startsWith(lines[1].substring(0, lines[1].indexOf(',')) + ",\"Bangalore, \"\"KA\"\"\",Mysore,");
+        // Missing duration is an empty field
+        assertThat(lines[1]).contains(",07:00,,4,4,0,250.0");
+    }
+
+    /**
+     * Records how many entities the session manages each time the export flushes output
+     */
+    private static final class ContextSamplingStream extends ByteArrayOutputStream {
+
+        private final SessionImplementor session;
+        private int samples;
+        private int maxManagedEntities;
+
+        ContextSamplingStream(SessionImplementor session) {
+            this.session = session;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            samples++;
+            maxManagedEntities = Math.max(maxManagedEntities,
+                    session.getPersistenceContextInternal().getNumberOfManagedEntities());
+            super.write(bytes, offset, length);
+        }
+    }
+
+    @TestConfiguration
+    static class JacksonConfig {
+
+        @Bean
+        JsonMapper jsonMapper() {
+            return JsonMapper.builder().build();
+        }
+    }
+}
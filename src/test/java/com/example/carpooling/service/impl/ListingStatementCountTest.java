@@ -0,0 +1,166 @@
+package com.carpooling.service.impl;
+
+import com.carpooling.CarpoolingJpaTest;
+import com.carpooling.dto.request.RideSearchRequest;
+import com.carpooling.dto.response.BookingResponse;
+import com.carpooling.dto.response.CursorPage;
+import com.carpooling.dto.response.RideResponse;
+import com.carpooling.entity.Booking;
+import com.carpooling.entity.Ride;
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.UserRole;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.carpooling.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Asserts the number of SQL statements issued per listing page
+ * Every page must cost the same regardless of how many distinct drivers/passengers it holds
+ */
+@CarpoolingJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ListingStatementCountTest {
+
+    private static final int RIDES = 6;
+    private static final int PAGE_SIZE = 4;
+    private static final LocalDate RIDE_DATE = LocalDate.now().plusDays(3);
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+
+    @Autowired
+    private RideServiceImpl rideService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<User> drivers = new ArrayList<>();
+    private final List<User> passengers = new ArrayList<>();
+    private final List<Ride> rides = new ArrayList<>();
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < RIDES; i++) {
+            drivers.add(entityManager.persist(user("driver" + i, UserRole.DRIVER)));
+            passengers.add(entityManager.persist(user("passenger" + i, UserRole.PASSENGER)));
+        }
+        // Every driver offers one ride on the same route; the first driver offers all the others too
+        for (int i = 0; i < RIDES; i++) {
+            rides.add(entityManager.persist(ride(drivers.get(i), LocalTime.of(6 + i, 0))));
+        }
+        for (int i = 0; i < RIDES; i++) {
+            entityManager.persist(ride(drivers.get(0), LocalTime.of(18, i)));
+        }
+        // Every passenger books every ride
+        for (Ride ride : rides) {
+            for (User passenger : passengers) {
+                Booking booking = new Booking();
+                booking.setRide(ride);
+                booking.setPassenger(passenger);
+                entityManager.persist(booking);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void myBookingsPageIsOneSelectPlusCount() {
+        Page<BookingResponse> page = bookingService.getMyBookings(passengers.get(0).getId(),
+                PageRequest.of(0, PAGE_SIZE));
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getContent()).allSatisfy(booking ->
+                assertThat(booking.getPassengerUsername()).isEqualTo("passenger0"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void myBookingsCursorPageIsOneSelect() {
+        CursorPage<BookingResponse> page = bookingService.getMyBookings(passengers.get(0).getId(), null, PAGE_SIZE);
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.isHasNext()).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void bookingsForMyRidesDoNotLoadPassengersPerRow() {
+        Page<BookingResponse> page = bookingService.getBookingsForMyRides(drivers.get(0).getId(),
+                PageRequest.of(0, PAGE_SIZE));
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getContent()).extracting(BookingResponse::getPassengerUsername).doesNotContainNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void sortedSearchFetchesDriversWithRides() {
+        RideSearchRequest request = new RideSearchRequest();
+        request.setSource("Bangalore");
+        request.setDestination("Mysore");
+        request.setRideDate(RIDE_DATE);
+
+        Page<RideResponse> page = rideService.searchRides(request,
+                PageRequest.of(0, PAGE_SIZE, Sort.by("rideTime")));
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getContent()).extracting(RideResponse::getDriverUsername)
+                .containsExactly("driver0", "driver1", "driver2", "driver3");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void myRidesCursorPageIsOneSelect() {
+        CursorPage<RideResponse> page = rideService.getMyRides(drivers.get(0).getId(), null, PAGE_SIZE);
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getContent()).extracting(RideResponse::getDriverUsername).containsOnly("driver0");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void rideByIdLoadsDriverInSameStatement() {
+        RideResponse ride = rideService.getRideById(rides.get(1).getId());
+
+        assertThat(ride.getDriverUsername()).isEqualTo("driver1");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private static Ride ride(User driver, LocalTime rideTime) {
+        Ride ride = new Ride();
+        ride.setDriver(driver);
+        ride.setSource("Bangalore");
+        ride.setDestination("Mysore");
+        ride.setRideDate(RIDE_DATE);
+        ride.setRideTime(rideTime);
+        ride.setTotalSeats(4);
+        ride.setAvailableSeats(4);
+        ride.setPricePerSeat(250.0);
+        return ride;
+    }
+}
@@ -0,0 +1,92 @@
+package com.carpooling.service.impl;
+
+import com.carpooling.CarpoolingJpaTest;
+import com.carpooling.dto.request.RecurringRideRequest;
+import com.carpooling.dto.response.RecurringRideResponse;
+import com.carpooling.entity.User;
+import com.carpooling.entity.enums.UserRole;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.carpooling.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recurring rides are inserted as JDBC batches, one per chunk of the batch size
+ */
+@CarpoolingJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.carpooling.service.impl.RecurringRideBatchTest$CapturingInspector"
+})
+class RecurringRideBatchTest {
+
+    private static final int DAYS = 120;
+
+    @Autowired
+    private RideServiceImpl rideService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void ridesAreInsertedInOneBatchPerChunk() {
+        User driver = entityManager.persistAndFlush(user("driver", UserRole.DRIVER));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        CapturingInspector.STATEMENTS.clear();
+
+        RecurringRideResponse response = rideService.createRecurringRides(request(), driver.getId());
+
+        assertThat(response.getCreated()).isEqualTo(DAYS);
+        assertThat(response.getRideIds()).doesNotHaveDuplicates().isSorted();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(DAYS);
+        // 120 rides in chunks of 50: three batched INSERTs instead of 120 single ones
+        assertThat(CapturingInspector.STATEMENTS)
+                .filteredOn(sql -> sql.toLowerCase().startsWith("insert into rides"))
+                .hasSize(3);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(10);
+    }
+
+    private static RecurringRideRequest request() {
+        RecurringRideRequest request = new RecurringRideRequest();
+        request.setSource("Hyderabad");
+        request.setDestination("Vijayawada");
+        request.setRideTime(LocalTime.of(6, 0));
+        request.setTotalSeats(3);
+        request.setPricePerSeat(350.0);
+        request.setStartDate(LocalDate.now().plusDays(1));
+        request.setEndDate(LocalDate.now().plusDays(DAYS));
+        return request;
+    }
+
+    /**
+     * Records every SQL statement Hibernate prepares
+     */
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
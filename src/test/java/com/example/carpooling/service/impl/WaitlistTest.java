@@ -0,0 +1,284 @@
+package com.carpooling.service.impl;
+
+import com.carpooling.CarpoolingJpaTest;
+import com.carpooling.concurrency.RideLockManager;
+import com.carpooling.dto.response.BookingResponse;
+import com.carpooling.dto.response.WaitlistResponse;
+import com.carpooling.entity.Booking;
+import com.carpooling.entity.Ride;
+import com.carpooling.entity.User;
+import com.carpooling.entity.WaitlistEntry;
+import com.carpooling.entity.enums.BookingStatus;
+import com.carpooling.entity.enums.UserRole;
+import com.carpooling.exception.BookingException;
+import com.carpooling.exception.ResourceNotFoundException;
+import com.carpooling.repository.BookingOutboxRepository;
+import com.carpooling.repository.BookingRepository;
+import com.carpooling.repository.RideRepository;
+import com.carpooling.repository.UserRepository;
+import com.carpooling.repository.WaitlistRepository;
+import com.carpooling.waitlist.RideWaitlist;
+import com.carpooling.waitlist.WaitlistSlot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static com.carpooling.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Waitlists of full rides and promotion when a confirmed seat is given back
+ * Runs without a test transaction so that the after-commit queue changes and the async
+ * promotion happen as they do in production
+ */
+@CarpoolingJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WaitlistTest {
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+
+    @Autowired
+    private WaitlistServiceImpl waitlistService;
+
+    @Autowired
+    private LockingWaitlistService lockingWaitlistService;
+
+    @Autowired
+    private RideLockManager rideLockManager;
+
+    @Autowired
+    private RideWaitlist rideWaitlist;
+
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    @Autowired
+    private BookingOutboxRepository outboxRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User driver;
+    private Ride ride;
+    private final List<User> passengers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        driver = userRepository.save(user("driver", UserRole.DRIVER));
+        for (int i = 0; i < 4; i++) {
+            passengers.add(userRepository.save(user("passenger" + i, UserRole.PASSENGER)));
+        }
+        ride = new Ride();
+        ride.setDriver(driver);
+        ride.setSource("Pune");
+        ride.setDestination("Mumbai");
+        ride.setRideDate(LocalDate.now().plusDays(2));
+        ride.setRideTime(LocalTime.of(6, 30));
+        ride.setTotalSeats(1);
+        ride.setAvailableSeats(1);
+        ride.setPricePerSeat(400.0);
+        ride = rideRepository.save(ride);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (WaitlistEntry entry : waitlistRepository.findAll()) {
+            rideWaitlist.remove(WaitlistSlot.of(entry));
+        }
+        waitlistRepository.deleteAllInBatch();
+        outboxRepository.deleteAllInBatch();
+        bookingRepository.deleteAllInBatch();
+        rideRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void onlyFullRidesCanBeJoinedAndPassengersQueueInOrder() {
+        assertThatThrownBy(() -> waitlistService.joinWaitlist(ride.getId(), passengers.get(1).getId()))
+                .isInstanceOf(BookingException.class);
+
+        fillRide();
+        assertThatThrownBy(() -> waitlistService.joinWaitlist(ride.getId(), passengers.get(0).getId()))
+                .isInstanceOf(BookingException.class);
+
+        assertThat(waitlistService.joinWaitlist(ride.getId(), passengers.get(1).getId()).getPosition()).isEqualTo(1);
+        assertThat(waitlistService.joinWaitlist(ride.getId(), passengers.get(2).getId()).getPosition()).isEqualTo(2);
+        assertThatThrownBy(() -> waitlistService.joinWaitlist(ride.getId(), passengers.get(2).getId()))
+                .isInstanceOf(BookingException.class);
+
+        List<WaitlistResponse> mine = waitlistService.getMyWaitlist(passengers.get(2).getId());
+        assertThat(mine).singleElement().satisfies(response -> {
+            assertThat(response.getRideId()).isEqualTo(ride.getId());
+            assertThat(response.getPosition()).isEqualTo(2);
+            assertThat(response.getWaiting()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void cancelledSeatIsOfferedToTheFrontOfTheQueue() {
+        Long seated = fillRide();
+        waitlistService.joinWaitlist(ride.getId(), passengers.get(1).getId());
+        waitlistService.joinWaitlist(ride.getId(), passengers.get(2).getId());
+
+        bookingService.cancelBooking(seated, passengers.get(0).getId());
+
+        await(() -> booking(passengers.get(1)).isPresent());
+        assertThat(booking(passengers.get(1)).get().getStatus()).isEqualTo(BookingStatus.REQUESTED);
+        assertThat(booking(passengers.get(2))).isEmpty();
+        await(() -> rideWaitlist.size(ride.getId()) == 1);
+        assertThat(waitlistService.getMyWaitlist(passengers.get(2).getId()))
+                .extracting(WaitlistResponse::getPosition).containsExactly(1);
+        assertThat(waitlistService.getMyWaitlist(passengers.get(1).getId())).isEmpty();
+    }
+
+    @Test
+    void joinWaitsForASeatBeingReturnedAndIsThenRefused() throws Exception {
+        Long seated = fillRide();
+        ExecutorService joiner = Executors.newSingleThreadExecutor();
+        try {
+            // The cancellation holds the ride lock while the join arrives
+            Future<WaitlistResponse> join = rideLockManager.withRideLock(ride.getId(), () -> {
+                Future<WaitlistResponse> pending = joiner.submit(() ->
+                        lockingWaitlistService.joinWaitlist(ride.getId(), passengers.get(1).getId()));
+                await(() -> rideLockManager.getQueuedThreads() > 0);
+                bookingService.cancelBooking(seated, passengers.get(0).getId());
+                return pending;
+            });
+
+            // Without the lock the join could commit after the promotion had found nobody waiting
+            assertThatThrownBy(() -> join.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(BookingException.class);
+        } finally {
+            joiner.shutdownNow();
+        }
+        assertThat(waitlistRepository.count()).isZero();
+    }
+
+    @Test
+    void leavingMovesEveryoneBehindUp() {
+        fillRide();
+        for (int i = 1; i <= 3; i++) {
+            waitlistService.joinWaitlist(ride.getId(), passengers.get(i).getId());
+        }
+
+        waitlistService.leaveWaitlist(ride.getId(), passengers.get(1).getId());
+
+        assertThat(waitlistService.getMyWaitlist(passengers.get(3).getId()))
+                .extracting(WaitlistResponse::getPosition).containsExactly(2);
+        assertThatThrownBy(() -> waitlistService.leaveWaitlist(ride.getId(), passengers.get(1).getId()))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void queuesAreRebuiltFromTheDatabase() {
+        fillRide();
+        waitlistService.joinWaitlist(ride.getId(), passengers.get(1).getId());
+        waitlistService.joinWaitlist(ride.getId(), passengers.get(2).getId());
+
+        // A fresh instance stands in for a restarted application
+        RideWaitlist restarted = new RideWaitlist(waitlistRepository);
+        restarted.rebuild();
+
+        assertThat(restarted.size(ride.getId())).isEqualTo(2);
+        assertThat(restarted.queue(ride.getId())).extracting(WaitlistSlot::passengerId)
+                .containsExactly(passengers.get(1).getId(), passengers.get(2).getId());
+    }
+
+    @Test
+    void promotedRequestDoesNotHoldTheSeatAgainstADirectBooking() {
+        Long seated = fillRide();
+        waitlistService.joinWaitlist(ride.getId(), passengers.get(1).getId());
+
+        bookingService.cancelBooking(seated, passengers.get(0).getId());
+        await(() -> booking(passengers.get(1)).isPresent());
+
+        // The returned seat is still open to anyone until the driver confirms a request
+        BookingResponse direct = bookingService.bookRide(ride.getId(), passengers.get(2).getId());
+        bookingService.confirmBooking(direct.getId(), driver.getId());
+
+        Long promoted = booking(passengers.get(1)).get().getId();
+        assertThatThrownBy(() -> bookingService.confirmBooking(promoted, driver.getId()))
+                .isInstanceOf(BookingException.class);
+        assertThat(booking(passengers.get(1)).get().getStatus()).isEqualTo(BookingStatus.REQUESTED);
+    }
+
+    @Test
+    void changesCommittedWhileQueuesAreRebuiltAreReplayed() {
+        fillRide();
+        waitlistService.joinWaitlist(ride.getId(), passengers.get(1).getId());
+        waitlistService.joinWaitlist(ride.getId(), passengers.get(2).getId());
+        WaitlistSlot left = rideWaitlist.queue(ride.getId()).iterator().next();
+        WaitlistSlot joined = new WaitlistSlot(left.entryId() + 100, ride.getId(), passengers.get(3).getId());
+
+        // A leave and a join commit after the rebuild has read the table, before it swaps
+        RideWaitlist[] restarted = new RideWaitlist[1];
+        WaitlistRepository reading = (WaitlistRepository) Proxy.newProxyInstance(
+                WaitlistRepository.class.getClassLoader(), new Class<?>[] {WaitlistRepository.class},
+                (proxy, method, args) -> {
+                    try {
+                        Object result = method.invoke(waitlistRepository, args);
+                        if (method.getName().equals("findSlotsFrom")) {
+                            restarted[0].remove(left);
+                            restarted[0].add(joined);
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        restarted[0] = new RideWaitlist(reading);
+        restarted[0].rebuild();
+
+        assertThat(restarted[0].queue(ride.getId())).extracting(WaitlistSlot::passengerId)
+                .containsExactly(passengers.get(2).getId(), passengers.get(3).getId());
+    }
+
+    /**
+     * Books and confirms the only seat for the first passenger
+     */
+    private Long fillRide() {
+        Long bookingId = bookingService.bookRide(ride.getId(), passengers.get(0).getId()).getId();
+        bookingService.confirmBooking(bookingId, driver.getId());
+        return bookingId;
+    }
+
+    private Optional<Booking> booking(User passenger) {
+        return bookingRepository.findByRideIdAndPassengerId(ride.getId(), passenger.getId());
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
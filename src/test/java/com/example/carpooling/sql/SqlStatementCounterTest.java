@@ -0,0 +1,76 @@
+package com.carpooling.sql;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for statement fingerprints, recordings and the sampled budget filter
+ */
+class SqlStatementCounterTest {
+
+    private final SqlStatementCounter counter = new SqlStatementCounter();
+
+    @Test
+    void fingerprintHidesLiteralsAndInListLengths() {
+        assertThat(SqlStatementCounter.fingerprint(
+                "select b.id from bookings b\n  where b.ride_id = 42 and b.status = 'CONFIRMED' and b.id in (?, ?, ?)"))
+                .isEqualTo("select b.id from bookings b where b.ride_id = ? and b.status = ? and b.id in (?)");
+        assertThat(SqlStatementCounter.fingerprint("select r1_0.id from rides r1_0 where r1_0.id in (?)"))
+                .isEqualTo("select r1_0.id from rides r1_0 where r1_0.id in (?)");
+    }
+
+    @Test
+    void recordingsCountOnlyWhileOpenAndNest() {
+        counter.inspect("select 1");
+
+        try (StatementRecording outer = SqlStatementCounter.start()) {
+            counter.inspect("select * from rides where id = 1");
+            try (StatementRecording inner = SqlStatementCounter.start()) {
+                counter.inspect("select * from rides where id = 2");
+                counter.inspect("select * from users where id = 3");
+                assertThat(inner.getCount()).isEqualTo(2);
+            }
+            counter.inspect("select * from rides where id = 4");
+
+            assertThat(outer.getCount()).isEqualTo(4);
+            assertThat(outer.getFingerprints())
+                    .containsEntry("select * from rides where id = ?", 3)
+                    .containsEntry("select * from users where id = ?", 1);
+            assertThat(outer.describe()).startsWith("3 x select * from rides where id = ?");
+        }
+
+        StatementRecording after = SqlStatementCounter.start();
+        after.close();
+        counter.inspect("select 1");
+        assertThat(after.getCount()).isZero();
+    }
+
+    @Test
+    void filterCountsSampledRequestsAgainstTheBudget() throws Exception {
+        SqlStatementBudgetFilter filter = new SqlStatementBudgetFilter(1.0, 2);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        filter.bindTo(registry);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/rides/1"), new MockHttpServletResponse(),
+                (request, response) -> counter.inspect("select * from rides where id = 1"));
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/bookings/my-bookings"), new MockHttpServletResponse(),
+                (request, response) -> {
+                    for (int i = 0; i < 3; i++) {
+                        counter.inspect("select * from rides where id = " + i);
+                    }
+                });
+
+        assertThat(filter.getSampledCount()).isEqualTo(2);
+        assertThat(filter.getOverBudgetCount()).isEqualTo(1);
+        assertThat(registry.get(SqlStatementBudgetFilter.SAMPLED_NAME).functionCounter().count()).isEqualTo(2.0);
+        assertThat(registry.get(SqlStatementBudgetFilter.OVER_BUDGET_NAME).functionCounter().count()).isEqualTo(1.0);
+
+        assertThatThrownBy(() -> new SqlStatementBudgetFilter(1.5, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}